@@ -4,21 +4,25 @@ import cn.citizenwiki.api.github.GithubConfig;
 import cn.citizenwiki.api.paratranz.ParatranzApi;
 import cn.citizenwiki.api.paratranz.ParatranzCache;
 import cn.citizenwiki.api.paratranz.ParatranzJacksonTools;
-import cn.citizenwiki.api.s3.S3Api;
 import cn.citizenwiki.api.s3.S3Config;
+import cn.citizenwiki.api.s3.S3UploadService;
 import cn.citizenwiki.config.GlobalConfig;
 import cn.citizenwiki.config.JGitConfig;
+import cn.citizenwiki.metrics.PhaseTimer;
+import cn.citizenwiki.metrics.RunMetrics;
+import cn.citizenwiki.metrics.jfr.RunRecording;
 import cn.citizenwiki.model.dto.FileVersion;
 import cn.citizenwiki.model.dto.paratranz.response.PZFile;
 import cn.citizenwiki.model.dto.paratranz.response.PZTranslation;
+import cn.citizenwiki.pipeline.Stage;
+import cn.citizenwiki.pipeline.StagePipeline;
 import cn.citizenwiki.processor.translation.*;
 import cn.citizenwiki.utils.GlobalIniUtil;
+import cn.citizenwiki.utils.JGitUtil;
 import cn.citizenwiki.utils.ParatranzFileUtil;
+import cn.citizenwiki.utils.RunFingerprint;
 import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.ListBranchCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.lib.Ref;
-import org.eclipse.jgit.transport.RefSpec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,6 +30,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.function.Function;
@@ -38,115 +43,242 @@ public class MergeAndConvert implements AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(MergeAndConvert.class);
 
+    //强制重新生成的启动参数
+    private static final String ARG_FORCE = "--force";
+    //运行指纹存放文件名，放在paratranz缓存目录下以便随action缓存保留
+    private static final String FINGERPRINT_FILE_NAME = "run_fingerprint.info";
+    //基准global.ini
+    private static final Path SOURCE_INI_PATH = Paths.get("global.ini");
+    //需要克隆的盒子仓库分支
+    public static final List<String> SCBOX_BRANCHES = List.of(GithubConfig.FULL_BRANCH_NAME, GithubConfig.HALF_BRANCH_NAME,
+            GithubConfig.DUAL_BRANCH_NAME, GithubConfig.PINYIN_BRANCH_NAME, GithubConfig.SEARCH_BRANCH_NAME);
+
     //Paratranz Apibao包装类
     private static final ParatranzApi paratranzApi = ParatranzApi.INSTANCE;
-    //词条处理器
-    private final TranslationProcessor[] translationProcessors =
-            new TranslationProcessor[]{new FullTranslationProcessor(), new HalfTranslationProcessor(), new BothTranslationProcessor(), new PinYinTranslationProcessor(), new SearchableTranslationProcessor()};
-
-    private final S3Api s3Api = S3Api.INSTANCE;
+    private final S3UploadService s3UploadService = S3UploadService.getInstance();
 
     /**
-     * processor多线程执行器
+     * 渲染等计算密集阶段的线程池，大小与cpu核数一致
      */
-    private final ThreadPoolExecutor processorExecutor;
+    private final ForkJoinPool cpuExecutor = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    /**
+     * git、github与存储桶等阻塞io阶段，每个阶段一个虚拟线程，不占用渲染所需的线程
+     */
+    private final ExecutorService ioExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    //词条处理器，压缩与补丁生成共用流水线的线程池
+    private final TranslationProcessor[] translationProcessors = createTranslationProcessors(cpuExecutor, ioExecutor);
 
-    public MergeAndConvert() {
-        //初始化processor线程池
-        processorExecutor = buildProcessorExecutor();
+    public static void main(String[] args) throws Exception {
+        RunRecording recording = GlobalConfig.JFR_RECORDING ? RunRecording.start() : null;
+        try {
+            run(args);
+        } finally {
+            //无论成功与否都输出运行报告与飞行记录，随输出目录一起上传；写入失败只记录日志，不能掩盖运行本身的异常
+            try {
+                RunMetrics.INSTANCE.write(Path.of(GlobalConfig.OUTPUT_DIR));
+            } catch (IOException | RuntimeException e) {
+                logger.error("运行报告写入失败", e);
+            }
+            if (recording != null) {
+                try {
+                    recording.dump(Path.of(GlobalConfig.OUTPUT_DIR));
+                } catch (IOException | RuntimeException e) {
+                    logger.error("飞行记录写入失败", e);
+                }
+            }
+        }
     }
 
-    public static void main(String[] args) throws Exception {
+    private static void run(String[] args) throws Exception {
+        //强制重新生成，忽略运行指纹
+        boolean force = Arrays.asList(args).contains(ARG_FORCE);
         //更新pz缓存
-        List<PZFile> pzFiles = ParatranzCache.INSTANCE.restorePatatranzCache();
+        List<PZFile> pzFiles;
+        try (PhaseTimer ignored = RunMetrics.INSTANCE.start("cache_restore")) {
+            pzFiles = ParatranzCache.INSTANCE.restorePatatranzCache();
+        }
+        //输入未变化时跳过整次运行
+        RunFingerprint runFingerprint = new RunFingerprint(Path.of(ParatranzCache.CACHE_DIR, FINGERPRINT_FILE_NAME));
+        String fingerprint = RunFingerprint.compute(SOURCE_INI_PATH,
+                Path.of(ParatranzCache.CACHE_DIR, ParatranzCache.METADATA_FILE_NAME),
+                Path.of(GlobalConfig.RULE_CONFIG_DIR), Path.of(GlobalConfig.DATA_DIR),
+                "SW_PUBLISH=" + GlobalConfig.SW_PUBLISH, "SW_PROFILE=" + GlobalConfig.SW_PROFILE.name());
+        logger.info("本次运行指纹：{}", fingerprint);
+        if (!GlobalConfig.SW_RUN_FINGERPRINT) {
+            logger.info("运行指纹已关闭，将完整运行且不记录指纹");
+        } else if (runFingerprint.matchesStored(fingerprint)) {
+            if (!force) {
+                logger.info("输入与上次成功运行一致，跳过克隆、渲染、git以及存储桶上传，如需重新生成请添加{}参数", ARG_FORCE);
+                return;
+            }
+            logger.info("输入与上次成功运行一致，但指定了{}，将重新生成", ARG_FORCE);
+        }
         try (MergeAndConvert mergeAndConvert = new MergeAndConvert()) {
-            mergeAndConvert.fetchAndMergeTranslations(pzFiles);
+            if (mergeAndConvert.fetchAndMergeTranslations(pzFiles) && GlobalConfig.SW_RUN_FINGERPRINT) {
+                runFingerprint.store(fingerprint);
+            }
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
             throw e;
         }
     }
 
+    /**
+     * 创建所有词条处理器，处理器带有渲染状态，每次渲染都需要新的实例
+     *
+     * @param cpuExecutor 压缩等计算密集任务的线程池
+     * @param ioExecutor  补丁生成等io任务的线程池
+     */
+    public static TranslationProcessor[] createTranslationProcessors(Executor cpuExecutor, Executor ioExecutor) {
+        return new TranslationProcessor[]{new FullTranslationProcessor(cpuExecutor, ioExecutor), new HalfTranslationProcessor(cpuExecutor, ioExecutor),
+                new BothTranslationProcessor(cpuExecutor, ioExecutor), new PinYinTranslationProcessor(cpuExecutor, ioExecutor),
+                new SearchableTranslationProcessor(cpuExecutor, ioExecutor)};
+    }
+
+    /**
+     * 获取paratranz文件中的最新版本号
+     */
+    public static FileVersion latestFileVersion(List<PZFile> pzFiles) {
+        return pzFiles.stream()
+                .filter(pzFile -> ParatranzFileUtil.isFormatedName(pzFile.getName()))
+                .map(FileVersion::new)
+                .max(Comparator.naturalOrder())
+                .get();
+    }
+
+    private static String scboxUri() {
+        return GithubConfig.INSTANCE.getTargetRemoteUrl();
+    }
+
     private static void cloneScboxLocalization() {
-        logger.info("开始克隆盒子仓库，此步时间较长请耐心等待...");
-        try (Git git = Git.cloneRepository()
-                .setURI("https://github.com/" + GithubConfig.INSTANCE.getTargetOwner() + "/" + GithubConfig.INSTANCE.getTargetRepo())
-                .setDirectory(new File(GithubConfig.ORIGIN_DIR))
-                .setCloneAllBranches(true)
-                .call()) {
-            Collection<Ref> branches = git.branchList().setListMode(ListBranchCommand.ListMode.ALL).call();
-            //删除无用temp分支
-            deleteTempBranch(branches, git);
-        } catch (GitAPIException e) {
-            logger.info("克隆盒子仓库异常", e);
+        logger.info("开始同步盒子仓库镜像...");
+        //只需要各版本分支的最新提交，镜像随缓存保留，只传输新增对象
+        try (PhaseTimer ignored = RunMetrics.INSTANCE.start("clone");
+             Git git = JGitUtil.syncMirror(scboxUri(), new File(GithubConfig.ORIGIN_DIR), SCBOX_BRANCHES)) {
+            logger.info("盒子仓库镜像已同步");
+        } catch (GitAPIException | IOException e) {
+            logger.info("同步盒子仓库镜像异常", e);
             throw new RuntimeException(e);
         }
-        logger.info("盒子仓库已克隆");
     }
 
-    private static void deleteTempBranch(Collection<Ref> branches, Git git) throws GitAPIException {
-        List<RefSpec> refSpecs = new ArrayList<>(branches.size());
-        for (Ref branch : branches) {
-            String branchName = branch.getName();
-            if (branchName.startsWith("refs/remotes/origin/temp")) {
-                String remoteBranchName = branchName.replace("refs/remotes/origin/", "");
-                logger.info("检测到临时分支[{}],将被删除", remoteBranchName);
-                git.checkout().setName(branchName).call();
-                git.checkout().setName("main").call();
-                git.branchDelete().setBranchNames(remoteBranchName).call();
-                // 推送删除远程分支
-                RefSpec refSpec = new RefSpec()
-                        .setSource(null)
-                        .setDestination("refs/heads/" + remoteBranchName);
-                refSpecs.add(refSpec);
-            }
-        }
-        if (!refSpecs.isEmpty()) {
-            git.push().setCredentialsProvider(JGitConfig.CREDENTIALS_PROVIDER)
-                    .setRefSpecs(refSpecs.toArray(new RefSpec[refSpecs.size()]))
-                    .call();
+    /**
+     * 删除过期的临时分支
+     *
+     * @return 是否全部删除成功
+     */
+    private static boolean deleteExpiredTempBranch() {
+        ZonedDateTime expireBefore = ZonedDateTime.now(CommonTranslationProcessor.TEMP_BRANCH_ZONE)
+                .minusDays(GithubConfig.INSTANCE.getTempBranchRetentionDays());
+        try (PhaseTimer ignored = RunMetrics.INSTANCE.start("delete_temp_branch")) {
+            return TempBranchPublisher.INSTANCE.deleteExpired(scboxUri(), JGitConfig.CREDENTIALS_PROVIDER, expireBefore);
         }
     }
 
     /**
      * 合并 Paratranz 上的所有汉化文件,并调用translationProcessors进行处理
+     *
+     * @return 是否所有处理器都执行成功
      */
-    public void fetchAndMergeTranslations(List<PZFile> pzFiles) throws IOException {
+    public boolean fetchAndMergeTranslations(List<PZFile> pzFiles) throws IOException {
         //拉取所有汉化文件元信息
         logger.info("拉取到[{}]个文件", pzFiles.size());
         if (pzFiles.isEmpty()) {
-            return;
+            return false;
         }
         //获取最新版本号
-        FileVersion lastFileVersion = pzFiles.stream()
-                .filter(pzFile -> ParatranzFileUtil.isFormatedName(pzFile.getName()))
-                .map(FileVersion::new)
-                .max(Comparator.naturalOrder())
-                .get();
+        FileVersion lastFileVersion = latestFileVersion(pzFiles);
         logger.info("最新版本号为：{}", lastFileVersion.getName());
         //从本地读取global.ini
         logger.info("正在读取global.ini数据，此数据将作为基准数据...");
-        Path sourcePath = Paths.get("global.ini");
+        Path sourcePath = SOURCE_INI_PATH;
         //转换global.ini
-        LinkedHashMap<String, String> globalIniMap = GlobalIniUtil.convertIniToMap(sourcePath);
+        LinkedHashMap<String, String> globalIniMap;
+        try (PhaseTimer ignored = RunMetrics.INSTANCE.start("ini_parse")) {
+            globalIniMap = GlobalIniUtil.convertIniToMap(sourcePath);
+        }
         if (globalIniMap.isEmpty()) {
             logger.error("未从global.ini解析到条目，请检查文件是否正确");
-            return;
+            return false;
         }
         logger.info("读取到{}行数据", globalIniMap.size());
-        //将原始文件上传到存储桶
-        if (GlobalConfig.SW_PUBLISH) {
-            String bucketPath = S3Config.ORGINAL_DIR + "/global.ini";
-            logger.info("正在上传global.ini至存储桶[{}]", bucketPath);
-            s3Api.putObject(bucketPath, sourcePath);
-            logger.info("成功上传global.ini至存储桶[{}]", bucketPath);
-        }
+        StagePipeline pipeline = new StagePipeline("汉化发布", cpuExecutor, ioExecutor);
+        //同步盒子仓库镜像与合并、渲染同时进行，只有提交时才需要镜像
+        Stage<Void> clone = pipeline.task("同步盒子仓库", Stage.Type.IO, MergeAndConvert::cloneScboxLocalization);
+        //将原始文件上传到存储桶，与合并、渲染同时进行
+        Stage<Void> uploadOriginal = pipeline.task("上传原始global.ini", Stage.Type.IO, () -> uploadOriginal(sourcePath));
         //合并pz上的汉化
-        Map<String, PZTranslation> mergedTranslateMap = Collections.unmodifiableMap(mergeTranslateData(globalIniMap, pzFiles));
-        if (mergedTranslateMap.isEmpty()) {
+        Stage<Map<String, PZTranslation>> merge = pipeline.stage("合并翻译", Stage.Type.CPU, () -> mergeAndCheck(globalIniMap, pzFiles));
+        //删除过期临时分支，与渲染同时进行
+        Stage<Boolean> deleteTempBranch = pipeline.stage("删除过期临时分支", Stage.Type.IO,
+                () -> !GlobalConfig.SW_PUBLISH || deleteExpiredTempBranch(), clone);
+        // 使用注册的TranslationProcessor进行处理，各处理器渲染完成后即可发布，不等待其他处理器
+        ProcessorTask[] tasks = new ProcessorTask[translationProcessors.length];
+        List<Stage<?>> pushDependencies = new ArrayList<>();
+        for (int i = 0; i < translationProcessors.length; i++) {
+            ProcessorTask task = new ProcessorTask(translationProcessors[i], merge::get, lastFileVersion);
+            tasks[i] = task;
+            String processorName = translationProcessors[i].getProcessorName();
+            Stage<Void> render = pipeline.task("渲染[" + processorName + "]", Stage.Type.CPU, task::render, merge);
+            pushDependencies.add(pipeline.task("发布[" + processorName + "]", Stage.Type.IO, task::publish, render, clone));
+        }
+        //清理完成后再推送，避免同时向远程推送
+        pushDependencies.add(deleteTempBranch);
+        Stage<Boolean> push = pipeline.stage("推送临时分支", Stage.Type.IO, () -> {
+            //清理失败不影响本次结果
+            if (!deleteTempBranch.get()) {
+                logger.warn("过期临时分支未能全部删除，将在下次运行时重试");
+            }
+            boolean success = Arrays.stream(tasks).allMatch(ProcessorTask::isSuccess);
+            //所有处理器的临时分支一次推送
+            if (GlobalConfig.SW_PUBLISH) {
+                try (PhaseTimer ignored = RunMetrics.INSTANCE.start("push")) {
+                    success &= TempBranchPublisher.INSTANCE.pushAll(scboxUri(), JGitConfig.CREDENTIALS_PROVIDER);
+                }
+            }
+            return success;
+        }, pushDependencies.toArray(Stage[]::new));
+        //生成发布清单，全部成功时最后上传，作为本次发布完成的标记
+        pipeline.task("发布清单", Stage.Type.IO, () -> {
+            try (PhaseTimer ignored = RunMetrics.INSTANCE.start("manifest")) {
+                Path manifestPath = PublishManifestCollector.INSTANCE.write(lastFileVersion, Path.of(GlobalConfig.OUTPUT_DIR));
+                if (GlobalConfig.SW_PUBLISH) {
+                    if (push.get()) {
+                        PublishManifestCollector.INSTANCE.publish(manifestPath, GlobalConfig.SW_PROFILE, s3UploadService);
+                    } else {
+                        logger.warn("本次发布未全部成功，不上传发布清单");
+                    }
+                }
+            }
+        }, push, uploadOriginal);
+        pipeline.await();
+        return push.get();
+    }
+
+    /**
+     * 将原始文件上传到存储桶
+     */
+    private void uploadOriginal(Path sourcePath) {
+        if (!GlobalConfig.SW_PUBLISH) {
             return;
         }
-        //检查合并后的数据中是否缺少数据
+        String bucketPath = S3Config.ORGINAL_DIR + "/global.ini";
+        logger.info("正在上传global.ini至存储桶[{}]", bucketPath);
+        S3UploadService.UploadResult uploadResult;
+        try (PhaseTimer ignored = RunMetrics.INSTANCE.start("upload_original")) {
+            uploadResult = s3UploadService.upload(bucketPath, sourcePath);
+        }
+        logger.info("{}global.ini至存储桶[{}]", uploadResult.skipped() ? "内容未变化，跳过上传" : "成功上传", bucketPath);
+    }
+
+    /**
+     * 合并pz上的汉化，并检查合并后的数据中是否缺少数据
+     */
+    private Map<String, PZTranslation> mergeAndCheck(LinkedHashMap<String, String> globalIniMap, List<PZFile> pzFiles) throws IOException {
+        Map<String, PZTranslation> mergedTranslateMap;
+        try (PhaseTimer ignored = RunMetrics.INSTANCE.start("merge")) {
+            mergedTranslateMap = Collections.unmodifiableMap(mergeTranslateData(globalIniMap, pzFiles, Path.of(ParatranzCache.CACHE_DIR)));
+        }
         Set<String> loseKeys = globalIniMap.keySet().stream()
                 .filter(key -> !mergedTranslateMap.containsKey(key)).collect(Collectors.toSet());
         if (!loseKeys.isEmpty()) {
@@ -154,27 +286,16 @@ public class MergeAndConvert implements AutoCloseable {
                 logger.error("paratranz中缺少key:[{}]", loseKey);
             }
         }
-        //克隆盒子仓库
-        cloneScboxLocalization();
-        // 遍历mergedTranslateMap，使用注册的TranslationProcessor进行处理
-        CompletableFuture[] futures = new CompletableFuture[translationProcessors.length];
-        for (int i = 0; i < translationProcessors.length; i++) {
-            futures[i] = CompletableFuture.runAsync(
-                    new ProcessorTask(translationProcessors[i], mergedTranslateMap, lastFileVersion),
-                    processorExecutor);
-        }
-        try {
-            CompletableFuture.allOf(futures).get();
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException(e);
-        }
+        return mergedTranslateMap;
     }
 
     /**
      * 合并所有汉化文件,按照key的字典序排序(原来的逻辑)
      * 这里会显得用LinkedHashMap没有必要,不过以防万一用上,就用LinkedHashMap了
+     *
+     * @param cacheDir paratranz缓存目录
      */
-    private Map<String, PZTranslation> mergeTranslateData(LinkedHashMap<String, String> globalIniMap, List<PZFile> pzFiles) throws IOException {
+    public static Map<String, PZTranslation> mergeTranslateData(LinkedHashMap<String, String> globalIniMap, List<PZFile> pzFiles, Path cacheDir) throws IOException {
         logger.info("开始拉取并合并paratranz汉化文件");
         Map<String, PZTranslation> mergedTranslateMap = new TreeMap<>();
         Map<String, PZTranslation> pzMap = new HashMap<>(globalIniMap.size());
@@ -184,7 +305,7 @@ public class MergeAndConvert implements AutoCloseable {
                 continue;
             }
             //读取翻译文件缓存
-            Path path = Path.of(ParatranzCache.CACHE_DIR, pzFile.getName());
+            Path path = cacheDir.resolve(pzFile.getName());
             List<PZTranslation> pzTranslations = ParatranzJacksonTools.om.readValue(path.toFile(), ParatranzJacksonTools.LIST_TRANSLATION);
             pzTranslations.stream()
                     .collect(Collectors.toMap(PZTranslation::getKey, Function.identity(),
@@ -245,25 +366,10 @@ public class MergeAndConvert implements AutoCloseable {
                 .count();
     }
 
-    /**
-     * 构建processor用的线程池
-     *
-     * @return
-     */
-    private ThreadPoolExecutor buildProcessorExecutor() {
-        return new ThreadPoolExecutor(
-                translationProcessors.length,
-                translationProcessors.length,
-                0L,
-                TimeUnit.SECONDS,
-                new SynchronousQueue<>(),
-                Executors.defaultThreadFactory(),
-                new ThreadPoolExecutor.CallerRunsPolicy()
-        );
-    }
-
     @Override
     public void close() throws Exception {
-        this.processorExecutor.shutdown();
+        this.cpuExecutor.shutdown();
+        this.ioExecutor.shutdown();
+        this.s3UploadService.close();
     }
 }
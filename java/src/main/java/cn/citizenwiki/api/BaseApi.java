@@ -1,20 +1,55 @@
 package cn.citizenwiki.api;
 
+import cn.citizenwiki.http.CircuitBreaker;
+import cn.citizenwiki.http.CircuitOpenException;
+import cn.citizenwiki.http.ContentEncodingInputStream;
 import cn.citizenwiki.http.HttpException;
 import cn.citizenwiki.http.HttpStatus;
+import cn.citizenwiki.http.HttpValidatorCache;
+import cn.citizenwiki.http.RetryPolicy;
+import cn.citizenwiki.metrics.HttpCallRecorder;
+import cn.citizenwiki.metrics.HttpMetrics;
+import cn.citizenwiki.metrics.RunMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 public abstract class BaseApi {
 
     private static final Logger logger = LoggerFactory.getLogger(BaseApi.class);
 
+    /**
+     * 所有api共用的http客户端，优先使用HTTP/2，同一主机的请求复用连接
+     */
+    private static final HttpClient SHARED_HTTP_CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+
+    /**
+     * 处理响应的线程，丢弃或读取错误响应体、读取校验器缓存都会阻塞，不能占用http客户端的线程
+     */
+    private static final Executor RESPONSE_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(SHARED_HTTP_CLIENT::close));
+    }
+
     private final HttpClient httpClient;
 
     public BaseApi() {
@@ -23,8 +58,13 @@ public abstract class BaseApi {
         Runtime.getRuntime().addShutdownHook(new Thread(this::baseClose));
     }
 
+    /**
+     * 默认使用共享的http客户端，子类一般不需要重写
+     *
+     * @return http客户端
+     */
     protected HttpClient buildHttpClient() {
-        return HttpClient.newHttpClient();
+        return SHARED_HTTP_CLIENT;
     }
 
     protected HttpClient getHttpClient() {
@@ -32,50 +72,228 @@ public abstract class BaseApi {
     }
 
     /**
-     * 发送 HTTP 请求并处理响应，带有重试机制，重试时间为retries*unitTime
+     * 发送 HTTP 请求并处理响应，重试规则见{@link RetryPolicy}
      *
      * @param request  HTTP 请求
-     * @param retries  最大重试次数
-     * @param unitTime 单位重试时间，单位：毫秒
-     * @return 响应体（输入流）
+     * @param retries  最大尝试次数，包含第一次
+     * @param unitTime 退避基准时间，单位：毫秒
+     * @return 响应体（输入流，已按Content-Encoding解压）
      */
     protected InputStream sendRequestWithRetry(HttpRequest request, int retries, int unitTime) throws HttpException {
-        for (int attempt = 1; attempt <= retries; attempt++) { // 改为从 1 开始
-            try {
-                HttpResponse<InputStream> response = this.httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
-                // 检查响应状态码
-                if (HttpStatus.isSuccessful(response.statusCode())) {
-                    return response.body(); // 返回响应体
-                } else if (response.statusCode() >= 500 && attempt < retries) {
-                    handleRetry(attempt, retries, unitTime);
-                } else {
-                    handleHttpException(request, response);
-                }
-            } catch (IOException e) {
-                // 仅在 IOException 时重试
-                if (attempt < retries) {
-                    handleRetry(attempt, retries, unitTime);
-                } else {
-                    throw new RuntimeException(e); // 如果是最后一次尝试，则抛出异常
-                }
-            } catch (HttpException e) {
-                throw e;
-            } catch (Exception e) {
-                throw new RuntimeException(e); // 其他异常不重试，直接抛出
+        return await(sendRequestAsync(request, retries, unitTime));
+    }
+
+    /**
+     * 异步发送 HTTP 请求
+     * 连接异常、5xx、429以及带限流头的403会重试，等待时间优先使用服务端的Retry-After/限流头，
+     * 否则使用带完全抖动的指数退避；等待通过延迟调度实现，不占用线程，调用方可以同时发出多个请求。
+     * 同一主机连续失败时熔断，熔断期间的请求至少等到冷却结束再重试，重试次数用尽时以{@link CircuitOpenException}失败
+     *
+     * @param request  HTTP 请求
+     * @param retries  最大尝试次数，包含第一次
+     * @param unitTime 退避基准时间，单位：毫秒
+     * @return 响应体（输入流，已按Content-Encoding解压），http错误时以{@link HttpException}异常结束
+     */
+    protected CompletableFuture<InputStream> sendRequestAsync(HttpRequest request, int retries, int unitTime) {
+        HttpValidatorCache.Entry cached = lookupValidators(request);
+        HttpRequest actualRequest = HttpValidatorCache.withValidators(withAcceptEncoding(request), cached);
+        //耗时统计与飞行记录，包含所有重试
+        HttpCallRecorder recorder = RunMetrics.INSTANCE.http().start(getClass().getSimpleName(),
+                HttpMetrics.endpoint(request.method(), request.uri().getPath()));
+        recorder.request(request.method(), request.uri().getHost(), request.uri().getPath());
+        return sendAsyncAttempt(actualRequest, cached, RetryPolicy.of(retries, unitTime), 1, recorder)
+                .whenComplete((body, throwable) -> recorder.finish(throwable == null));
+    }
+
+    private CompletableFuture<InputStream> sendAsyncAttempt(HttpRequest request, HttpValidatorCache.Entry cached, RetryPolicy retryPolicy,
+                                                            int attempt, HttpCallRecorder recorder) {
+        String host = request.uri().getHost();
+        CircuitBreaker circuitBreaker = getCircuitBreaker(host);
+        recorder.attempt(attempt);
+        if (!circuitBreaker.tryAcquire()) {
+            //熔断中或半开探测已被占用，等待冷却结束，半开时按退避等待探测结果
+            if (retryPolicy.canRetry(attempt)) {
+                Duration backoff = retryPolicy.backoff(attempt);
+                Duration remaining = circuitBreaker.remainingOpenTime();
+                Duration delay = remaining.compareTo(backoff) > 0 ? remaining : backoff;
+                return retryLater(request, cached, retryPolicy, attempt, delay, "熔断中", recorder);
             }
+            return CompletableFuture.failedFuture(new CircuitOpenException(host));
+        }
+        return this.httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .handleAsync((response, throwable) -> {
+                    if (throwable != null) {
+                        recorder.failure();
+                        circuitBreaker.onFailure();
+                        Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                        // 连接异常按退避重试
+                        if (cause instanceof IOException && retryPolicy.canRetry(attempt)) {
+                            return retryLater(request, cached, retryPolicy, attempt, retryPolicy.backoff(attempt), cause.toString(), recorder);
+                        }
+                        return CompletableFuture.<InputStream>failedFuture(cause);
+                    }
+                    int statusCode = response.statusCode();
+                    recorder.response(statusCode);
+                    if (retryPolicy.isThrottled(statusCode, response.headers())) {
+                        recorder.throttled();
+                    }
+                    if (isResolved(response, cached)) {
+                        circuitBreaker.onSuccess();
+                        try {
+                            return CompletableFuture.completedFuture(resolveBody(request, response, cached, recorder));
+                        } catch (IOException e) {
+                            return CompletableFuture.<InputStream>failedFuture(e);
+                        }
+                    }
+                    //限流说明服务端正常，不计入熔断
+                    if (statusCode >= 500 && !retryPolicy.isThrottled(statusCode, response.headers())) {
+                        circuitBreaker.onFailure();
+                    } else {
+                        circuitBreaker.onSuccess();
+                    }
+                    if (retryPolicy.isRetryable(statusCode, response.headers()) && retryPolicy.canRetry(attempt)) {
+                        Optional<Duration> delay = retryPolicy.delay(attempt, response.headers());
+                        if (delay.isPresent()) {
+                            discardBody(response);
+                            return retryLater(request, cached, retryPolicy, attempt, delay.get(), "http status code:" + statusCode, recorder);
+                        }
+                        logger.error("[{}]服务端要求的等待时间过长，不再重试", request.uri());
+                    }
+                    try {
+                        handleHttpException(request, response);
+                        return CompletableFuture.<InputStream>failedFuture(new IllegalStateException("未处理的http状态码:" + statusCode));
+                    } catch (HttpException | RuntimeException e) {
+                        return CompletableFuture.<InputStream>failedFuture(e);
+                    }
+                }, RESPONSE_EXECUTOR)
+                .thenCompose(Function.identity());
+    }
+
+    /**
+     * 延迟调度下一次尝试，不阻塞线程
+     */
+    private CompletableFuture<InputStream> retryLater(HttpRequest request, HttpValidatorCache.Entry cached, RetryPolicy retryPolicy,
+                                                      int attempt, Duration delay, String reason, HttpCallRecorder recorder) {
+        logger.error("[{}]请求失败({})，{} 毫秒后重试... ({}/{})", request.uri(), reason, delay.toMillis(), attempt, retryPolicy.getMaxAttempts());
+        return CompletableFuture.runAsync(() -> {
+                }, CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS))
+                .thenCompose(v -> sendAsyncAttempt(request, cached, retryPolicy, attempt + 1, recorder));
+    }
+
+    /**
+     * 默认按主机共用熔断器，子类一般不需要重写
+     *
+     * @param host 主机名
+     * @return 熔断器
+     */
+    protected CircuitBreaker getCircuitBreaker(String host) {
+        return CircuitBreaker.forHost(host);
+    }
+
+    /**
+     * 子类返回非null时，GET请求会使用校验器缓存发送条件请求
+     * 响应体已由调用方另行缓存的请求应返回null，避免重复保存
+     *
+     * @param request 请求
+     * @return 校验器缓存
+     */
+    protected HttpValidatorCache getValidatorCache(HttpRequest request) {
+        return null;
+    }
+
+    private HttpValidatorCache.Entry lookupValidators(HttpRequest request) {
+        if (!HttpValidatorCache.isCacheable(request)) {
+            return null;
+        }
+        HttpValidatorCache validatorCache = getValidatorCache(request);
+        return validatorCache == null ? null : validatorCache.lookup(request);
+    }
+
+    /**
+     * 响应是否可以直接返回给调用方：2xx，或者有缓存时的304
+     */
+    private static boolean isResolved(HttpResponse<InputStream> response, HttpValidatorCache.Entry cached) {
+        return HttpStatus.isSuccessful(response.statusCode())
+                || (cached != null && response.statusCode() == HttpStatus.NOT_MODIFIED.getCode());
+    }
+
+    /**
+     * 获取响应体，304时复用缓存，2xx时按需边读边写入缓存
+     */
+    private InputStream resolveBody(HttpRequest request, HttpResponse<InputStream> response, HttpValidatorCache.Entry cached,
+                                    HttpCallRecorder recorder) throws IOException {
+        HttpValidatorCache validatorCache = HttpValidatorCache.isCacheable(request) ? getValidatorCache(request) : null;
+        if (response.statusCode() == HttpStatus.NOT_MODIFIED.getCode()) {
+            discardBody(response);
+            logger.debug("[{}]未修改，使用缓存", request.uri());
+            return validatorCache.readBody(cached);
+        }
+        //按实际读取的字节数统计响应大小（解压前），调用方读完或关闭后才记录
+        InputStream body = ContentEncodingInputStream.decode(response.headers(), recorder.countBody(response.body()));
+        if (validatorCache == null) {
+            return body;
+        }
+        return validatorCache.store(request, response.headers(), body);
+    }
+
+    /**
+     * 等待异步请求结果，将异常还原为同步调用时的形式
+     *
+     * @param future 异步请求
+     * @param <T>    结果类型
+     * @return 结果
+     * @throws HttpException http状态码非成功
+     */
+    protected static <T> T await(CompletableFuture<T> future) throws HttpException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof HttpException httpException) {
+                throw httpException;
+            } else if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * 声明接受压缩响应，json类接口传输量会大幅减少
+     */
+    private static HttpRequest withAcceptEncoding(HttpRequest request) {
+        if (request.headers().firstValue("Accept-Encoding").isPresent()) {
+            return request;
+        }
+        return HttpRequest.newBuilder(request, (name, value) -> true)
+                .header("Accept-Encoding", ContentEncodingInputStream.ACCEPT_ENCODING)
+                .build();
+    }
+
+    /**
+     * 丢弃响应体，以便连接可以被复用
+     */
+    private static void discardBody(HttpResponse<InputStream> response) {
+        try (InputStream is = response.body()) {
+            is.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            logger.debug("丢弃响应体失败", e);
         }
-        throw new RuntimeException("经过 " + retries + " 次尝试后，请求失败");
     }
 
     /**
      * 默认处理http错误的实现，子类可以重写来获取自己想要的信息
+     * 在响应线程中调用，可以阻塞读取响应体
      *
      * @param request
      * @param response
      */
     protected void handleHttpException(HttpRequest request, HttpResponse<InputStream> response) throws HttpException {
         String msg;
-        try (InputStream is = response.body()) {
+        try (InputStream is = ContentEncodingInputStream.decode(response)) {
             msg = String.format("http status code:[%d], body:[%s]", response.statusCode(), new String(is.readAllBytes()));
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -83,29 +301,14 @@ public abstract class BaseApi {
         throw new HttpException(msg, request, response);
     }
 
-    /**
-     * 处理重试逻辑
-     *
-     * @param attempt  当前尝试次数
-     * @param retries  最大重试次数
-     * @param unitTime 单位重试时间，单位：毫秒
-     * @throws Exception 重试超过次数时抛出异常
-     */
-    private void handleRetry(int attempt, int retries, int unitTime) {
-        int waitTime = attempt * unitTime; // 等待时间递增，单位为毫秒
-        logger.error("请求失败，{} 秒后重试... ({}/{})", (waitTime / 1000), attempt, retries);
-        try {
-            Thread.sleep(waitTime); // 等待递增的时间后重试
-        } catch (InterruptedException ex) {
-            throw new RuntimeException(ex);
-        }
-    }
-
     /**
      * 销毁资源
      */
     private void baseClose() {
-        this.httpClient.close();
+        //共享客户端由静态关闭钩子统一关闭
+        if (this.httpClient != SHARED_HTTP_CLIENT) {
+            this.httpClient.close();
+        }
         close();
     }
 
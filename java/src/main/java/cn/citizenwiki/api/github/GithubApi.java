@@ -3,6 +3,7 @@ package cn.citizenwiki.api.github;
 import cn.citizenwiki.api.BaseApi;
 import cn.citizenwiki.http.HttpException;
 import cn.citizenwiki.http.HttpStatus;
+import cn.citizenwiki.http.HttpValidatorCache;
 import cn.citizenwiki.model.dto.github.request.MergeRequest;
 import cn.citizenwiki.model.dto.github.request.PullRequest;
 import cn.citizenwiki.model.dto.github.response.GitHubContents;
@@ -17,11 +18,10 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublishers;
 import java.nio.charset.StandardCharsets;
-import java.time.Duration;
+import java.nio.file.Path;
 import java.util.List;
 
 /**
@@ -34,11 +34,18 @@ public class GithubApi extends BaseApi {
     public static final GithubApi INSTANCE = new GithubApi();
     private static final Logger logger = LoggerFactory.getLogger(GithubApi.class);
     private final GithubConfig config;
+    //contents接口以及文件下载的校验器缓存
+    private final HttpValidatorCache validatorCache = new HttpValidatorCache(Path.of(GithubConfig.CACHE_DIR, "http"));
 
     private GithubApi() {
         this.config = GithubConfig.INSTANCE;
     }
 
+    @Override
+    protected HttpValidatorCache getValidatorCache(HttpRequest request) {
+        return validatorCache;
+    }
+
     private static GithubHttpException handleGithubHttpException(HttpException e) {
         String msg = e.getMessage();
         if (HttpStatus.FORBIDDEN.getCode() == e.getResponse().statusCode()) {
@@ -63,7 +70,7 @@ public class GithubApi extends BaseApi {
      * @see <a href="https://docs.github.com/zh/rest/pulls/pulls?apiVersion=2022-11-28#create-a-pull-request">文档</a>
      */
     public GithubPulls createPullRequest(String title, String sourceOwner, String sourceBranchName, String targetOwner, String targetRepo, String targetBranchName, String body) throws GithubHttpException {
-        String url = String.format("%s/repos/%s/%s/pulls", GithubConfig.BASE_API_URL, targetOwner, targetRepo);
+        String url = String.format("%s/repos/%s/%s/pulls", config.getApiUrl(), targetOwner, targetRepo);
 
         // 使用 Jackson 库构建 JSON 请求体
         PullRequest pullRequest = new PullRequest(title, sourceOwner + ":" + sourceBranchName, targetBranchName, body);
@@ -92,7 +99,7 @@ public class GithubApi extends BaseApi {
      * @return
      */
     public GithubMergePR mergePullRequest(String owner, String repo, Long pullNumber, String title, String message, MergeRequest.MergeMethod mergeMethod) throws GithubHttpException {
-        String url = String.format("%s/repos/%s/%s/pulls/%d/merge", GithubConfig.BASE_API_URL, owner, repo, pullNumber);
+        String url = String.format("%s/repos/%s/%s/pulls/%d/merge", config.getApiUrl(), owner, repo, pullNumber);
 
         // 使用 Jackson 库构建 JSON 请求体
         MergeRequest mergeRequest = new MergeRequest(title, message, mergeMethod);
@@ -119,7 +126,7 @@ public class GithubApi extends BaseApi {
      * @return
      */
     public GitHubContents getContent(String owner, String repo, String branchName, String contentPath) throws GithubHttpException {
-        String url = String.format("%s/repos/%s/%s/contents/%s?ref=%s", GithubConfig.BASE_API_URL, owner, repo, contentPath, branchName);
+        String url = String.format("%s/repos/%s/%s/contents/%s?ref=%s", config.getApiUrl(), owner, repo, contentPath, branchName);
         HttpRequest request = authJsonRequestBuilder()
                 .uri(URI.create(url))
                 .GET()
@@ -136,14 +143,6 @@ public class GithubApi extends BaseApi {
         return sendRequest(request);
     }
 
-    protected HttpClient buildHttpClient() {
-        final HttpClient httpClient;
-        httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(30))
-                .build();
-        return httpClient;
-    }
-
     private HttpRequest.Builder authRequestBuilder() {
         return HttpRequest.newBuilder()
                 .header("Authorization", "Bearer " + config.getToken());
@@ -1,5 +1,9 @@
 package cn.citizenwiki.api.github;
 
+import cn.citizenwiki.config.EnvConfig;
+
+import java.util.Objects;
+
 /**
  * github 推送至盒子的相关配置
  */
@@ -20,8 +24,11 @@ public class GithubConfig {
     public static final String EN_BRANCH_NAME = "en";
     //拼音分支名
     public static final String PINYIN_BRANCH_NAME = "cn_pinyin";
-    //拉取盒子仓库存放的本地目录
-    public static final String ORIGIN_DIR = "scbox_origin";
+    //github相关的本地缓存目录
+    public static final String CACHE_DIR = "cache/github";
+    //盒子仓库的本地镜像（裸仓库），随缓存保留，每次运行增量fetch
+    public static final String ORIGIN_DIR = CACHE_DIR + "/scbox_origin.git";
+    //官方api地址，可通过GITHUB_API_URL覆盖
     public static final String BASE_API_URL = "https://api.github.com";
     //汉化文件夹名称
     public static final String CN_DIR = "chinese_(simplified)";
@@ -36,24 +43,32 @@ public class GithubConfig {
     private final String forkOwner;
     //目标仓库用户名
     private final String targetOwner = "StarCitizenToolBox";
+    //api地址
+    private final String apiUrl;
+    //目标仓库的git地址，克隆与推送临时分支使用
+    private final String targetRemoteUrl;
 
-    private Integer retryNum = 3; //请求重试次数，包含第一次
-    private Integer unitTime = 1000; //重试单位时间，单位毫秒
+    private Integer retryNum = 5; //请求尝试次数，包含第一次
+    private Integer unitTime = 1000; //指数退避的基准时间，单位毫秒
+    private Integer tempBranchRetentionDays = 1; //临时分支保留天数，超过的在之后的运行中删除
 
 
     private GithubConfig() {
-        this.forkOwner = System.getenv("GITHUB_FORK_USERNAME");
+        this.forkOwner = EnvConfig.get("GITHUB_FORK_USERNAME");
         if (forkOwner == null) {
             throw new RuntimeException("未配置GITHUB_FORK_USERNAME");
         }
-        this.forkRepo = System.getenv("GITHUB_FORK_REPO");
+        this.forkRepo = EnvConfig.get("GITHUB_FORK_REPO");
         if (forkRepo == null) {
             throw new RuntimeException("未配置GITHUB_FORK_REPO");
         }
-        this.token = System.getenv("GITHUB_TOKEN");
+        this.token = EnvConfig.get("GITHUB_TOKEN");
         if (token == null) {
             throw new RuntimeException("未配置GITHUB_TOKEN");
         }
+        this.apiUrl = Objects.requireNonNullElse(EnvConfig.get("GITHUB_API_URL"), BASE_API_URL);
+        this.targetRemoteUrl = Objects.requireNonNullElse(EnvConfig.get("SCBOX_REMOTE_URL"),
+                "https://github.com/" + targetOwner + "/" + targetRepo);
     }
 
     public String getForkOwner() {
@@ -72,6 +87,14 @@ public class GithubConfig {
         return targetRepo;
     }
 
+    public String getApiUrl() {
+        return apiUrl;
+    }
+
+    public String getTargetRemoteUrl() {
+        return targetRemoteUrl;
+    }
+
     public String getToken() {
         return token;
     }
@@ -91,4 +114,12 @@ public class GithubConfig {
     public void setUnitTime(Integer unitTime) {
         this.unitTime = unitTime;
     }
+
+    public Integer getTempBranchRetentionDays() {
+        return tempBranchRetentionDays;
+    }
+
+    public void setTempBranchRetentionDays(Integer tempBranchRetentionDays) {
+        this.tempBranchRetentionDays = tempBranchRetentionDays;
+    }
 }
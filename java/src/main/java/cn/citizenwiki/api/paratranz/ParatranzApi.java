@@ -2,17 +2,24 @@ package cn.citizenwiki.api.paratranz;
 
 import cn.citizenwiki.api.BaseApi;
 import cn.citizenwiki.http.HttpException;
+import cn.citizenwiki.http.HttpValidatorCache;
 import cn.citizenwiki.model.dto.paratranz.response.PZFile;
+import cn.citizenwiki.model.dto.paratranz.response.PZPage;
+import cn.citizenwiki.model.dto.paratranz.response.PZString;
 import cn.citizenwiki.model.dto.paratranz.response.PZTranslation;
 import com.fasterxml.jackson.core.type.TypeReference;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.net.http.HttpClient;
+import java.net.URLEncoder;
+import java.io.UncheckedIOException;
 import java.net.http.HttpRequest;
-import java.time.Duration;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Paratranz API封装
@@ -23,20 +30,44 @@ public class ParatranzApi extends BaseApi {
 
     public static final ParatranzApi INSTANCE = new ParatranzApi();
 
+    //文件翻译接口的路径后缀
+    private static final String TRANSLATION_PATH = "/translation";
+    //strings接口单页条数
+    private static final int STRINGS_PAGE_SIZE = 800;
+
+    //为null时使用全局配置，延迟到第一次请求才读取环境变量
+    private final ParatranzConfig config;
+    //接口响应的校验器缓存，随paratranz缓存一起保留
+    private final HttpValidatorCache validatorCache;
+
     private ParatranzApi() {
+        this(null, new HttpValidatorCache(Path.of(ParatranzCache.CACHE_DIR, "http")));
     }
 
     /**
-     * 构建http客户端
-     *
-     * @return
+     * 指定配置，用于对接本地替身服务
      */
-    protected HttpClient buildHttpClient() {
-        final HttpClient httpClient;
-        httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(30))
-                .build();
-        return httpClient;
+    ParatranzApi(ParatranzConfig config, HttpValidatorCache validatorCache) {
+        this.config = config;
+        this.validatorCache = validatorCache;
+    }
+
+    private ParatranzConfig config() {
+        return config != null ? config : ParatranzConfig.getInstance();
+    }
+
+    ParatranzConfig getConfig() {
+        return config();
+    }
+
+    /**
+     * 只有文件列表每次运行的地址相同，可以通过校验器避免重复下载；
+     * 文件翻译只在文件信息变化时才会拉取，内容已保存在paratranz缓存中，
+     * 增量词条的查询参数包含上次同步时间，每次运行地址都不同，两者都不经过校验器缓存
+     */
+    @Override
+    protected HttpValidatorCache getValidatorCache(HttpRequest request) {
+        return request.uri().getPath().equals(URI.create(config().getUrlFiles()).getPath()) ? validatorCache : null;
     }
 
     /**
@@ -45,7 +76,7 @@ public class ParatranzApi extends BaseApi {
      * @return
      */
     private HttpRequest.Builder authRequestBuilder() {
-        return HttpRequest.newBuilder().header("Authorization", ParatranzConfig.INSTANCE.getToken());
+        return HttpRequest.newBuilder().header("Authorization", config().getToken());
     }
 
     /**
@@ -57,19 +88,38 @@ public class ParatranzApi extends BaseApi {
      * @return
      */
     private <T> T sendRequestOfJsonResp(HttpRequest request, TypeReference<T> typeReference) {
-        try (InputStream respInputStream = sendRequestWithRetry(request, ParatranzConfig.INSTANCE.getRetryNum(), ParatranzConfig.INSTANCE.getUnitTime())) {
+        try (InputStream respInputStream = sendRequestWithRetry(request, config().getRetryNum(), config().getUnitTime())) {
             return ParatranzJacksonTools.om.readValue(respInputStream, typeReference);
         } catch (IOException | HttpException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * 通用异步发送请求方法
+     *
+     * @param request       请求
+     * @param typeReference 类型引用
+     * @param <T>
+     * @return
+     */
+    private <T> CompletableFuture<T> sendRequestOfJsonRespAsync(HttpRequest request, TypeReference<T> typeReference) {
+        return sendRequestAsync(request, config().getRetryNum(), config().getUnitTime())
+                .thenApply(respInputStream -> {
+                    try (respInputStream) {
+                        return ParatranzJacksonTools.om.readValue(respInputStream, typeReference);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
     /**
      * /projects/{projectId}/files
      */
     public List<PZFile> projectFiles() {
         HttpRequest request = authRequestBuilder()
-                .uri(URI.create(ParatranzConfig.INSTANCE.getUrlFiles()))
+                .uri(URI.create(config().getUrlFiles()))
                 .GET()
                 .build();
         return sendRequestOfJsonResp(request, ParatranzJacksonTools.LIST_FILE);
@@ -82,7 +132,7 @@ public class ParatranzApi extends BaseApi {
      * @return
      */
     public List<PZTranslation> fileTranslation(Long fileId) {
-        String urlString = ParatranzConfig.INSTANCE.getUrlFiles() + "/" + fileId + "/translation";
+        String urlString = config().getUrlFiles() + "/" + fileId + TRANSLATION_PATH;
         HttpRequest request = authRequestBuilder()
                 .uri(URI.create(urlString))
                 .GET()
@@ -90,5 +140,43 @@ public class ParatranzApi extends BaseApi {
         return sendRequestOfJsonResp(request, ParatranzJacksonTools.LIST_TRANSLATION);
     }
 
+    /**
+     * /projects/{projectId}/strings
+     * 按更新时间倒序分页获取文件中的词条，并携带上次同步的时间点；
+     * 排序与时间过滤参数只是尽力而为，服务端可能忽略，调用方需翻完所有页并依据updatedAt自行过滤
+     *
+     * @param fileId       文件id
+     * @param updatedAfter 只需要此时间之后更新的词条
+     * @param page         页码，从1开始
+     * @return 分页结果
+     */
+    public PZPage<PZString> strings(Long fileId, ZonedDateTime updatedAfter, int page) {
+        String urlString = config().getUrlPrefix() + "/strings?file=" + fileId
+                + "&page=" + page
+                + "&pageSize=" + STRINGS_PAGE_SIZE
+                + "&sort=-updatedAt"
+                + "&updatedAfter=" + URLEncoder.encode(updatedAfter.toOffsetDateTime().toString(), StandardCharsets.UTF_8);
+        HttpRequest request = authRequestBuilder()
+                .uri(URI.create(urlString))
+                .GET()
+                .build();
+        return sendRequestOfJsonResp(request, ParatranzJacksonTools.PAGE_STRING);
+    }
+
+    /**
+     * /projects/{projectId}/files/{fileId}/translation 的异步版本，可同时拉取多个文件
+     *
+     * @param fileId 文件id
+     * @return 文件中的所有词条
+     */
+    public CompletableFuture<List<PZTranslation>> fileTranslationAsync(Long fileId) {
+        String urlString = config().getUrlFiles() + "/" + fileId + TRANSLATION_PATH;
+        HttpRequest request = authRequestBuilder()
+                .uri(URI.create(urlString))
+                .GET()
+                .build();
+        return sendRequestOfJsonRespAsync(request, ParatranzJacksonTools.LIST_TRANSLATION);
+    }
+
 
 }
@@ -1,6 +1,9 @@
 package cn.citizenwiki.api.paratranz;
 
+import cn.citizenwiki.model.converter.PZStringMapper;
 import cn.citizenwiki.model.dto.paratranz.response.PZFile;
+import cn.citizenwiki.model.dto.paratranz.response.PZPage;
+import cn.citizenwiki.model.dto.paratranz.response.PZString;
 import cn.citizenwiki.model.dto.paratranz.response.PZTranslation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,22 +11,41 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Paratranz本地缓存
  */
 public class ParatranzCache {
 
-    public static final ParatranzCache INSTANCE = new ParatranzCache();
     public static final String CACHE_DIR = "cache/paratranz";
+    public static final String METADATA_FILE_NAME = "paratranz_files_metadata.info";
+    public static final ParatranzCache INSTANCE = new ParatranzCache(ParatranzApi.INSTANCE, Path.of(CACHE_DIR));
     private static final Logger logger = LoggerFactory.getLogger(ParatranzCache.class);
+    //增量同步时间点的回退量，避免服务端与本地时钟误差以及同步过程中的修改被遗漏
+    private static final Duration CURSOR_SAFETY_MARGIN = Duration.ofMinutes(5);
     //Paratranz Apibao包装类
-    private static final ParatranzApi paratranzApi = ParatranzApi.INSTANCE;
-    private static final String METADATA_FILE_NAME = "paratranz_files_metadata.info";
+    private final ParatranzApi paratranzApi;
+    //缓存目录
+    private final Path cacheDir;
+
+    ParatranzCache(ParatranzApi paratranzApi, Path cacheDir) {
+        this.paratranzApi = paratranzApi;
+        this.cacheDir = cacheDir;
+    }
 
     /**
      * 比较PZFile是否更新
@@ -53,9 +75,9 @@ public class ParatranzCache {
     }
 
     public List<PZFile> restorePatatranzCache() throws IOException {
-        Files.createDirectories(Path.of(CACHE_DIR));
+        Files.createDirectories(cacheDir);
         //读取缓存中的文件
-        Path metadataFilePath = Path.of(CACHE_DIR, METADATA_FILE_NAME);
+        Path metadataFilePath = cacheDir.resolve(METADATA_FILE_NAME);
         Map<String, PZFile> cachePzMap = new HashMap<>();
         if (Files.exists(metadataFilePath)) {
             logger.info("读取paratranz缓存中");
@@ -71,29 +93,149 @@ public class ParatranzCache {
             logger.warn("未从paratranz中获取到文件数据");
             return null;
         }
+        ParatranzConfig config = paratranzApi.getConfig();
+        //本次同步的时间点，回退一段时间以覆盖时钟误差
+        ZonedDateTime syncCursor = ZonedDateTime.now(ZoneOffset.UTC).minus(CURSOR_SAFETY_MARGIN);
+
+        //未命中缓存的文件以固定窗口并发拉取，按提交顺序依次写入
+        int window = Math.max(1, config.getConcurrentRequests());
+        Deque<Map.Entry<PZFile, CompletableFuture<List<PZTranslation>>>> inFlight = new ArrayDeque<>(window);
+        try {
+            for (PZFile newPzFile : newPzFiles) {
+                PZFile cachePzFile = cachePzMap.get(newPzFile.getName());
+                if (isSame(cachePzFile, newPzFile)) {
+                    //沿用上次的同步时间点
+                    newPzFile.setSyncCursor(cachePzFile.getSyncCursor());
+                    logger.info("【{}】命中缓存，old:【{}】 new：【{}】", newPzFile.getName()
+                            , ParatranzJacksonTools.om.writeValueAsString(cachePzFile)
+                            , ParatranzJacksonTools.om.writeValueAsString(newPzFile)
+                    );
+                } else if (config.isIncrementalSync() && incrementalSync(cachePzFile, newPzFile, config)) {
+                    newPzFile.setSyncCursor(syncCursor);
+                } else {
+                    logger.info("【{}】未命中缓存，从api拉取中...", newPzFile.getName());
+                    if (inFlight.size() >= window) {
+                        writeTranslations(inFlight.poll());
+                    }
+                    newPzFile.setSyncCursor(syncCursor);
+                    inFlight.add(Map.entry(newPzFile, paratranzApi.fileTranslationAsync(newPzFile.getId())));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                writeTranslations(inFlight.poll());
+            }
+        } catch (IOException | RuntimeException e) {
+            awaitRest(inFlight);
+            throw e;
+        }
+        //所有文件同步完成后再将最新信息写入metadata，中途失败时下次运行会重新同步
         String lastMetadata = ParatranzJacksonTools.om.writeValueAsString(newPzFiles);
-        //将最新信息写入metadata
         Files.writeString(metadataFilePath, lastMetadata);
+        return newPzFiles;
+    }
 
-        for (PZFile newPzFile : newPzFiles) {
-            PZFile cachePzFile = cachePzMap.get(newPzFile.getName());
-            if (isSame(cachePzFile, newPzFile)) {
-                logger.info("【{}】命中缓存，old:【{}】 new：【{}】", newPzFile.getName()
-                        , ParatranzJacksonTools.om.writeValueAsString(cachePzFile)
-                        , ParatranzJacksonTools.om.writeValueAsString(newPzFile)
-                );
-            } else {
-                logger.info("【{}】未命中缓存，从api拉取中...", newPzFile.getName());
-                //将新内容写入旧文件
-                List<PZTranslation> pzTranslations = paratranzApi.fileTranslation(newPzFile.getId());
-                Path newPzFilePath = Path.of(CACHE_DIR, newPzFile.getName());
-                if (!Files.isDirectory(newPzFilePath.getParent())) {
-                    Files.createDirectories(newPzFilePath.getParent());
+    /**
+     * 按词条增量同步：只拉取上次同步时间点之后更新的词条，并按id修补本地缓存
+     * 服务端不一定遵守时间过滤与排序参数，因此总是翻完所有页，在本地按updatedAt过滤，不依赖返回顺序提前结束；
+     * 服务端忽略时间过滤时返回的是文件的全部词条，按返回的id去掉已删除的词条；
+     * 服务端按时间过滤时无法得知被删除的词条，修补后的条数与文件总数不一致时放弃增量，由调用方整文件拉取
+     *
+     * @return 是否同步成功
+     */
+    private boolean incrementalSync(PZFile cachePzFile, PZFile newPzFile, ParatranzConfig config) {
+        if (cachePzFile == null || cachePzFile.getSyncCursor() == null || !Objects.equals(cachePzFile.getId(), newPzFile.getId())) {
+            return false;
+        }
+        Path pzFilePath = cacheDir.resolve(newPzFile.getName());
+        if (!Files.exists(pzFilePath)) {
+            return false;
+        }
+        ZonedDateTime cursor = cachePzFile.getSyncCursor();
+        try {
+            List<PZString> changedStrings = new ArrayList<>();
+            //返回的所有词条id，服务端忽略时间过滤时即文件的全部词条
+            Set<Long> listedIds = new HashSet<>();
+            //是否返回了同步时间点之前的词条，即服务端没有按时间过滤
+            boolean unfiltered = false;
+            int page = 1;
+            while (true) {
+                if (page > config.getMaxIncrementalPages()) {
+                    logger.info("【{}】变动词条过多，改为整文件拉取", newPzFile.getName());
+                    return false;
+                }
+                PZPage<PZString> pzPage = paratranzApi.strings(newPzFile.getId(), cursor, page);
+                List<PZString> results = Objects.requireNonNullElse(pzPage.getResults(), List.of());
+                if (!results.isEmpty() && pzPage.getPageCount() == null) {
+                    logger.info("【{}】strings接口未返回总页数，无法确认已取完，改为整文件拉取", newPzFile.getName());
+                    return false;
+                }
+                for (PZString pzString : results) {
+                    listedIds.add(pzString.getId());
+                    if (pzString.getUpdatedAt() == null || pzString.getUpdatedAt().isAfter(cursor)) {
+                        changedStrings.add(pzString);
+                    } else {
+                        unfiltered = true;
+                    }
+                }
+                if (results.isEmpty() || page >= pzPage.getPageCount()) {
+                    break;
                 }
-                Files.writeString(newPzFilePath, ParatranzJacksonTools.om.writeValueAsString(pzTranslations));
+                page++;
             }
+            List<PZTranslation> pzTranslations = ParatranzJacksonTools.om.readValue(pzFilePath.toFile(), ParatranzJacksonTools.LIST_TRANSLATION);
+            Map<Long, PZTranslation> translationMap = new TreeMap<>();
+            for (PZTranslation pzTranslation : pzTranslations) {
+                translationMap.put(pzTranslation.getId(), pzTranslation);
+            }
+            for (PZString changedString : changedStrings) {
+                translationMap.put(changedString.getId(), PZStringMapper.INSTANCE.toTranslation(changedString));
+            }
+            if (unfiltered) {
+                //返回的是全部词条，不在其中的已被删除
+                translationMap.keySet().retainAll(listedIds);
+            }
+            if (!unfiltered && newPzFile.getTotal() == null) {
+                logger.info("【{}】缺少文件总数，无法确认是否有词条被删除，改为整文件拉取", newPzFile.getName());
+                return false;
+            }
+            if (newPzFile.getTotal() != null && newPzFile.getTotal() != translationMap.size()) {
+                logger.info("【{}】增量修补后条数[{}]与文件总数[{}]不一致，改为整文件拉取", newPzFile.getName(), translationMap.size(), newPzFile.getTotal());
+                return false;
+            }
+            Files.writeString(pzFilePath, ParatranzJacksonTools.om.writeValueAsString(new ArrayList<>(translationMap.values())));
+            logger.info("【{}】增量同步完成，更新[{}]条词条", newPzFile.getName(), changedStrings.size());
+            return true;
+        } catch (Exception e) {
+            logger.warn("【{}】增量同步失败，改为整文件拉取", newPzFile.getName(), e);
+            return false;
         }
-        return newPzFiles;
+    }
+
+    /**
+     * 一个文件失败时等待其余正在拉取的文件全部结束并丢弃结果，失败返回后不再有请求在后台占用连接与限流配额
+     * 只取消CompletableFuture无法中止已发出的请求，因此这里等待而不是取消
+     */
+    private static void awaitRest(Deque<Map.Entry<PZFile, CompletableFuture<List<PZTranslation>>>> inFlight) {
+        if (inFlight.isEmpty()) {
+            return;
+        }
+        logger.warn("同步失败，等待其余{}个正在拉取的文件结束", inFlight.size());
+        CompletableFuture<?>[] futures = inFlight.stream().map(Map.Entry::getValue).toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).handle((v, throwable) -> null).join();
+        inFlight.clear();
+    }
+
+    /**
+     * 等待文件拉取完成并将新内容写入缓存文件
+     */
+    private void writeTranslations(Map.Entry<PZFile, CompletableFuture<List<PZTranslation>>> pending) throws IOException {
+        PZFile newPzFile = pending.getKey();
+        List<PZTranslation> pzTranslations = pending.getValue().join();
+        Path newPzFilePath = cacheDir.resolve(newPzFile.getName());
+        if (!Files.isDirectory(newPzFilePath.getParent())) {
+            Files.createDirectories(newPzFilePath.getParent());
+        }
+        Files.writeString(newPzFilePath, ParatranzJacksonTools.om.writeValueAsString(pzTranslations));
     }
 
 
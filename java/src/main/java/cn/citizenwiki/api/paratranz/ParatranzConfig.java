@@ -1,36 +1,68 @@
 package cn.citizenwiki.api.paratranz;
 
+import cn.citizenwiki.config.EnvConfig;
+
+import java.util.Objects;
+
 /**
  * Paratranz配置类
  */
 public class ParatranzConfig {
 
-    static final ParatranzConfig INSTANCE = new ParatranzConfig();
     //项目id环境变量名称
     private static final String ENV_PZ_PROJECT_ID = "PZ_PROJECT_ID";
     //token环境变量名称
     private static final String ENV_PZ_TOKEN = "PZ_TOKEN";
+    //增量同步开关环境变量名称
+    private static final String ENV_PZ_INCREMENTAL_SYNC = "PZ_INCREMENTAL_SYNC";
+    //api地址环境变量名称，不设置时使用官方地址
+    private static final String ENV_PZ_API_URL = "PZ_API_URL";
+    //官方api地址
+    private static final String DEFAULT_API_URL = "https://paratranz.cn/api";
     private final String projectId;
     private final String token;
     //api url公共前缀
     private final String urlPrefix;
     //file api url
     private final String urlFiles;
-    private Integer retryNum = 3; //请求重试次数，包含第一次
-    private Integer unitTime = 5000; //重试单位时间，单位毫秒
+    private Integer retryNum = 5; //请求尝试次数，包含第一次
+    private Integer unitTime = 5000; //指数退避的基准时间，单位毫秒
+    private Integer concurrentRequests = 4; //同时进行中的文件拉取请求数
+    private boolean incrementalSync; //是否按词条增量同步
+    private Integer maxIncrementalPages = 10; //增量同步最多翻页数，超过则退回整文件拉取
 
     private ParatranzConfig() {
-        this.projectId = System.getenv(ENV_PZ_PROJECT_ID);
+        this(EnvConfig.get(ENV_PZ_PROJECT_ID), EnvConfig.get(ENV_PZ_TOKEN),
+                Objects.requireNonNullElse(EnvConfig.get(ENV_PZ_API_URL), DEFAULT_API_URL));
+    }
+
+    /**
+     * @param projectId 项目id
+     * @param token     api token
+     * @param apiBase   api地址，对接本地替身服务时使用
+     */
+    ParatranzConfig(String projectId, String token, String apiBase) {
+        this.projectId = projectId;
         if (projectId == null) {
             throw new RuntimeException("未配置" + ENV_PZ_PROJECT_ID);
         }
-        this.token = System.getenv(ENV_PZ_TOKEN);
+        this.token = token;
         if (token == null) {
             throw new RuntimeException("未配置" + ENV_PZ_TOKEN);
         }
         //生成好所有的url
-        this.urlPrefix = "https://paratranz.cn/api/projects/" + this.projectId;
+        this.urlPrefix = apiBase + "/projects/" + this.projectId;
         this.urlFiles = urlPrefix + "/files";
+        //默认开启，可通过环境变量关闭
+        String swIncremental = EnvConfig.get(ENV_PZ_INCREMENTAL_SYNC);
+        this.incrementalSync = swIncremental == null || swIncremental.isBlank() || Boolean.parseBoolean(swIncremental);
+    }
+
+    /**
+     * 全局配置，第一次使用时才读取环境变量，指定配置创建的实例不受环境变量影响
+     */
+    static ParatranzConfig getInstance() {
+        return Holder.INSTANCE;
     }
 
     public String getProjectId() {
@@ -64,4 +96,32 @@ public class ParatranzConfig {
     public void setUnitTime(Integer unitTime) {
         this.unitTime = unitTime;
     }
+
+    public Integer getConcurrentRequests() {
+        return concurrentRequests;
+    }
+
+    public void setConcurrentRequests(Integer concurrentRequests) {
+        this.concurrentRequests = concurrentRequests;
+    }
+
+    public boolean isIncrementalSync() {
+        return incrementalSync;
+    }
+
+    public void setIncrementalSync(boolean incrementalSync) {
+        this.incrementalSync = incrementalSync;
+    }
+
+    public Integer getMaxIncrementalPages() {
+        return maxIncrementalPages;
+    }
+
+    public void setMaxIncrementalPages(Integer maxIncrementalPages) {
+        this.maxIncrementalPages = maxIncrementalPages;
+    }
+
+    private static class Holder {
+        private static final ParatranzConfig INSTANCE = new ParatranzConfig();
+    }
 }
@@ -1,6 +1,8 @@
 package cn.citizenwiki.api.paratranz;
 
 import cn.citizenwiki.model.dto.paratranz.response.PZFile;
+import cn.citizenwiki.model.dto.paratranz.response.PZPage;
+import cn.citizenwiki.model.dto.paratranz.response.PZString;
 import cn.citizenwiki.model.dto.paratranz.response.PZTranslation;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -19,6 +21,8 @@ public class ParatranzJacksonTools {
     };
     public static final TypeReference<List<PZTranslation>> LIST_TRANSLATION = new TypeReference<>() {
     };
+    public static final TypeReference<PZPage<PZString>> PAGE_STRING = new TypeReference<>() {
+    };
 
     static {
         ObjectMapper objectMapper = new ObjectMapper();
@@ -1,45 +1,230 @@
 package cn.citizenwiki.api.s3;
 
+import cn.citizenwiki.metrics.HttpMetrics;
+import cn.citizenwiki.metrics.RunMetrics;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 
 import java.net.URI;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public class S3Api {
 
-    public static final S3Api INSTANCE = new S3Api();
-
     private final S3Config config;
     private final S3Client s3Client;
 
     private S3Api() {
-        config = S3Config.INSTANCE;
+        this(S3Config.getInstance());
+    }
+
+    /**
+     * @param config 存储桶配置，对接本地替身服务时使用
+     */
+    S3Api(S3Config config) {
+        this(config, RunMetrics.INSTANCE.http());
+    }
+
+    /**
+     * @param config  存储桶配置
+     * @param metrics 调用统计
+     */
+    S3Api(S3Config config, HttpMetrics metrics) {
+        this.config = config;
         // 创建 S3 客户端并配置 R2 Endpoint
         s3Client = S3Client.builder()
                 .endpointOverride(URI.create(this.config.getEndPoint()))
                 .region(Region.AWS_GLOBAL)
+                .forcePathStyle(this.config.isPathStyleAccess())
                 .credentialsProvider(StaticCredentialsProvider.create(
                         AwsBasicCredentials.create(this.config.getAccessKey(), this.config.getSecretKey())))
                 .httpClientBuilder(UrlConnectionHttpClient.builder())
+                .overrideConfiguration(configuration -> configuration.addExecutionInterceptor(new S3CallInterceptor(metrics)))
                 .build();
     }
 
+    /**
+     * 全局实例，第一次使用时才读取环境变量
+     */
+    public static S3Api getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public S3Config getConfig() {
+        return config;
+    }
+
     public PutObjectResponse putObject(String r2path, Path path) {
+        return putObject(r2path, path, Map.of());
+    }
+
+    /**
+     * 上传文件并附带自定义元数据（x-amz-meta-*）
+     *
+     * @param r2path   对象路径
+     * @param path     本地文件
+     * @param metadata 自定义元数据
+     * @return 上传结果
+     */
+    public PutObjectResponse putObject(String r2path, Path path, Map<String, String> metadata) {
+        return putObject(r2path, path, metadata, S3ObjectOptions.NONE);
+    }
+
+    /**
+     * 上传文件并附带自定义元数据（x-amz-meta-*）与http头
+     *
+     * @param r2path   对象路径
+     * @param path     本地文件
+     * @param metadata 自定义元数据
+     * @param options  Content-Type、Content-Encoding等http头
+     * @return 上传结果
+     */
+    public PutObjectResponse putObject(String r2path, Path path, Map<String, String> metadata, S3ObjectOptions options) {
         // 构造 PutObjectRequest
         PutObjectRequest putObjectRequest = PutObjectRequest.builder()
                 .bucket(this.config.getBucketName())
                 .key(r2path)
+                .metadata(metadata)
+                .contentType(options.contentType())
+                .contentEncoding(options.contentEncoding())
                 .build();
 
         // 上传文件
         return this.s3Client.putObject(putObjectRequest, RequestBody.fromFile(path));
     }
 
+    /**
+     * 查询对象元数据
+     *
+     * @param r2path 对象路径
+     * @return 对象不存在时返回空
+     */
+    public Optional<HeadObjectResponse> headObject(String r2path) {
+        HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+                .bucket(this.config.getBucketName())
+                .key(r2path)
+                .build();
+        try {
+            return Optional.of(this.s3Client.headObject(headObjectRequest));
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 下载对象
+     *
+     * @param r2path 对象路径
+     * @return 对象内容，对象不存在时返回空
+     */
+    public Optional<byte[]> getObject(String r2path) {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(this.config.getBucketName())
+                .key(r2path)
+                .build();
+        try {
+            return Optional.of(this.s3Client.getObjectAsBytes(getObjectRequest).asByteArray());
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 创建分片上传
+     *
+     * @param r2path   对象路径
+     * @param metadata 自定义元数据
+     * @param options  Content-Type、Content-Encoding等http头
+     * @return uploadId
+     */
+    public String createMultipartUpload(String r2path, Map<String, String> metadata, S3ObjectOptions options) {
+        CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
+                .bucket(this.config.getBucketName())
+                .key(r2path)
+                .metadata(metadata)
+                .contentType(options.contentType())
+                .contentEncoding(options.contentEncoding())
+                .build();
+        return this.s3Client.createMultipartUpload(request).uploadId();
+    }
+
+    /**
+     * 上传单个分片
+     *
+     * @param r2path     对象路径
+     * @param uploadId   分片上传id
+     * @param partNumber 分片序号，从1开始
+     * @param content    分片内容
+     * @return 已上传的分片，用于完成分片上传
+     */
+    public CompletedPart uploadPart(String r2path, String uploadId, int partNumber, byte[] content) {
+        UploadPartRequest request = UploadPartRequest.builder()
+                .bucket(this.config.getBucketName())
+                .key(r2path)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .build();
+        String eTag = this.s3Client.uploadPart(request, RequestBody.fromBytes(content)).eTag();
+        return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+    }
+
+    /**
+     * 完成分片上传
+     *
+     * @param r2path   对象路径
+     * @param uploadId 分片上传id
+     * @param parts    按序号排列的全部分片
+     */
+    public void completeMultipartUpload(String r2path, String uploadId, List<CompletedPart> parts) {
+        CompleteMultipartUploadRequest request = CompleteMultipartUploadRequest.builder()
+                .bucket(this.config.getBucketName())
+                .key(r2path)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                .build();
+        this.s3Client.completeMultipartUpload(request);
+    }
+
+    /**
+     * 放弃分片上传，清理已上传的分片
+     *
+     * @param r2path   对象路径
+     * @param uploadId 分片上传id
+     */
+    public void abortMultipartUpload(String r2path, String uploadId) {
+        AbortMultipartUploadRequest request = AbortMultipartUploadRequest.builder()
+                .bucket(this.config.getBucketName())
+                .key(r2path)
+                .uploadId(uploadId)
+                .build();
+        this.s3Client.abortMultipartUpload(request);
+    }
+
+    private static class Holder {
+        private static final S3Api INSTANCE = new S3Api();
+    }
 }
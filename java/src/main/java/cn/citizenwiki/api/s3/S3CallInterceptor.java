@@ -0,0 +1,104 @@
+package cn.citizenwiki.api.s3;
+
+import cn.citizenwiki.http.HttpStatus;
+import cn.citizenwiki.metrics.HttpCallRecorder;
+import cn.citizenwiki.metrics.HttpMetrics;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * S3客户端拦截器，记录每次调用（包含sdk内部的重试）
+ * 存储桶请求不经过{@link cn.citizenwiki.api.BaseApi}，在这里补上与其一致的耗时统计与飞行记录，接口名为S3操作名
+ */
+class S3CallInterceptor implements ExecutionInterceptor {
+
+    private static final ExecutionAttribute<HttpCallRecorder> RECORDER = new ExecutionAttribute<>("cn.citizenwiki.HttpCallRecorder");
+    //已发送的次数，第一次之后的都是重试
+    private static final ExecutionAttribute<Integer> ATTEMPTS = new ExecutionAttribute<>("cn.citizenwiki.HttpCallAttempts");
+    //S3与R2限流时的错误码
+    private static final String SLOW_DOWN = "<Code>SlowDown</Code>";
+
+    private final HttpMetrics metrics;
+
+    S3CallInterceptor(HttpMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        String operation = executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+        executionAttributes.putAttribute(RECORDER, metrics.start(S3Api.class.getSimpleName(), operation));
+        executionAttributes.putAttribute(ATTEMPTS, 0);
+    }
+
+    @Override
+    public void beforeTransmission(Context.BeforeTransmission context, ExecutionAttributes executionAttributes) {
+        int attempts = executionAttributes.getAttribute(ATTEMPTS) + 1;
+        executionAttributes.putAttribute(ATTEMPTS, attempts);
+        HttpCallRecorder recorder = executionAttributes.getAttribute(RECORDER);
+        recorder.request(context.httpRequest().method().name(), context.httpRequest().host(), context.httpRequest().encodedPath());
+        recorder.attempt(attempts);
+    }
+
+    @Override
+    public void afterTransmission(Context.AfterTransmission context, ExecutionAttributes executionAttributes) {
+        int status = context.httpResponse().statusCode();
+        HttpCallRecorder recorder = executionAttributes.getAttribute(RECORDER);
+        recorder.response(status);
+        if (status == HttpStatus.TOO_MANY_REQUESTS.getCode()) {
+            recorder.throttled();
+        }
+    }
+
+    @Override
+    public Optional<InputStream> modifyHttpResponseContent(Context.ModifyHttpResponse context, ExecutionAttributes executionAttributes) {
+        Optional<InputStream> content = context.responseBody();
+        if (content.isEmpty()) {
+            return content;
+        }
+        //按实际读取的字节数统计响应大小，sdk读完或关闭后记录
+        HttpCallRecorder recorder = executionAttributes.getAttribute(RECORDER);
+        InputStream body = recorder.countBody(content.get());
+        if (context.httpResponse().statusCode() != HttpStatus.SERVICE_UNAVAILABLE.getCode()) {
+            return Optional.of(body);
+        }
+        //503也可能是服务端故障，只有错误码为SlowDown时才是限流；错误响应体很小，读出后再交给sdk解析
+        try (body) {
+            byte[] bytes = body.readAllBytes();
+            if (new String(bytes, StandardCharsets.UTF_8).contains(SLOW_DOWN)) {
+                recorder.throttled();
+            }
+            return Optional.of(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        executionAttributes.getAttribute(RECORDER).finish(true);
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        HttpCallRecorder recorder = executionAttributes.getAttribute(RECORDER);
+        if (recorder == null) {
+            return;
+        }
+        //连接失败时没有响应，有响应的已在afterTransmission中记录
+        if (context.httpResponse().isEmpty()) {
+            recorder.failure();
+        }
+        recorder.finish(false);
+    }
+}
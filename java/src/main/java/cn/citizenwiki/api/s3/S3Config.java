@@ -1,12 +1,13 @@
 package cn.citizenwiki.api.s3;
 
+import cn.citizenwiki.config.EnvConfig;
+
 /**
  * github 推送至盒子的相关配置
  */
 public class S3Config {
 
 
-    public static final S3Config INSTANCE = new S3Config();
     public static final String BOTH_DIR = "both";
     public static final String FULL_DIR = "full";
     public static final String HALF_DIR = "half";
@@ -19,26 +20,49 @@ public class S3Config {
     private final String secretKey;
     private final String bucketName;
     private final String endPoint;
+    private boolean pathStyleAccess = false; //是否使用路径风格访问存储桶，对接本地替身服务时使用
+    private Integer concurrentUploads = 4; //同时进行中的上传请求数（含分片）
+    private Long multipartThreshold = 16L * 1024 * 1024; //超过此大小的文件使用分片上传，单位字节
+    private Long partSize = 8L * 1024 * 1024; //分片大小，单位字节，S3要求除最后一片外不小于5MB
 
     private S3Config() {
-        this.accessKey = System.getenv("S3_ACCESS_KEY");
+        this(EnvConfig.get("S3_ACCESS_KEY"), EnvConfig.get("S3_SECRET_KEY"),
+                EnvConfig.get("S3_BUCKET"), EnvConfig.get("S3_ENDPOINT"));
+        this.pathStyleAccess = Boolean.parseBoolean(EnvConfig.get("S3_PATH_STYLE"));
+    }
+
+    /**
+     * @param accessKey  access key
+     * @param secretKey  secret key
+     * @param bucketName 存储桶
+     * @param endPoint   服务地址
+     */
+    S3Config(String accessKey, String secretKey, String bucketName, String endPoint) {
+        this.accessKey = accessKey;
         if (accessKey == null) {
             throw new RuntimeException("未配置S3_ACCESS_KEY");
         }
-        this.secretKey = System.getenv("S3_SECRET_KEY");
+        this.secretKey = secretKey;
         if (secretKey == null) {
             throw new RuntimeException("未配置S3_SECRET_KEY");
         }
-        this.bucketName = System.getenv("S3_BUCKET");
+        this.bucketName = bucketName;
         if (bucketName == null) {
             throw new RuntimeException("未配置S3_BUCKET");
         }
-        this.endPoint = System.getenv("S3_ENDPOINT");
+        this.endPoint = endPoint;
         if (endPoint == null) {
             throw new RuntimeException("未配置S3_ENDPOINT");
         }
     }
 
+    /**
+     * 全局配置，第一次使用时才读取环境变量，指定配置创建的实例不受环境变量影响
+     */
+    static S3Config getInstance() {
+        return Holder.INSTANCE;
+    }
+
     public String getAccessKey() {
         return accessKey;
     }
@@ -54,4 +78,40 @@ public class S3Config {
     public String getEndPoint() {
         return endPoint;
     }
+
+    public boolean isPathStyleAccess() {
+        return pathStyleAccess;
+    }
+
+    public void setPathStyleAccess(boolean pathStyleAccess) {
+        this.pathStyleAccess = pathStyleAccess;
+    }
+
+    public Integer getConcurrentUploads() {
+        return concurrentUploads;
+    }
+
+    public void setConcurrentUploads(Integer concurrentUploads) {
+        this.concurrentUploads = concurrentUploads;
+    }
+
+    public Long getMultipartThreshold() {
+        return multipartThreshold;
+    }
+
+    public void setMultipartThreshold(Long multipartThreshold) {
+        this.multipartThreshold = multipartThreshold;
+    }
+
+    public Long getPartSize() {
+        return partSize;
+    }
+
+    public void setPartSize(Long partSize) {
+        this.partSize = partSize;
+    }
+
+    private static class Holder {
+        private static final S3Config INSTANCE = new S3Config();
+    }
 }
@@ -0,0 +1,20 @@
+package cn.citizenwiki.api.s3;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * 存储桶中json文件（清单等）以及运行报告等输出文件的解析器常量
+ */
+public class S3JacksonTools {
+
+    public static final ObjectMapper om;
+
+    static {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+
+        om = objectMapper;
+    }
+
+}
@@ -0,0 +1,25 @@
+package cn.citizenwiki.api.s3;
+
+/**
+ * 上传对象时附带的http头
+ *
+ * @param contentType     Content-Type，为null时由sdk决定
+ * @param contentEncoding Content-Encoding，为null时不设置
+ */
+public record S3ObjectOptions(String contentType, String contentEncoding) {
+
+    //不附带额外的http头
+    public static final S3ObjectOptions NONE = new S3ObjectOptions(null, null);
+    public static final String CONTENT_TYPE_TEXT = "text/plain; charset=utf-8";
+    public static final String CONTENT_TYPE_JSON = "application/json; charset=utf-8";
+    public static final String ENCODING_GZIP = "gzip";
+
+    /**
+     * gzip压缩后的对象，客户端与cdn按Content-Encoding解压
+     *
+     * @param contentType 原始内容的Content-Type
+     */
+    public static S3ObjectOptions gzip(String contentType) {
+        return new S3ObjectOptions(contentType, ENCODING_GZIP);
+    }
+}
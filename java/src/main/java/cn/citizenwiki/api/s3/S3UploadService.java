@@ -0,0 +1,261 @@
+package cn.citizenwiki.api.s3;
+
+import cn.citizenwiki.utils.DigestUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * 存储桶上传服务
+ * 上传前计算文件SHA-256，通过HEAD请求与对象元数据中的sha256比较，内容一致时跳过上传；
+ * 其余文件并发上传，大文件使用分片上传，同时进行中的请求数受配置限制；用完后需要关闭以释放上传线程池
+ */
+public class S3UploadService implements AutoCloseable {
+
+    //保存文件SHA-256的自定义元数据名，实际请求头为x-amz-meta-sha256
+    public static final String SHA256_METADATA = "sha256";
+
+    private static final Logger logger = LoggerFactory.getLogger(S3UploadService.class);
+
+    private final S3Api s3Api;
+    //限制同时进行中的请求数
+    private final Semaphore permits;
+    //上传是阻塞的网络io，每个请求一个虚拟线程，并发度由permits控制
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public S3UploadService(S3Api s3Api) {
+        this.s3Api = s3Api;
+        this.permits = new Semaphore(s3Api.getConfig().getConcurrentUploads());
+    }
+
+    /**
+     * 全局实例，第一次使用时才读取环境变量
+     */
+    public static S3UploadService getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * 上传单个文件，内容未变化时跳过
+     *
+     * @param r2path 对象路径
+     * @param path   本地文件
+     * @return 上传结果
+     */
+    public UploadResult upload(String r2path, Path path) {
+        return upload(new UploadRequest(r2path, path, S3ObjectOptions.NONE));
+    }
+
+    /**
+     * 上传单个文件，内容未变化时跳过
+     *
+     * @param request 上传请求
+     * @return 上传结果
+     */
+    public UploadResult upload(UploadRequest request) {
+        return join(uploadAsync(request));
+    }
+
+    /**
+     * 并发上传多个文件，等待全部完成
+     *
+     * @param files 对象路径 -> 本地文件
+     * @return 各文件的上传结果，任意文件失败时抛出异常
+     */
+    public List<UploadResult> uploadAll(Map<String, Path> files) {
+        List<UploadRequest> requests = new ArrayList<>(files.size());
+        files.forEach((r2path, path) -> requests.add(new UploadRequest(r2path, path, S3ObjectOptions.NONE)));
+        return uploadAll(requests);
+    }
+
+    /**
+     * 并发上传多个文件，等待全部完成
+     *
+     * @param requests 上传请求
+     * @return 各文件的上传结果，与请求顺序一致，任意文件失败时抛出异常
+     */
+    public List<UploadResult> uploadAll(List<UploadRequest> requests) {
+        return joinAll(requests.stream().map(this::uploadAsync).toList());
+    }
+
+    /**
+     * 异步上传单个文件，内容未变化时跳过
+     *
+     * @param r2path 对象路径
+     * @param path   本地文件
+     * @return 上传结果
+     */
+    public CompletableFuture<UploadResult> uploadAsync(String r2path, Path path) {
+        return uploadAsync(new UploadRequest(r2path, path, S3ObjectOptions.NONE));
+    }
+
+    /**
+     * 异步上传单个文件，内容未变化时跳过
+     *
+     * @param request 上传请求
+     * @return 上传结果
+     */
+    public CompletableFuture<UploadResult> uploadAsync(UploadRequest request) {
+        return CompletableFuture.supplyAsync(() -> doUpload(request.r2path(), request.path(), request.options()), executor);
+    }
+
+    private UploadResult doUpload(String r2path, Path path, S3ObjectOptions options) {
+        long size;
+        String sha256;
+        try {
+            size = Files.size(path);
+            sha256 = DigestUtil.sha256Hex(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取待上传文件[" + path + "]失败", e);
+        }
+        Optional<HeadObjectResponse> remote = withPermit(() -> s3Api.headObject(r2path));
+        if (remote.isPresent() && sha256.equals(remote.get().metadata().get(SHA256_METADATA))) {
+            logger.info("存储桶[{}]内容未变化，跳过上传", r2path);
+            return new UploadResult(r2path, size, sha256, true);
+        }
+        Map<String, String> metadata = Map.of(SHA256_METADATA, sha256);
+        if (size > s3Api.getConfig().getMultipartThreshold()) {
+            multipartUpload(r2path, path, size, metadata, options);
+        } else {
+            withPermit(() -> s3Api.putObject(r2path, path, metadata, options));
+        }
+        logger.info("上传[{}]至存储桶[{}]成功，大小{}字节", path, r2path, size);
+        return new UploadResult(r2path, size, sha256, false);
+    }
+
+    /**
+     * 分片并发上传，任意分片失败时放弃整个上传
+     */
+    private void multipartUpload(String r2path, Path path, long size, Map<String, String> metadata, S3ObjectOptions options) {
+        long partSize = s3Api.getConfig().getPartSize();
+        String uploadId = withPermit(() -> s3Api.createMultipartUpload(r2path, metadata, options));
+        try {
+            List<CompletableFuture<CompletedPart>> futures = new ArrayList<>();
+            int partNumber = 1;
+            for (long offset = 0; offset < size; offset += partSize, partNumber++) {
+                long position = offset;
+                int length = (int) Math.min(partSize, size - offset);
+                int number = partNumber;
+                //获取许可后再读取分片，避免大量分片同时驻留内存
+                futures.add(CompletableFuture.supplyAsync(() -> withPermit(() ->
+                        s3Api.uploadPart(r2path, uploadId, number, readPart(path, position, length))), executor));
+            }
+            logger.info("开始分片上传[{}]至存储桶[{}]，共{}片", path, r2path, futures.size());
+            List<CompletedPart> parts = joinAll(futures);
+            withPermit(() -> {
+                s3Api.completeMultipartUpload(r2path, uploadId, parts);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            try {
+                s3Api.abortMultipartUpload(r2path, uploadId);
+            } catch (RuntimeException abortException) {
+                e.addSuppressed(abortException);
+            }
+            throw e;
+        }
+    }
+
+    private static byte[] readPart(Path path, long position, int length) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("文件[" + path + "]在上传过程中被截断");
+                }
+            }
+            return buffer.array();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> T withPermit(Supplier<T> request) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待上传许可时被中断", e);
+        }
+        try {
+            return request.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 等待全部完成后再检查结果，避免失败时仍有请求在后台进行
+     */
+    private static <T> List<T> joinAll(List<CompletableFuture<T>> futures) {
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException ignored) {
+            //在下面逐个取结果时抛出第一个失败
+        }
+        return futures.stream().map(S3UploadService::join).toList();
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 关闭上传线程池，不再接受新的上传，已提交的上传继续完成
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private static class Holder {
+        private static final S3UploadService INSTANCE = new S3UploadService(S3Api.getInstance());
+    }
+
+    /**
+     * 上传请求
+     *
+     * @param r2path  对象路径
+     * @param path    本地文件
+     * @param options Content-Type、Content-Encoding等http头
+     */
+    public record UploadRequest(String r2path, Path path, S3ObjectOptions options) {
+    }
+
+    /**
+     * 上传结果
+     *
+     * @param r2path  对象路径
+     * @param size    文件大小
+     * @param sha256  文件SHA-256
+     * @param skipped 是否因内容未变化而跳过
+     */
+    public record UploadResult(String r2path, long size, String sha256, boolean skipped) {
+    }
+}
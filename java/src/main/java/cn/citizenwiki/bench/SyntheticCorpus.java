@@ -0,0 +1,475 @@
+package cn.citizenwiki.bench;
+
+import cn.citizenwiki.api.paratranz.ParatranzCache;
+import cn.citizenwiki.api.paratranz.ParatranzJacksonTools;
+import cn.citizenwiki.model.dto.paratranz.response.PZFile;
+import cn.citizenwiki.model.dto.paratranz.response.PZTranslation;
+import cn.citizenwiki.utils.XxHash64;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.LongFunction;
+
+/**
+ * 合成语料生成器
+ * 按条目数生成global.ini与对应的paratranz缓存（元数据与多个版本的汉化文件），用于测试解析、合并、匹配与渲染随数据量增长的表现。
+ * 条目的key按真实数据的命名空间分布（item_Name、item_Desc、mission_location、带~mission(...)的任务文本、地点、载具、界面文本等），
+ * 旧版本文件中有与最新版本相同的key，id有大有小，合并时需要按id取舍；
+ * 生成结果只由条目数与种子决定，相同参数下逐字节一致，每个条目按序号独立生成，内存占用与规模无关
+ */
+public class SyntheticCorpus {
+
+    //1倍规模的条目数，与live版本global.ini的条目数相当
+    public static final int BASE_ENTRIES = 80_000;
+    public static final int MAX_SCALE = 50;
+    public static final long DEFAULT_SEED = 20241019L;
+    public static final String INI_FILE_NAME = "global.ini";
+    //最新版本，合并时以此为准
+    public static final String LATEST_FILE_NAME = "4.1.0 LIVE 9750000.json";
+    //同版本的PTU文件，与最新版本部分重叠
+    public static final String PTU_FILE_NAME = "4.1.0 PTU 9700000.json";
+    //上一个版本，与最新版本部分重叠，并包含已从global.ini删除的key
+    public static final String PREVIOUS_FILE_NAME = "4.0.2 LIVE 9600000.json";
+    //汉化规则目录下的文件，合并时跳过
+    public static final String RULE_FOLDER = "汉化规则";
+    public static final String RULE_FILE_NAME = RULE_FOLDER + "/术语.json";
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticCorpus.class);
+    //最新版本中缺少的比例，缺少的条目合并时使用英文原文
+    private static final double LATEST_MISSING_RATE = 0.005;
+    private static final double PTU_OVERLAP_RATE = 0.3;
+    //PTU中比最新版本更晚修改（id更大）的比例
+    private static final double PTU_NEWER_RATE = 0.05;
+    private static final double PREVIOUS_OVERLAP_RATE = 0.2;
+    //已从global.ini删除、只存在于上一个版本中的条目比例
+    private static final double REMOVED_RATE = 0.02;
+    //未翻译（译文为空）的比例
+    private static final double UNTRANSLATED_RATE = 0.04;
+    private static final int RULE_ENTRIES = 200;
+    //各文件的id区间，保证同一key在不同文件中的id大小关系固定
+    private static final long PREVIOUS_ID_BASE = 100_000_000L;
+    private static final long PTU_ID_BASE = 200_000_000L;
+    private static final long LATEST_ID_BASE = 300_000_000L;
+    private static final long PTU_NEWER_ID_BASE = 400_000_000L;
+    private static final long RULE_ID_BASE = 500_000_000L;
+    private static final ZonedDateTime BASE_TIME = ZonedDateTime.of(2024, 10, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    //流式写入时每个条目不单独flush
+    private static final ObjectWriter TRANSLATION_WRITER = ParatranzJacksonTools.om.writerFor(PZTranslation.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private static final String[] MANUFACTURERS = {"AEGS", "ANVL", "RSI", "DRAK", "MISC", "ORIG", "CRUS", "ARGO", "KRIG", "BEHR", "KLWE", "GATS"};
+    private static final String[] ITEM_TYPES = {"Helmet", "Core", "Arms", "Legs", "Backpack", "Rifle", "Pistol", "Shield", "Cooler", "PowerPlant", "QuantumDrive", "Missile"};
+    private static final String[] ADJECTIVES = {"Heavy", "Light", "Medium", "Tactical", "Advanced", "Industrial", "Stealth", "Executive", "Combat", "Explorer"};
+    private static final String[] SYSTEMS = {"Stanton", "Pyro", "Nyx", "Terra"};
+    private static final String[] PLACES = {"Outpost", "Station", "Depot", "Refinery", "Hangar", "Settlement", "Wreck", "Cave", "Spaceport", "Relay"};
+    private static final String[] PLACE_NAMES = {"Shubin", "Rayari", "Deakins", "Bountiful", "Ruin", "Checkmate", "Gaslight", "Starlight", "Patch", "Endgame", "Orbituary", "Rod"};
+    private static final String[] CONTRACTORS = {"BountyHunter", "Covalex", "Hurston", "Crusader", "Headhunters", "RedWind", "Vaughn", "Citizens4Prosperity", "FoxwellEnforcement", "XenoThreat"};
+    private static final String[] MISSION_KINDS = {"Delivery", "Salvage", "Assassination", "Recovery", "Patrol", "Escort", "Mining", "Investigation"};
+    private static final String[] UI_AREAS = {"pregame", "mobiGlas", "inventory", "hud", "pit", "menu", "vehicle", "contract", "map", "commodity"};
+    private static final String[] CHARACTERS = {"Ruto", "Eckhart", "Tecia", "Clovus", "Constantine", "Miles", "Wallace", "Recco"};
+    private static final String[] EN_WORDS = {"the", "cargo", "ship", "quantum", "shield", "armor", "contract", "reward", "pilot", "hangar",
+            "station", "security", "crew", "mining", "salvage", "outlaw", "target", "beacon", "signal", "fuel", "power", "system", "jump", "point"};
+    private static final String[] ZH_WORDS = {"货物", "飞船", "量子", "护盾", "护甲", "合同", "奖励", "驾驶员", "机库", "空间站",
+            "安保", "船员", "采矿", "打捞", "法外之徒", "目标", "信标", "信号", "燃料", "能源", "系统", "跳跃", "点", "前哨站"};
+    private static final String[] ZH_PLACES = {"前哨站", "空间站", "仓库", "精炼厂", "机库", "定居点", "残骸", "洞穴", "太空港", "中继站"};
+    private static final String[] ZH_TYPES = {"头盔", "护甲", "臂甲", "腿甲", "背包", "步枪", "手枪", "护盾", "冷却器", "发电机", "量子引擎", "导弹"};
+    //各命名空间的权重
+    private static final Namespace[] NAMESPACES;
+
+    static {
+        List<Namespace> namespaces = new ArrayList<>();
+        addNamespace(namespaces, Namespace.ITEM_NAME, 16);
+        addNamespace(namespaces, Namespace.ITEM_DESC, 16);
+        addNamespace(namespaces, Namespace.MISSION_LOCATION, 6);
+        addNamespace(namespaces, Namespace.MISSION_TITLE, 6);
+        addNamespace(namespaces, Namespace.MISSION_DESC, 12);
+        addNamespace(namespaces, Namespace.LOCATION, 8);
+        addNamespace(namespaces, Namespace.VEHICLE_NAME, 4);
+        addNamespace(namespaces, Namespace.PREGAME_PORT, 2);
+        addNamespace(namespaces, Namespace.UI, 22);
+        addNamespace(namespaces, Namespace.DIALOGUE, 8);
+        NAMESPACES = namespaces.toArray(Namespace[]::new);
+    }
+
+    private final int entries;
+    private final long seed;
+
+    /**
+     * @param entries global.ini的条目数
+     * @param seed    随机种子
+     */
+    public SyntheticCorpus(int entries, long seed) {
+        if (entries <= 0) {
+            throw new IllegalArgumentException("条目数必须大于0：" + entries);
+        }
+        this.entries = entries;
+        this.seed = seed;
+    }
+
+    /**
+     * 生成不同规模的语料到outputDir/{倍数}x
+     *
+     * @param args 输出目录与倍数，不指定倍数时生成1、5、10、25、50倍
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            throw new RuntimeException("用法：SyntheticCorpus <输出目录> [倍数...]");
+        }
+        Path outputDir = Path.of(args[0]);
+        List<Integer> scales = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            scales.add(Integer.parseInt(args[i]));
+        }
+        if (scales.isEmpty()) {
+            scales = List.of(1, 5, 10, 25, MAX_SCALE);
+        }
+        for (int scale : scales) {
+            ofScale(scale).generate(outputDir.resolve(scale + "x"));
+        }
+    }
+
+    /**
+     * 按倍数生成，1倍为{@link #BASE_ENTRIES}条
+     *
+     * @param scale 倍数，1-{@link #MAX_SCALE}
+     */
+    public static SyntheticCorpus ofScale(int scale) {
+        if (scale < 1 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("倍数必须在1-" + MAX_SCALE + "之间：" + scale);
+        }
+        return new SyntheticCorpus(BASE_ENTRIES * scale, DEFAULT_SEED);
+    }
+
+    /**
+     * 生成语料，目录结构与项目运行目录一致，可直接作为离线回放或基准测试的工作目录
+     * <pre>
+     * outputDir/global.ini
+     * outputDir/cache/paratranz/paratranz_files_metadata.info
+     * outputDir/cache/paratranz/*.json
+     * </pre>
+     *
+     * @param outputDir 输出目录
+     * @return 生成结果
+     */
+    public Result generate(Path outputDir) throws IOException {
+        long startNanos = System.nanoTime();
+        Path cacheDir = outputDir.resolve(ParatranzCache.CACHE_DIR);
+        Files.createDirectories(cacheDir);
+        Path iniPath = outputDir.resolve(INI_FILE_NAME);
+        writeIni(iniPath);
+        int removed = (int) Math.ceil(entries * REMOVED_RATE);
+        List<PZFile> pzFiles = new ArrayList<>();
+        pzFiles.add(writeFile(cacheDir, 1, PREVIOUS_FILE_NAME, "", entries + removed, index -> {
+            if (index >= entries) {
+                return stale(entry(index), PREVIOUS_ID_BASE + index);
+            }
+            return random(index, 2).nextDouble() < PREVIOUS_OVERLAP_RATE ? stale(entry(index), PREVIOUS_ID_BASE + index) : null;
+        }));
+        pzFiles.add(writeFile(cacheDir, 2, PTU_FILE_NAME, "", entries, index -> {
+            SplittableRandom random = random(index, 3);
+            if (random.nextDouble() >= PTU_OVERLAP_RATE) {
+                return null;
+            }
+            return stale(entry(index), (random.nextDouble() < PTU_NEWER_RATE ? PTU_NEWER_ID_BASE : PTU_ID_BASE) + index);
+        }));
+        pzFiles.add(writeFile(cacheDir, 3, LATEST_FILE_NAME, "", entries,
+                index -> random(index, 4).nextDouble() < LATEST_MISSING_RATE ? null : entry(index)));
+        pzFiles.add(writeFile(cacheDir, 4, RULE_FILE_NAME, RULE_FOLDER, RULE_ENTRIES, SyntheticCorpus::ruleEntry));
+        ParatranzJacksonTools.om.writeValue(cacheDir.resolve(ParatranzCache.METADATA_FILE_NAME).toFile(), pzFiles);
+        long translations = pzFiles.stream().mapToLong(PZFile::getTotal).sum();
+        logger.info("已生成{}条合成语料[{}]，paratranz共{}个文件{}条，耗时{}ms", entries, outputDir, pzFiles.size(), translations,
+                (System.nanoTime() - startNanos) / 1_000_000);
+        return new Result(outputDir, iniPath, cacheDir, entries, translations);
+    }
+
+    /**
+     * 第index个条目的最新版本
+     */
+    public PZTranslation entry(long index) {
+        SplittableRandom random = random(index, 1);
+        Namespace namespace = NAMESPACES[random.nextInt(NAMESPACES.length)];
+        PZTranslation translation = namespace.generate(random, index);
+        translation.setId(LATEST_ID_BASE + index);
+        if (random.nextDouble() < UNTRANSLATED_RATE) {
+            translation.setTranslation("");
+            translation.setStage(0);
+        } else {
+            translation.setStage(random.nextBoolean() ? 1 : 5);
+        }
+        return translation;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    private void writeIni(Path iniPath) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(iniPath, StandardCharsets.UTF_8)) {
+            //与游戏文件一致，带bom，crlf换行
+            writer.write('\uFEFF');
+            for (long index = 0; index < entries; index++) {
+                PZTranslation entry = entry(index);
+                writer.write(entry.getKey());
+                writer.write('=');
+                writer.write(entry.getOriginal());
+                writer.write("\r\n");
+            }
+        }
+    }
+
+    /**
+     * 流式写入单个paratranz文件
+     *
+     * @param order     文件序号，决定文件的时间
+     * @param name      文件名
+     * @param folder    所在目录
+     * @param indexes   条目序号上限
+     * @param generator 生成序号对应的条目，返回null时文件中不包含此条目
+     */
+    private PZFile writeFile(Path cacheDir, int order, String name, String folder, long indexes,
+                             LongFunction<PZTranslation> generator) throws IOException {
+        Path path = cacheDir.resolve(name);
+        Files.createDirectories(path.getParent());
+        int total = 0;
+        int translated = 0;
+        try (JsonGenerator jsonGenerator = ParatranzJacksonTools.om.getFactory().createGenerator(path.toFile(), JsonEncoding.UTF8)) {
+            jsonGenerator.writeStartArray();
+            for (long index = 0; index < indexes; index++) {
+                PZTranslation translation = generator.apply(index);
+                if (translation == null) {
+                    continue;
+                }
+                TRANSLATION_WRITER.writeValue(jsonGenerator, translation);
+                total++;
+                if (!translation.getTranslation().isEmpty()) {
+                    translated++;
+                }
+            }
+            jsonGenerator.writeEndArray();
+        }
+        ZonedDateTime time = BASE_TIME.plusDays(order);
+        PZFile pzFile = new PZFile();
+        pzFile.setId((long) order);
+        pzFile.setCreatedAt(time);
+        pzFile.setUpdatedAt(time);
+        pzFile.setModifiedAt(time);
+        pzFile.setName(name);
+        pzFile.setProject(0);
+        pzFile.setFormat("json");
+        pzFile.setTotal(total);
+        pzFile.setTranslated(translated);
+        pzFile.setFolder(folder);
+        pzFile.setHash(XxHash64.hashHex(path));
+        return pzFile;
+    }
+
+    /**
+     * 旧版本中的条目，key与原文相同，译文不同
+     */
+    private PZTranslation stale(PZTranslation translation, long id) {
+        translation.setId(id);
+        if (!translation.getTranslation().isEmpty()) {
+            translation.setTranslation(translation.getTranslation() + "（旧）");
+        }
+        return translation;
+    }
+
+    private static PZTranslation ruleEntry(long index) {
+        SplittableRandom random = new SplittableRandom(index);
+        return translation("term_" + index, pick(random, EN_WORDS), pick(random, ZH_WORDS), RULE_ID_BASE + index, 1);
+    }
+
+    private SplittableRandom random(long index, int stream) {
+        return new SplittableRandom(seed ^ (index * 0x9E3779B97F4A7C15L) ^ ((long) stream << 56));
+    }
+
+    private static void addNamespace(List<Namespace> namespaces, Namespace namespace, int weight) {
+        for (int i = 0; i < weight; i++) {
+            namespaces.add(namespace);
+        }
+    }
+
+    private static PZTranslation translation(String key, String original, String translation, long id, int stage) {
+        PZTranslation pzTranslation = new PZTranslation();
+        pzTranslation.setId(id);
+        pzTranslation.setKey(key);
+        pzTranslation.setOriginal(original);
+        pzTranslation.setTranslation(translation);
+        pzTranslation.setStage(stage);
+        return pzTranslation;
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String words(SplittableRandom random, String[] pool, int min, int max, String separator) {
+        int count = random.nextInt(min, max + 1);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(separator);
+            }
+            sb.append(pick(random, pool));
+        }
+        return sb.toString();
+    }
+
+    private static String suffix(long index) {
+        return Long.toString(index, 36);
+    }
+
+    /**
+     * key命名空间，每种对应一类真实条目
+     */
+    private enum Namespace {
+        //item_NameAEGS_Helmet_S02_xx，物品名
+        ITEM_NAME {
+            @Override
+            PZTranslation generate(SplittableRandom random, long index) {
+                String manufacturer = pick(random, MANUFACTURERS);
+                int typeIndex = random.nextInt(ITEM_TYPES.length);
+                int size = random.nextInt(1, 10);
+                String adjective = pick(random, ADJECTIVES);
+                return translation("item_Name" + manufacturer + "_" + ITEM_TYPES[typeIndex] + "_S0" + size + "_" + suffix(index),
+                        manufacturer + " " + adjective + " " + ITEM_TYPES[typeIndex] + " S0" + size,
+                        manufacturer + " " + words(random, ZH_WORDS, 1, 2, "") + ZH_TYPES[typeIndex] + " S0" + size, 0, 1);
+            }
+        },
+        //item_DescAEGS_Helmet_xx，物品描述，多行
+        ITEM_DESC {
+            @Override
+            PZTranslation generate(SplittableRandom random, long index) {
+                String manufacturer = pick(random, MANUFACTURERS);
+                int typeIndex = random.nextInt(ITEM_TYPES.length);
+                return translation("item_Desc" + manufacturer + "_" + ITEM_TYPES[typeIndex] + "_" + suffix(index),
+                        "Manufacturer: " + manufacturer + "\\nItem Type: " + ITEM_TYPES[typeIndex] + "\\nSize: " + random.nextInt(1, 10)
+                                + "\\n\\n" + words(random, EN_WORDS, 12, 40, " ") + ".",
+                        "制造商：" + manufacturer + "\\n物品类型：" + ZH_TYPES[typeIndex] + "\\n尺寸：" + random.nextInt(1, 10)
+                                + "\\n\\n" + words(random, ZH_WORDS, 12, 40, "") + "。", 0, 1);
+            }
+        },
+        //mission_location_stanton_xx，任务地点
+        MISSION_LOCATION {
+            @Override
+            PZTranslation generate(SplittableRandom random, long index) {
+                String system = pick(random, SYSTEMS);
+                int placeIndex = random.nextInt(PLACES.length);
+                String name = pick(random, PLACE_NAMES);
+                return translation("mission_location_" + system.toLowerCase() + "_" + suffix(index),
+                        name + " " + PLACES[placeIndex],
+                        name + ZH_PLACES[placeIndex], 0, 1);
+            }
+        },
+        //任务标题，带~mission(...)参数
+        MISSION_TITLE {
+            @Override
+            PZTranslation generate(SplittableRandom random, long index) {
+                String contractor = pick(random, CONTRACTORS);
+                String kind = pick(random, MISSION_KINDS);
+                return translation(contractor + "_" + kind + "_title_" + suffix(index),
+                        kind + " at ~mission(Location|Address)",
+                        "~mission(Location|Address)" + words(random, ZH_WORDS, 1, 3, ""), 0, 1);
+            }
+        },
+        //任务描述，带~mission(...)参数，多行
+        MISSION_DESC {
+            @Override
+            PZTranslation generate(SplittableRandom random, long index) {
+                String contractor = pick(random, CONTRACTORS);
+                String kind = pick(random, MISSION_KINDS);
+                return translation(contractor + "_" + kind + "_desc_" + suffix(index),
+                        "Head to ~mission(Location) and " + words(random, EN_WORDS, 8, 30, " ")
+                                + " for ~mission(Contractor).\\n\\nReward: ~mission(Reward) aUEC",
+                        "前往~mission(Location)，为~mission(Contractor)" + words(random, ZH_WORDS, 8, 30, "")
+                                + "。\\n\\n奖励：~mission(Reward) aUEC", 0, 1);
+            }
+        },
+        //Stanton2_xx、Pyro3_xx、RR_P1_L2_xx，星系内地点
+        LOCATION {
+            @Override
+            PZTranslation generate(SplittableRandom random, long index) {
+                int placeIndex = random.nextInt(PLACES.length);
+                String name = pick(random, PLACE_NAMES);
+                String key = switch (random.nextInt(3)) {
+                    case 0 -> "Stanton" + random.nextInt(1, 5) + "_" + name + "_" + suffix(index);
+                    case 1 -> "Pyro" + random.nextInt(1, 7) + "_" + name + "_" + suffix(index);
+                    default -> "RR_P" + random.nextInt(1, 7) + "_L" + random.nextInt(1, 6) + "_" + suffix(index);
+                };
+                return translation(key, name + " " + PLACES[placeIndex], name + ZH_PLACES[placeIndex], 0, 1);
+            }
+        },
+        //vehicle_NameAEGS_xx，载具名
+        VEHICLE_NAME {
+            @Override
+            PZTranslation generate(SplittableRandom random, long index) {
+                String manufacturer = pick(random, MANUFACTURERS);
+                String model = pick(random, PLACE_NAMES);
+                return translation("vehicle_Name" + manufacturer + "_" + model + "_" + suffix(index),
+                        manufacturer + " " + model, manufacturer + " " + model, 0, 1);
+            }
+        },
+        //ui_pregame_port_xx_name，出生点
+        PREGAME_PORT {
+            @Override
+            PZTranslation generate(SplittableRandom random, long index) {
+                int placeIndex = random.nextInt(PLACES.length);
+                String name = pick(random, PLACE_NAMES);
+                return translation("ui_pregame_port_" + name + "_" + suffix(index) + "_name",
+                        name + " " + PLACES[placeIndex], name + ZH_PLACES[placeIndex], 0, 1);
+            }
+        },
+        //界面文本，带格式化参数与需要替换的μ
+        UI {
+            @Override
+            PZTranslation generate(SplittableRandom random, long index) {
+                String area = pick(random, UI_AREAS);
+                return switch (random.nextInt(4)) {
+                    case 0 -> translation("ui_" + area + "_" + suffix(index), words(random, EN_WORDS, 1, 4, " ") + ": %ls",
+                            words(random, ZH_WORDS, 1, 4, "") + "：%ls", 0, 1);
+                    case 1 -> translation("ui_" + area + "_" + suffix(index), "%d " + words(random, EN_WORDS, 1, 3, " ") + " (µSCU)",
+                            "%d " + words(random, ZH_WORDS, 1, 3, "") + "（µSCU）", 0, 1);
+                    default -> translation("ui_" + area + "_" + suffix(index), words(random, EN_WORDS, 1, 5, " "),
+                            words(random, ZH_WORDS, 1, 5, ""), 0, 1);
+                };
+            }
+        },
+        //角色台词
+        DIALOGUE {
+            @Override
+            PZTranslation generate(SplittableRandom random, long index) {
+                String character = pick(random, CHARACTERS);
+                return translation(character + "_Line_" + suffix(index), words(random, EN_WORDS, 6, 20, " ") + ".",
+                        words(random, ZH_WORDS, 6, 20, "") + "。", 0, 1);
+            }
+        };
+
+        abstract PZTranslation generate(SplittableRandom random, long index);
+    }
+
+    /**
+     * 生成结果
+     *
+     * @param dir          输出目录
+     * @param iniPath      global.ini路径
+     * @param cacheDir     paratranz缓存目录
+     * @param entries      global.ini条目数
+     * @param translations paratranz各文件的条目总数
+     */
+    public record Result(Path dir, Path iniPath, Path cacheDir, int entries, long translations) {
+    }
+}
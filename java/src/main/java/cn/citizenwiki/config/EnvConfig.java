@@ -0,0 +1,45 @@
+package cn.citizenwiki.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 环境变量读取
+ * 所有配置都通过这里读取环境变量；离线回放等场景可以在配置类初始化之前覆盖部分变量，进程内无法修改真实的环境变量
+ */
+public class EnvConfig {
+
+    //覆盖的变量
+    private static final Map<String, String> OVERRIDES = new ConcurrentHashMap<>();
+    //是否已有变量被读取，读取后配置类可能已经初始化，不再允许覆盖
+    private static final AtomicBoolean READ = new AtomicBoolean();
+
+    private EnvConfig() {
+    }
+
+    /**
+     * 读取环境变量，有覆盖时返回覆盖值
+     *
+     * @param name 变量名
+     * @return 未设置时为null
+     */
+    public static String get(String name) {
+        READ.set(true);
+        String value = OVERRIDES.get(name);
+        return value != null ? value : System.getenv(name);
+    }
+
+    /**
+     * 覆盖环境变量，必须在读取任何变量之前调用，否则已初始化的配置类不会感知覆盖值
+     *
+     * @param variables 变量名与值
+     * @throws IllegalStateException 已有变量被读取
+     */
+    public static synchronized void override(Map<String, String> variables) {
+        if (READ.get()) {
+            throw new IllegalStateException("环境变量已被读取，无法再覆盖：" + variables.keySet());
+        }
+        OVERRIDES.putAll(variables);
+    }
+}
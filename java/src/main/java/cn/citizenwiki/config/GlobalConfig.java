@@ -14,32 +14,64 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.Deflater;
 
 public class GlobalConfig {
 
     //所有生成文件的输出目录
     public static final String OUTPUT_DIR = "final_output";
+    //规则配置目录
+    public static final String RULE_CONFIG_DIR = "规则配置";
+    //游戏配置与术语表目录，打包进data.zip
+    public static final String DATA_DIR = "data";
     //推送（push仓库，pr，cdn）的总开关，默认关闭
     public static final boolean SW_PUBLISH;
     //推送版本开关，默认关闭
     public static final FileVersion.Profile SW_PROFILE;
+    //data.zip压缩级别（0-9），级别越低速度越快，默认最高压缩率
+    public static final int ZIP_LEVEL;
+    //整次运行的飞行记录（final_output/run.jfr）开关，默认关闭
+    public static final boolean JFR_RECORDING;
+    //运行指纹开关，默认开启；关闭时每次都完整运行，也不记录指纹
+    public static final boolean SW_RUN_FINGERPRINT;
     private static final Logger logger = LoggerFactory.getLogger(GlobalConfig.class);
 
     static {
-        String swPublish = System.getenv("SW_PUBLISH");
+        String swPublish = EnvConfig.get("SW_PUBLISH");
         if (Objects.nonNull(swPublish) && !swPublish.isBlank()) {
             SW_PUBLISH = Boolean.parseBoolean(swPublish);
         } else {
             SW_PUBLISH = false;
         }
         logger.info("推送开关：[{}]", SW_PUBLISH ? "开启" : "关闭");
-        String swProfile = System.getenv("SW_PROFILE");
+        String swProfile = EnvConfig.get("SW_PROFILE");
         if (Objects.nonNull(swProfile) && !swProfile.isBlank()) {
             SW_PROFILE = FileVersion.Profile.valueOf(swProfile);
         } else {
             SW_PROFILE = FileVersion.Profile.PTU;
         }
         logger.info("推送通道：[{}]", SW_PROFILE.name());
+        String zipLevel = EnvConfig.get("ZIP_LEVEL");
+        if (Objects.nonNull(zipLevel) && !zipLevel.isBlank()) {
+            ZIP_LEVEL = Integer.parseInt(zipLevel.trim());
+            if (ZIP_LEVEL < Deflater.NO_COMPRESSION || ZIP_LEVEL > Deflater.BEST_COMPRESSION) {
+                throw new RuntimeException("ZIP_LEVEL必须在0-9之间：" + zipLevel);
+            }
+        } else {
+            ZIP_LEVEL = Deflater.BEST_COMPRESSION;
+        }
+        String jfrRecording = EnvConfig.get("JFR_RECORDING");
+        if (Objects.nonNull(jfrRecording) && !jfrRecording.isBlank()) {
+            JFR_RECORDING = Boolean.parseBoolean(jfrRecording);
+        } else {
+            JFR_RECORDING = false;
+        }
+        String swRunFingerprint = EnvConfig.get("SW_RUN_FINGERPRINT");
+        if (Objects.nonNull(swRunFingerprint) && !swRunFingerprint.isBlank()) {
+            SW_RUN_FINGERPRINT = Boolean.parseBoolean(swRunFingerprint);
+        } else {
+            SW_RUN_FINGERPRINT = true;
+        }
     }
 
     public static class MatcherRulesConfig {
@@ -47,7 +79,7 @@ public class GlobalConfig {
         private static final Map<String, MatchRulesConfigBean> MATCH_RULES_CONFIGS;
 
         static {
-            Path baseDir = Path.of("规则配置");
+            Path baseDir = Path.of(RULE_CONFIG_DIR);
             try (Stream<Path> configDir = Files.list(baseDir)) {
                 // 加载 TranslationRuleConfigBean 格式的配置
                 TRANSLATION_RULE_CONFIGS = configDir
@@ -68,7 +100,7 @@ public class GlobalConfig {
                 throw new RuntimeException("读取【规则配置】目录失败", e);
             }
             // 加载 MatchRulesConfigBean 格式的配置（在"规则配置/可导入规则"目录下）
-            Path matchRulesBaseDir = Path.of("规则配置/规则");
+            Path matchRulesBaseDir = baseDir.resolve("规则");
             try (Stream<Path> configDir = Files.walk(matchRulesBaseDir)) {
                 MATCH_RULES_CONFIGS = configDir
                         .filter(Files::isRegularFile)
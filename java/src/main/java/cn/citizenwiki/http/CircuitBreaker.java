@@ -0,0 +1,128 @@
+package cn.citizenwiki.http;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按主机划分的熔断器
+ * 连续失败达到阈值后打开，打开期间不放行请求；冷却结束后进入半开状态，只放行一个探测请求，
+ * 探测成功则关闭，失败则重新打开
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    private static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+    private static final Map<String, CircuitBreaker> BREAKERS = new ConcurrentHashMap<>();
+
+    private final String host;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Instant openedAt;
+    private boolean probing;
+
+    public CircuitBreaker(String host, int failureThreshold, Duration openDuration, Clock clock) {
+        this.host = host;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    /**
+     * 获取主机对应的熔断器
+     *
+     * @param host 主机名
+     * @return 熔断器
+     */
+    public static CircuitBreaker forHost(String host) {
+        return BREAKERS.computeIfAbsent(host, h -> new CircuitBreaker(h, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION, Clock.systemUTC()));
+    }
+
+    /**
+     * 请求前调用
+     *
+     * @return 是否允许发出请求
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.instant().isBefore(openedAt.plus(openDuration))) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probing = false;
+                logger.info("[{}]熔断冷却结束，放行探测请求", host);
+                // fall through
+            case HALF_OPEN:
+            default:
+                if (probing) {
+                    return false;
+                }
+                probing = true;
+                return true;
+        }
+    }
+
+    /**
+     * 请求成功（包括4xx等服务端正常响应）后调用
+     */
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("[{}]探测成功，熔断关闭", host);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probing = false;
+    }
+
+    /**
+     * 请求失败（连接异常或5xx）后调用
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                logger.error("[{}]连续失败{}次，熔断{}秒", host, consecutiveFailures, openDuration.toSeconds());
+            }
+            state = State.OPEN;
+            openedAt = clock.instant();
+            probing = false;
+        }
+    }
+
+    /**
+     * 距离冷却结束的剩余时间，未打开或冷却已结束时为0
+     *
+     * @return 剩余时间
+     */
+    public synchronized Duration remainingOpenTime() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        Duration remaining = Duration.between(clock.instant(), openedAt.plus(openDuration));
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN,
+    }
+}
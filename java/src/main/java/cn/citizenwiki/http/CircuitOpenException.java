@@ -0,0 +1,11 @@
+package cn.citizenwiki.http;
+
+/**
+ * 熔断器打开时，请求未发出直接失败
+ */
+public class CircuitOpenException extends RuntimeException {
+
+    public CircuitOpenException(String host) {
+        super("[" + host + "]熔断中，请求未发出");
+    }
+}
@@ -0,0 +1,108 @@
+package cn.citizenwiki.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 根据Content-Encoding透明解压响应体
+ * 解压流延迟到第一次读取时才创建，避免在http客户端的回调线程中阻塞读取gzip头
+ */
+public class ContentEncodingInputStream extends InputStream {
+
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream raw;
+    private final String encoding;
+    private InputStream decoded;
+    private Inflater inflater;
+
+    private ContentEncodingInputStream(InputStream raw, String encoding) {
+        this.raw = raw;
+        this.encoding = encoding;
+    }
+
+    /**
+     * 包装响应体，未压缩时原样返回
+     *
+     * @param response http响应
+     * @return 解压后的响应体
+     */
+    public static InputStream decode(HttpResponse<InputStream> response) {
+        return decode(response.headers(), response.body());
+    }
+
+    /**
+     * 包装响应体，未压缩时原样返回
+     *
+     * @param headers 响应头
+     * @param raw     原始响应体，如统计字节数的包装流
+     * @return 解压后的响应体
+     */
+    public static InputStream decode(HttpHeaders headers, InputStream raw) {
+        String encoding = headers.firstValue("Content-Encoding")
+                .orElse("identity").strip().toLowerCase(Locale.ROOT);
+        return switch (encoding) {
+            case "", "identity" -> raw;
+            case "gzip", "x-gzip", "deflate" -> new ContentEncodingInputStream(raw, encoding);
+            default -> throw new IllegalStateException("不支持的Content-Encoding:" + encoding);
+        };
+    }
+
+    private InputStream delegate() throws IOException {
+        if (decoded == null) {
+            if ("deflate".equals(encoding)) {
+                //http的deflate理论上是zlib格式，但有服务端直接返回裸deflate，这里根据zlib头判断
+                PushbackInputStream pushback = new PushbackInputStream(raw, 2);
+                byte[] header = pushback.readNBytes(2);
+                pushback.unread(header);
+                boolean zlib = header.length == 2
+                        && (header[0] & 0x0F) == 8
+                        && (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0;
+                inflater = new Inflater(!zlib);
+                decoded = new InflaterInputStream(pushback, inflater, BUFFER_SIZE);
+            } else {
+                decoded = new GZIPInputStream(raw, BUFFER_SIZE);
+            }
+        }
+        return decoded;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return delegate().read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return delegate().read(b, off, len);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return decoded == null ? 0 : decoded.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (decoded != null) {
+                decoded.close();
+            } else {
+                raw.close();
+            }
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+}
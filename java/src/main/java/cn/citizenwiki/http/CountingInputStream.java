@@ -0,0 +1,76 @@
+package cn.citizenwiki.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * 统计实际读取的字节数，读到末尾或关闭时回调一次
+ * 用于统计响应体大小，Content-Length在分块传输时不存在，也不包含未读完就关闭的情况
+ */
+public class CountingInputStream extends FilterInputStream {
+
+    private final LongConsumer onComplete;
+    private long count;
+    private boolean completed;
+
+    /**
+     * @param in         原始流
+     * @param onComplete 读到末尾或关闭时的回调，参数为已读取的字节数
+     */
+    public CountingInputStream(InputStream in, LongConsumer onComplete) {
+        super(in);
+        this.onComplete = onComplete;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            complete();
+        } else {
+            count++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n < 0) {
+            complete();
+        } else {
+            count += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(n);
+        count += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            in.close();
+        } finally {
+            complete();
+        }
+    }
+
+    private void complete() {
+        if (!completed) {
+            completed = true;
+            onComplete.accept(count);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package cn.citizenwiki.http;
+
+import cn.citizenwiki.utils.DigestUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * http校验器缓存
+ * 按url与影响响应内容的请求头保存ETag/Last-Modified以及响应体，再次请求时发送条件请求头，
+ * 服务端返回304时直接复用保存的响应体，资源未变化时只需要一次空响应的往返；
+ * 响应体在调用方读取的同时写入缓存，不会整体读入内存
+ */
+public class HttpValidatorCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpValidatorCache.class);
+    private static final ObjectMapper om = new ObjectMapper();
+    private static final String META_SUFFIX = ".meta";
+    private static final String BODY_SUFFIX = ".body.gz";
+    //参与缓存key的请求头，Accept-Encoding由BaseApi添加且响应体已解压，不参与
+    private static final List<String> KEY_HEADERS = List.of("Accept", "Accept-Language");
+
+    private final Path cacheDir;
+    private final Map<String, Entry> memory = new ConcurrentHashMap<>();
+
+    /**
+     * @param cacheDir 缓存目录，放在action缓存目录下即可跨运行复用
+     */
+    public HttpValidatorCache(Path cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * 是否可以使用校验器缓存，只缓存GET请求
+     */
+    public static boolean isCacheable(HttpRequest request) {
+        return "GET".equals(request.method());
+    }
+
+    /**
+     * 请求的缓存key，同一url不同Accept的响应分开缓存
+     *
+     * @param request 请求
+     * @return 缓存key
+     */
+    public static String key(HttpRequest request) {
+        StringBuilder key = new StringBuilder(request.uri().toString());
+        for (String name : KEY_HEADERS) {
+            request.headers().firstValue(name).ifPresent(value -> key.append('\n').append(name).append(": ").append(value));
+        }
+        return key.toString();
+    }
+
+    /**
+     * 查找请求对应的缓存
+     *
+     * @param request 请求
+     * @return 缓存条目，不存在或损坏时返回null
+     */
+    public Entry lookup(HttpRequest request) {
+        String key = key(request);
+        Entry entry = memory.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        String name = fileName(key);
+        Path metaPath = cacheDir.resolve(name + META_SUFFIX);
+        if (!Files.exists(metaPath) || !Files.exists(cacheDir.resolve(name + BODY_SUFFIX))) {
+            return null;
+        }
+        try {
+            entry = om.readValue(metaPath.toFile(), Entry.class);
+        } catch (IOException e) {
+            logger.warn("http缓存[{}]读取失败，将重新请求", request.uri(), e);
+            return null;
+        }
+        //文件名冲突时视为未命中
+        if (!key.equals(entry.key())) {
+            return null;
+        }
+        memory.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * 为请求添加条件请求头
+     *
+     * @param request 原请求
+     * @param entry   缓存条目，可为null
+     * @return 新请求
+     */
+    public static HttpRequest withValidators(HttpRequest request, Entry entry) {
+        if (entry == null) {
+            return request;
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+        if (entry.etag() != null) {
+            builder.setHeader("If-None-Match", entry.etag());
+        }
+        if (entry.lastModified() != null) {
+            builder.setHeader("If-Modified-Since", entry.lastModified());
+        }
+        return builder.build();
+    }
+
+    /**
+     * 读取缓存的响应体（已解压）
+     *
+     * @param entry 缓存条目
+     * @return 响应体
+     */
+    public InputStream readBody(Entry entry) throws IOException {
+        return new GZIPInputStream(Files.newInputStream(cacheDir.resolve(fileName(entry.key()) + BODY_SUFFIX)), 64 * 1024);
+    }
+
+    /**
+     * 保存响应，响应没有校验器时原样返回响应体
+     * 返回的流在调用方读取时把内容写入临时文件，关闭时读完剩余内容后才替换缓存，读取失败则丢弃
+     *
+     * @param request 请求
+     * @param headers 响应头
+     * @param body    解压后的响应体
+     * @return 可供调用方继续读取的响应体
+     */
+    public InputStream store(HttpRequest request, HttpHeaders headers, InputStream body) {
+        String etag = headers.firstValue("ETag").orElse(null);
+        String lastModified = headers.firstValue("Last-Modified").orElse(null);
+        if (etag == null && lastModified == null) {
+            return body;
+        }
+        Entry entry = new Entry(key(request), etag, lastModified);
+        try {
+            Files.createDirectories(cacheDir);
+            //先写临时文件再移动，避免并发或中断时留下不完整的缓存
+            Path tmpBody = Files.createTempFile(cacheDir, fileName(entry.key()), ".tmp");
+            return new CachingInputStream(body, entry, tmpBody);
+        } catch (IOException e) {
+            //缓存写入失败不影响本次请求
+            logger.warn("http缓存[{}]写入失败", request.uri(), e);
+            return body;
+        }
+    }
+
+    private void commit(Entry entry, Path tmpBody) throws IOException {
+        String name = fileName(entry.key());
+        Files.move(tmpBody, cacheDir.resolve(name + BODY_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Path tmpMeta = Files.createTempFile(cacheDir, name, ".tmp");
+        om.writeValue(tmpMeta.toFile(), entry);
+        Files.move(tmpMeta, cacheDir.resolve(name + META_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        memory.put(entry.key(), entry);
+    }
+
+    private static String fileName(String key) {
+        return DigestUtil.sha256Hex(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 缓存条目
+     *
+     * @param key          缓存key，见{@link #key(HttpRequest)}
+     * @param etag         ETag
+     * @param lastModified Last-Modified
+     */
+    public record Entry(String key, String etag, String lastModified) {
+    }
+
+    /**
+     * 边读边写缓存的响应体
+     */
+    private class CachingInputStream extends FilterInputStream {
+
+        private final Entry entry;
+        private final Path tmpBody;
+        //写入失败后置为null，不再写入
+        private OutputStream copy;
+        private boolean eof;
+        private boolean closed;
+
+        CachingInputStream(InputStream body, Entry entry, Path tmpBody) throws IOException {
+            super(body);
+            this.entry = entry;
+            this.tmpBody = tmpBody;
+            this.copy = new GZIPOutputStream(Files.newOutputStream(tmpBody), 64 * 1024);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b < 0) {
+                eof = true;
+            } else if (copy != null) {
+                try {
+                    copy.write(b);
+                } catch (IOException e) {
+                    abandon(e);
+                }
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n < 0) {
+                eof = true;
+            } else if (copy != null) {
+                try {
+                    copy.write(b, off, n);
+                } catch (IOException e) {
+                    abandon(e);
+                }
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            //跳过的内容同样需要写入缓存
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            long skipped = 0;
+            while (skipped < n) {
+                int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read < 0) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                //json解析不一定读到流末尾，读完剩余内容才能保证缓存完整
+                if (copy != null && !eof) {
+                    skip(Long.MAX_VALUE);
+                }
+            } catch (IOException e) {
+                abandon(e);
+            } finally {
+                super.close();
+                finish();
+            }
+        }
+
+        private void finish() {
+            if (copy == null) {
+                return;
+            }
+            try {
+                copy.close();
+                copy = null;
+                commit(entry, tmpBody);
+            } catch (IOException e) {
+                abandon(e);
+            }
+        }
+
+        private void abandon(IOException e) {
+            logger.warn("http缓存[{}]写入失败", entry.key(), e);
+            if (copy != null) {
+                try {
+                    copy.close();
+                } catch (IOException ignored) {
+                }
+                copy = null;
+            }
+            try {
+                Files.deleteIfExists(tmpBody);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package cn.citizenwiki.http;
+
+import java.net.http.HttpHeaders;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 重试策略
+ * 无响应头提示时使用带完全抖动的指数退避：delay = random(0, min(maxDelay, baseDelay * 2^(attempt-1)))，
+ * 服务端返回Retry-After或github限流头（x-ratelimit-remaining为0时的x-ratelimit-reset）时按服务端要求等待
+ */
+public class RetryPolicy {
+
+    public static final String RETRY_AFTER = "Retry-After";
+    public static final String RATE_LIMIT_REMAINING = "x-ratelimit-remaining";
+    public static final String RATE_LIMIT_RESET = "x-ratelimit-reset";
+
+    //单次退避的上限
+    private static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(60);
+    //服务端要求的等待超过此值时不再重试，直接失败，避免长时间挂起整个流程
+    private static final Duration DEFAULT_MAX_SERVER_DELAY = Duration.ofMinutes(5);
+
+    private final int maxAttempts;
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+    private final Duration maxServerDelay;
+    private final Clock clock;
+
+    public RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay, Duration maxServerDelay, Clock clock) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.maxServerDelay = maxServerDelay;
+        this.clock = clock;
+    }
+
+    /**
+     * 兼容原有的重试次数以及单位时间配置
+     *
+     * @param retries  最大尝试次数，包含第一次
+     * @param unitTime 退避基准时间，单位：毫秒
+     * @return 重试策略
+     */
+    public static RetryPolicy of(int retries, int unitTime) {
+        return new RetryPolicy(retries, Duration.ofMillis(unitTime), DEFAULT_MAX_DELAY, DEFAULT_MAX_SERVER_DELAY, Clock.systemUTC());
+    }
+
+    /**
+     * 第attempt次尝试失败后是否还能重试
+     */
+    public boolean canRetry(int attempt) {
+        return attempt < maxAttempts;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * 状态码是否值得重试：429限流、5xx，以及带限流头的403（github二级限流）
+     */
+    public boolean isRetryable(int statusCode, HttpHeaders headers) {
+        if (statusCode == HttpStatus.TOO_MANY_REQUESTS.getCode() || statusCode >= 500) {
+            return true;
+        }
+        return statusCode == HttpStatus.FORBIDDEN.getCode() && serverDelay(headers).isPresent();
+    }
+
+    /**
+     * 是否为限流响应，限流不代表服务端故障，不计入熔断
+     */
+    public boolean isThrottled(int statusCode, HttpHeaders headers) {
+        return statusCode == HttpStatus.TOO_MANY_REQUESTS.getCode()
+                || (statusCode == HttpStatus.FORBIDDEN.getCode() && serverDelay(headers).isPresent());
+    }
+
+    /**
+     * 计算第attempt次失败后的等待时间
+     *
+     * @param attempt 已尝试次数，从1开始
+     * @param headers 响应头，连接异常时为null
+     * @return 等待时间，服务端要求的等待过长时返回empty表示不应再重试
+     */
+    public Optional<Duration> delay(int attempt, HttpHeaders headers) {
+        Optional<Duration> serverDelay = serverDelay(headers);
+        if (serverDelay.isPresent()) {
+            return serverDelay.get().compareTo(maxServerDelay) > 0 ? Optional.empty() : serverDelay;
+        }
+        return Optional.of(backoff(attempt));
+    }
+
+    /**
+     * 带完全抖动的指数退避
+     */
+    public Duration backoff(int attempt) {
+        long base = baseDelay.toMillis();
+        long cap = maxDelay.toMillis();
+        int shift = Math.min(Math.max(attempt - 1, 0), 30);
+        long ceiling = base > (cap >> shift) ? cap : Math.min(cap, base << shift);
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    /**
+     * 从响应头解析服务端要求的等待时间
+     */
+    Optional<Duration> serverDelay(HttpHeaders headers) {
+        if (headers == null) {
+            return Optional.empty();
+        }
+        Optional<String> retryAfter = headers.firstValue(RETRY_AFTER);
+        if (retryAfter.isPresent()) {
+            Optional<Duration> parsed = parseRetryAfter(retryAfter.get().strip());
+            if (parsed.isPresent()) {
+                return parsed;
+            }
+        }
+        Optional<String> remaining = headers.firstValue(RATE_LIMIT_REMAINING);
+        Optional<String> reset = headers.firstValue(RATE_LIMIT_RESET);
+        if (remaining.isPresent() && reset.isPresent() && "0".equals(remaining.get().strip())) {
+            try {
+                Instant resetAt = Instant.ofEpochSecond(Long.parseLong(reset.get().strip()));
+                return Optional.of(nonNegative(Duration.between(clock.instant(), resetAt)));
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Retry-After可以是秒数，也可以是http日期
+     */
+    private Optional<Duration> parseRetryAfter(String value) {
+        try {
+            return Optional.of(Duration.ofSeconds(Math.max(0, Long.parseLong(value))));
+        } catch (NumberFormatException ignored) {
+        }
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Optional.of(nonNegative(Duration.between(clock.instant(), at.toInstant())));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Duration nonNegative(Duration duration) {
+        return duration.isNegative() ? Duration.ZERO : duration;
+    }
+}
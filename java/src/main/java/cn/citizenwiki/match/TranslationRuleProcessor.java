@@ -2,6 +2,7 @@ package cn.citizenwiki.match;
 
 import cn.citizenwiki.match.rule.ConfigProvider;
 import cn.citizenwiki.match.rule.MatchRules;
+import cn.citizenwiki.metrics.jfr.RuleEvalEvent;
 import cn.citizenwiki.model.config.MatchRulesConfigBean;
 import cn.citizenwiki.model.config.TranslationRuleConfigBean;
 import org.slf4j.Logger;
@@ -36,6 +37,9 @@ public class TranslationRuleProcessor {
 
     private final ConfigProvider<MatchRulesConfigBean> matchRulesConfigProvider;
 
+    //规则文件名，只用于飞行记录
+    private final String ruleFile;
+
     /**
      * 构造函数
      *
@@ -65,6 +69,26 @@ public class TranslationRuleProcessor {
                                     MatchRulesConfigBean translationRules,
                                     Map<String, MatchRulesConfigBean> extRules,
                                     ConfigProvider<MatchRulesConfigBean> matchRulesConfigProvider) {
+        this(null, keyRules, originalRules, translationRules, extRules, matchRulesConfigProvider);
+    }
+
+    /**
+     * 完整构造函数，并记录规则文件名
+     *
+     * @param ruleFile 规则文件名，用于飞行记录中区分规则
+     * @param keyRules 键值匹配规则
+     * @param originalRules 原文匹配规则
+     * @param translationRules 译文匹配规则
+     * @param extRules 扩展规则映射
+     * @param matchRulesConfigProvider MatchRulesConfigBean配置提供者，用于导入机制
+     */
+    public TranslationRuleProcessor(String ruleFile,
+                                    MatchRulesConfigBean keyRules,
+                                    MatchRulesConfigBean originalRules,
+                                    MatchRulesConfigBean translationRules,
+                                    Map<String, MatchRulesConfigBean> extRules,
+                                    ConfigProvider<MatchRulesConfigBean> matchRulesConfigProvider) {
+        this.ruleFile = ruleFile;
         this.matchRulesConfigProvider = matchRulesConfigProvider;
 
         // 处理导入并创建处理器
@@ -87,6 +111,18 @@ public class TranslationRuleProcessor {
     public static TranslationRuleProcessor fromTranslationRuleConfig(
             TranslationRuleConfigBean config,
             ConfigProvider<MatchRulesConfigBean> matchRulesConfigProvider) {
+        return fromTranslationRuleConfig(null, config, matchRulesConfigProvider);
+    }
+
+    /**
+     * 从 TranslationRuleConfigBean 创建 TranslationRuleProcessor，并记录规则文件名
+     *
+     * @param ruleFile 规则文件名，用于飞行记录中区分规则
+     */
+    public static TranslationRuleProcessor fromTranslationRuleConfig(
+            String ruleFile,
+            TranslationRuleConfigBean config,
+            ConfigProvider<MatchRulesConfigBean> matchRulesConfigProvider) {
 
         if (config == null) {
             logger.warn("TranslationRuleConfigBean 为 null，将使用默认空配置");
@@ -98,7 +134,7 @@ public class TranslationRuleProcessor {
         MatchRulesConfigBean translationRules = config.getTranslation();
         Map<String, MatchRulesConfigBean> extRules = config.getExt();
 
-        return new TranslationRuleProcessor(keyRules, originalRules, translationRules, extRules, matchRulesConfigProvider);
+        return new TranslationRuleProcessor(ruleFile, keyRules, originalRules, translationRules, extRules, matchRulesConfigProvider);
     }
 
     /**
@@ -180,9 +216,14 @@ public class TranslationRuleProcessor {
      * @return 如果键值、原文及译文都满足各自的规则，则返回true；否则返回false
      */
     public boolean isMatch(String key, String original, String translation) {
-        return keyProcessor.matches(key)
+        RuleEvalEvent event = RuleEvalEvent.sample(ruleFile, "entry");
+        boolean matched = keyProcessor.matches(key)
                 && originalProcessor.matches(original)
                 && translationProcessor.matches(translation);
+        if (event != null) {
+            event.finish(matched);
+        }
+        return matched;
     }
 
     /**
@@ -223,7 +264,12 @@ public class TranslationRuleProcessor {
             logger.debug("扩展规则 '{}' 不存在", extKey);
             return false;
         }
-        return processor.matches(input);
+        RuleEvalEvent event = RuleEvalEvent.sample(ruleFile, extKey);
+        boolean matched = processor.matches(input);
+        if (event != null) {
+            event.finish(matched);
+        }
+        return matched;
     }
 
     /**
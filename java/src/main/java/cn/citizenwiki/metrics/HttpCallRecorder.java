@@ -0,0 +1,130 @@
+package cn.citizenwiki.metrics;
+
+import cn.citizenwiki.http.CountingInputStream;
+import cn.citizenwiki.metrics.jfr.HttpCallEvent;
+
+import java.io.InputStream;
+
+/**
+ * 单次http调用的记录，从第一次尝试开始到最后一次尝试结束（包含重试等待）
+ * 结束时记录到{@link HttpMetrics}并提交对应的{@link HttpCallEvent}；各次尝试可能在不同线程上，但不会同时进行
+ * 响应体交给调用方流式读取时，耗时仍截止到调用结束，记录与提交推迟到响应体读完或关闭，以便带上实际读取的字节数
+ */
+public class HttpCallRecorder {
+
+    private final HttpMetrics metrics;
+    private final String client;
+    private final String endpoint;
+    private final HttpCallEvent event = new HttpCallEvent();
+    private final long startNanos = System.nanoTime();
+    private volatile int retries;
+    private volatile int throttled;
+    private volatile long bytes = -1;
+    //响应体已交给调用方，但还没有读完或关闭
+    private boolean bodyOpen;
+    private boolean finished;
+    private boolean recorded;
+    private boolean success;
+    private long durationNanos;
+
+    HttpCallRecorder(HttpMetrics metrics, String client, String endpoint) {
+        this.metrics = metrics;
+        this.client = client;
+        this.endpoint = endpoint;
+        event.setClient(client);
+        event.begin();
+    }
+
+    /**
+     * 记录请求信息，只体现在飞行记录中
+     */
+    public void request(String method, String host, String path) {
+        event.setMethod(method);
+        event.setHost(host);
+        event.setPath(path);
+    }
+
+    /**
+     * 开始一次尝试
+     *
+     * @param attempt 第几次尝试，从1开始
+     */
+    public void attempt(int attempt) {
+        retries = attempt - 1;
+        event.setRetries(retries);
+    }
+
+    /**
+     * 收到响应
+     *
+     * @param status http状态码
+     */
+    public void response(int status) {
+        event.setStatus(status);
+    }
+
+    /**
+     * 本次尝试收到的是限流响应
+     */
+    public void throttled() {
+        throttled++;
+    }
+
+    /**
+     * 统计响应体实际读取的字节数，读完或关闭时记录
+     *
+     * @param body 原始响应体（解压前）
+     * @return 包装后的响应体
+     */
+    public synchronized InputStream countBody(InputStream body) {
+        bodyOpen = true;
+        bytes = -1;
+        return new CountingInputStream(body, this::bodyRead);
+    }
+
+    private synchronized void bodyRead(long bytes) {
+        this.bytes = bytes;
+        bodyOpen = false;
+        event.setBytes(bytes);
+        if (finished) {
+            record();
+        }
+    }
+
+    /**
+     * 连接失败，没有响应
+     */
+    public void failure() {
+        event.setStatus(0);
+    }
+
+    /**
+     * 调用结束，重复调用时忽略
+     *
+     * @param success 调用方是否得到了结果
+     */
+    public synchronized void finish(boolean success) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        this.success = success;
+        durationNanos = System.nanoTime() - startNanos;
+        event.end();
+        //失败时响应体已被丢弃，不再等待
+        if (!success || !bodyOpen) {
+            record();
+        }
+    }
+
+    private void record() {
+        if (recorded) {
+            return;
+        }
+        recorded = true;
+        metrics.record(client, endpoint, durationNanos, bytes, retries, throttled, success);
+        if (event.shouldCommit()) {
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package cn.citizenwiki.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 按接口统计http调用的耗时分布、响应大小、重试与限流次数
+ * paratranz、github的调用在{@link cn.citizenwiki.api.BaseApi}中记录，存储桶的调用在S3客户端拦截器中记录，
+ * 运行结束时随{@link RunReport}输出，用于判断慢在哪个服务
+ */
+public class HttpMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpMetrics.class);
+    //路径中的数字段（项目id、文件id等）
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    private final ConcurrentHashMap<EndpointKey, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * 开始记录一次调用（包含所有重试）
+     *
+     * @param client   客户端，如ParatranzApi
+     * @param endpoint 接口，同一接口的调用合并统计
+     */
+    public HttpCallRecorder start(String client, String endpoint) {
+        return new HttpCallRecorder(this, client, endpoint);
+    }
+
+    /**
+     * 由请求方法与路径得到接口名，路径中的数字段替换为{id}，避免每个文件一个接口
+     *
+     * @param method 请求方法
+     * @param path   请求路径
+     * @return 如GET /projects/{id}/files
+     */
+    public static String endpoint(String method, String path) {
+        return method + " " + NUMERIC_SEGMENT.matcher(path == null ? "" : path).replaceAll("/{id}");
+    }
+
+    /**
+     * 各接口的统计，按客户端与接口名排序
+     */
+    public List<RunReport.Endpoint> report() {
+        return endpoints.entrySet().stream()
+                .map(entry -> entry.getValue().report(entry.getKey()))
+                .sorted(Comparator.comparing(RunReport.Endpoint::client).thenComparing(RunReport.Endpoint::endpoint))
+                .toList();
+    }
+
+    /**
+     * 输出各接口的统计到日志
+     */
+    static void log(List<RunReport.Endpoint> endpoints) {
+        for (RunReport.Endpoint endpoint : endpoints) {
+            logger.info("[{}][{}]调用{}次，失败{}次，重试{}次，限流{}次，耗时p50 {}ms，p99 {}ms，最大{}ms，响应共{}KB",
+                    endpoint.client(), endpoint.endpoint(), endpoint.calls(), endpoint.failures(), endpoint.retries(),
+                    endpoint.throttled(), endpoint.p50Millis(), endpoint.p99Millis(), endpoint.maxMillis(),
+                    endpoint.totalBytes() / 1024);
+        }
+    }
+
+    void record(String client, String endpoint, long durationNanos, long bytes, int retries, int throttled, boolean success) {
+        EndpointStats stats = endpoints.computeIfAbsent(new EndpointKey(client, endpoint), key -> new EndpointStats());
+        stats.latencyMicros.record(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+        if (bytes >= 0) {
+            stats.bytes.record(bytes);
+        }
+        stats.retries.add(retries);
+        stats.throttled.add(throttled);
+        if (!success) {
+            stats.failures.increment();
+        }
+    }
+
+    private record EndpointKey(String client, String endpoint) {
+    }
+
+    private static class EndpointStats {
+
+        private final Histogram latencyMicros = new Histogram();
+        private final Histogram bytes = new Histogram();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder throttled = new LongAdder();
+
+        private RunReport.Endpoint report(EndpointKey key) {
+            return new RunReport.Endpoint(key.client(), key.endpoint(), latencyMicros.getCount(), failures.sum(),
+                    retries.sum(), throttled.sum(), millis(latencyMicros.percentile(50)), millis(latencyMicros.percentile(99)),
+                    millis(latencyMicros.getMax()), bytes.getSum(), bytes.percentile(50), bytes.getMax());
+        }
+
+        /**
+         * 微秒转为毫秒，保留一位小数
+         */
+        private static double millis(long micros) {
+            return Math.round(micros / 100.0) / 10.0;
+        }
+    }
+}
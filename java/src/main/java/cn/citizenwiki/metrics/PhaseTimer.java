@@ -0,0 +1,69 @@
+package cn.citizenwiki.metrics;
+
+import cn.citizenwiki.metrics.jfr.StageEvent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 阶段计时，创建时开始，关闭时记录到{@link RunMetrics}，同时提交对应的{@link StageEvent}
+ */
+public class PhaseTimer implements AutoCloseable {
+
+    private final RunMetrics metrics;
+    private final String name;
+    private final String processor;
+    private final Thread thread = Thread.currentThread();
+    private final long startMillis;
+    private final long startNanos;
+    private final long startCpuNanos;
+    private final long startAllocatedBytes;
+    private final StageEvent event = new StageEvent();
+    private boolean closed;
+
+    PhaseTimer(RunMetrics metrics, String name, String processor) {
+        this.metrics = metrics;
+        this.name = name;
+        this.processor = processor;
+        this.startMillis = metrics.sinceStartMillis();
+        this.startCpuNanos = RunMetrics.currentThreadCpuNanos();
+        this.startAllocatedBytes = RunMetrics.currentThreadAllocatedBytes();
+        this.startNanos = System.nanoTime();
+        event.setName(name);
+        event.setProcessor(processor);
+        event.begin();
+    }
+
+    /**
+     * 记录阶段产出的字节数，只体现在飞行记录中
+     */
+    public void setBytes(long bytes) {
+        event.setBytes(bytes);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        long wallNanos = System.nanoTime() - startNanos;
+        event.commit();
+        Long cpuMillis = null;
+        Long allocatedBytes = null;
+        //按线程的统计只在同一线程上有意义
+        if (Thread.currentThread() == thread) {
+            long cpuNanos = RunMetrics.currentThreadCpuNanos();
+            if (startCpuNanos >= 0 && cpuNanos >= 0) {
+                cpuMillis = TimeUnit.NANOSECONDS.toMillis(cpuNanos - startCpuNanos);
+            }
+            long allocated = RunMetrics.currentThreadAllocatedBytes();
+            if (startAllocatedBytes >= 0 && allocated >= 0) {
+                allocatedBytes = allocated - startAllocatedBytes;
+            }
+        }
+        //虚拟线程默认没有名称
+        String threadName = thread.getName().isEmpty() ? "#" + thread.threadId() : thread.getName();
+        metrics.record(new RunReport.Phase(name, processor, threadName, startMillis,
+                TimeUnit.NANOSECONDS.toMillis(wallNanos), cpuMillis, allocatedBytes));
+    }
+}
@@ -0,0 +1,150 @@
+package cn.citizenwiki.metrics;
+
+import cn.citizenwiki.api.s3.S3JacksonTools;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 运行耗时与资源统计
+ * 各阶段通过{@link #start(String, String)}计时，http调用通过{@link #http()}统计，运行结束时生成{@link RunReport}写入输出目录
+ */
+public class RunMetrics {
+
+    public static final RunMetrics INSTANCE = new RunMetrics();
+    //报告文件名
+    public static final String REPORT_FILE_NAME = "run_report.json";
+
+    private static final Logger logger = LoggerFactory.getLogger(RunMetrics.class);
+    //HotSpot提供按线程统计分配字节数的扩展接口，其他jvm上为null
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean ? bean : null;
+
+    private final ZonedDateTime startedAt = ZonedDateTime.now();
+    private final long startNanos = System.nanoTime();
+    private final ConcurrentLinkedQueue<RunReport.Phase> phases = new ConcurrentLinkedQueue<>();
+    private final HttpMetrics http = new HttpMetrics();
+
+    public RunMetrics() {
+        //从运行开始统计堆内存峰值
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * 开始一个阶段计时，配合try-with-resources使用
+     *
+     * @param name 阶段名
+     */
+    public PhaseTimer start(String name) {
+        return start(name, null);
+    }
+
+    /**
+     * 开始一个阶段计时，配合try-with-resources使用
+     *
+     * @param name      阶段名
+     * @param processor 所属处理器
+     */
+    public PhaseTimer start(String name, String processor) {
+        return new PhaseTimer(this, name, processor);
+    }
+
+    /**
+     * http调用统计
+     */
+    public HttpMetrics http() {
+        return http;
+    }
+
+    /**
+     * 生成报告，阶段按开始时间排序
+     */
+    public RunReport report() {
+        List<RunReport.Phase> sorted = new ArrayList<>(phases);
+        sorted.sort(Comparator.comparingLong(RunReport.Phase::startMillis));
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        long gcCount = 0;
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(gc.getCollectionCount(), 0);
+            gcMillis += Math.max(gc.getCollectionTime(), 0);
+        }
+        return new RunReport(startedAt.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME), sinceStartMillis(),
+                processCpuMillis(), peakHeap, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax(),
+                gcCount, gcMillis, sorted, http.report());
+    }
+
+    /**
+     * 生成报告并写入输出目录
+     *
+     * @param outputDir 输出目录
+     * @return 报告文件路径
+     */
+    public Path write(Path outputDir) throws IOException {
+        Path reportPath = outputDir.resolve(REPORT_FILE_NAME);
+        Files.createDirectories(outputDir);
+        RunReport report = report();
+        S3JacksonTools.om.writeValue(reportPath.toFile(), report);
+        logger.info("已生成运行报告[{}]，总耗时{}ms，堆内存峰值{}MB", reportPath, report.wallMillis(),
+                report.peakHeapBytes() / 1024 / 1024);
+        HttpMetrics.log(report.http());
+        return reportPath;
+    }
+
+    void record(RunReport.Phase phase) {
+        phases.add(phase);
+    }
+
+    long sinceStartMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 当前线程的cpu时间，单位纳秒，不支持（如虚拟线程）时为-1
+     */
+    static long currentThreadCpuNanos() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean.isCurrentThreadCpuTimeSupported() ? bean.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * 当前线程已分配的字节数，不支持（如虚拟线程）时为-1
+     */
+    static long currentThreadAllocatedBytes() {
+        return THREAD_MX_BEAN != null && THREAD_MX_BEAN.isThreadAllocatedMemorySupported()
+                ? THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    private static Long processCpuMillis() {
+        OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.OperatingSystemMXBean osBean && osBean.getProcessCpuTime() >= 0) {
+            return TimeUnit.NANOSECONDS.toMillis(osBean.getProcessCpuTime());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,58 @@
+package cn.citizenwiki.metrics;
+
+import java.util.List;
+
+/**
+ * 单次运行的耗时与资源报告，写入final_output随action产物上传，用于跨运行对比
+ *
+ * @param startedAt        运行开始时间（ISO-8601）
+ * @param wallMillis       运行总耗时
+ * @param processCpuMillis 进程cpu总时间，不支持时为null
+ * @param peakHeapBytes    各堆内存池峰值之和（峰值的上界）
+ * @param maxHeapBytes     最大堆内存，未限制时为-1
+ * @param gcCount          gc次数
+ * @param gcMillis         gc总耗时
+ * @param phases           各阶段记录，按开始时间排序
+ * @param http             各接口的http调用统计，按客户端与接口排序
+ */
+public record RunReport(String startedAt, long wallMillis, Long processCpuMillis, long peakHeapBytes,
+                        long maxHeapBytes, long gcCount, long gcMillis, List<Phase> phases, List<Endpoint> http) {
+
+    /**
+     * 单个阶段的记录
+     * cpu时间与分配字节数只统计执行阶段的线程，阶段内交给其他线程的工作（如并行压缩）不计入；
+     * 虚拟线程不支持按线程统计，此时为null
+     *
+     * @param name           阶段名
+     * @param processor      所属处理器，不属于处理器时为null
+     * @param thread         执行阶段的线程
+     * @param startMillis    开始时间，相对运行开始
+     * @param wallMillis     耗时
+     * @param cpuMillis      线程cpu时间
+     * @param allocatedBytes 线程分配的字节数
+     */
+    public record Phase(String name, String processor, String thread, long startMillis, long wallMillis,
+                       Long cpuMillis, Long allocatedBytes) {
+    }
+
+    /**
+     * 单个接口的http调用统计，一次调用包含其所有重试；百分位数为直方图估计值，误差约3%
+     *
+     * @param client     客户端
+     * @param endpoint   接口，路径中的数字段为{id}，存储桶为操作名
+     * @param calls      调用次数
+     * @param failures   最终失败的次数
+     * @param retries    重试次数
+     * @param throttled  限流响应次数
+     * @param p50Millis  耗时中位数
+     * @param p99Millis  耗时p99
+     * @param maxMillis  最大耗时
+     * @param totalBytes 响应体总大小（实际读取的字节数，压缩响应为压缩后大小）
+     * @param p50Bytes   响应体大小中位数
+     * @param maxBytes   最大响应体
+     */
+    public record Endpoint(String client, String endpoint, long calls, long failures, long retries, long throttled,
+                           double p50Millis, double p99Millis, double maxMillis, long totalBytes, long p50Bytes,
+                           long maxBytes) {
+    }
+}
@@ -0,0 +1,74 @@
+package cn.citizenwiki.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * git操作，fetch、push等网络操作以及本地提交
+ */
+@Name("cn.citizenwiki.GitOp")
+@Label("Git Operation")
+@Category({"CitizenWiki", "Git"})
+@Description("JGit操作")
+@StackTrace(false)
+public class GitOpEvent extends Event {
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Remote")
+    @Description("远程仓库地址（已去除凭证），本地操作为空")
+    private String remote;
+
+    @Label("Refs")
+    @Description("涉及的引用数")
+    private int refs;
+
+    @Label("Bytes")
+    @Description("写入的文件字节数，未统计时为-1")
+    @DataAmount
+    private long bytes = -1;
+
+    @Label("Success")
+    private boolean success;
+
+    /**
+     * 开始记录一次git操作，配合{@link #finish()}在finally中使用
+     *
+     * @param operation 操作名
+     * @param remote    远程仓库地址，本地操作传null
+     * @param refs      涉及的引用数
+     */
+    public static GitOpEvent start(String operation, String remote, int refs) {
+        GitOpEvent event = new GitOpEvent();
+        event.operation = operation;
+        //地址中可能带有token
+        event.remote = remote == null ? null : remote.replaceFirst("//[^/@]+@", "//");
+        event.refs = refs;
+        event.begin();
+        return event;
+    }
+
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    /**
+     * 结束并提交
+     */
+    public void finish() {
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
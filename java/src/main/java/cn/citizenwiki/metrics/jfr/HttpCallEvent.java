@@ -0,0 +1,73 @@
+package cn.citizenwiki.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * http调用，从第一次尝试开始到最后一次尝试结束（包含重试等待）
+ * paratranz、github请求在{@link cn.citizenwiki.api.BaseApi}中记录，存储桶请求在S3客户端拦截器中记录
+ */
+@Name("cn.citizenwiki.HttpCall")
+@Label("HTTP Call")
+@Category({"CitizenWiki", "Network"})
+@Description("一次api调用，包含所有重试")
+@StackTrace(false)
+public class HttpCallEvent extends Event {
+
+    @Label("Client")
+    private String client;
+
+    @Label("Method")
+    private String method;
+
+    @Label("Host")
+    private String host;
+
+    @Label("Path")
+    private String path;
+
+    @Label("Status")
+    @Description("最后一次尝试的http状态码，连接失败时为0")
+    private int status;
+
+    @Label("Bytes")
+    @Description("最后一次尝试实际读取的响应体字节数（解压前），未读取时为-1")
+    @DataAmount
+    private long bytes = -1;
+
+    @Label("Retries")
+    private int retries;
+
+    public void setClient(String client) {
+        this.client = client;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    public void setRetries(int retries) {
+        this.retries = retries;
+    }
+}
@@ -0,0 +1,74 @@
+package cn.citizenwiki.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 翻译规则匹配
+ * 每次运行有数十万次匹配，全部记录开销过大，按{@link #SAMPLE_INTERVAL}抽样记录
+ */
+@Name("cn.citizenwiki.RuleEval")
+@Label("Rule Evaluation")
+@Category({"CitizenWiki", "Rules"})
+@Description("抽样记录的翻译规则匹配")
+@StackTrace(false)
+public class RuleEvalEvent extends Event {
+
+    //平均每多少次匹配记录一次
+    public static final int SAMPLE_INTERVAL = 64;
+    //未录制时直接返回，不需要生成随机数
+    private static final EventType EVENT_TYPE = EventType.getEventType(RuleEvalEvent.class);
+
+    @Label("Rule File")
+    private String ruleFile;
+
+    @Label("Field")
+    @Description("匹配的字段，基础规则为entry，扩展规则为扩展规则名")
+    private String field;
+
+    @Label("Matched")
+    private boolean matched;
+
+    @Label("Sample Interval")
+    @Description("抽样间隔，乘以事件数即为匹配次数的估计值")
+    private int sampleInterval;
+
+    /**
+     * 抽样开始一次匹配的记录
+     *
+     * @param ruleFile 规则文件
+     * @param field    匹配的字段
+     * @return 未抽中或事件未启用时返回null
+     */
+    public static RuleEvalEvent sample(String ruleFile, String field) {
+        if (!EVENT_TYPE.isEnabled() || ThreadLocalRandom.current().nextInt(SAMPLE_INTERVAL) != 0) {
+            return null;
+        }
+        RuleEvalEvent event = new RuleEvalEvent();
+        event.ruleFile = ruleFile;
+        event.field = field;
+        event.sampleInterval = SAMPLE_INTERVAL;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * 结束并提交
+     *
+     * @param matched 匹配结果
+     */
+    public void finish(boolean matched) {
+        end();
+        this.matched = matched;
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package cn.citizenwiki.metrics.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+/**
+ * 整次运行的飞行记录
+ * 使用jdk自带的profile配置（方法采样、分配、锁、gc等）并包含本项目的自定义事件，运行结束时写入输出目录，
+ * 下载artifact后用JDK Mission Control打开即可查看
+ */
+public class RunRecording {
+
+    //记录文件名
+    public static final String RECORDING_FILE_NAME = "run.jfr";
+    //jdk自带的记录配置
+    private static final String CONFIGURATION_NAME = "profile";
+
+    private static final Logger logger = LoggerFactory.getLogger(RunRecording.class);
+
+    private final Recording recording;
+
+    private RunRecording(Recording recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * 开始记录
+     */
+    public static RunRecording start() {
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(CONFIGURATION_NAME);
+        } catch (IOException | ParseException e) {
+            throw new RuntimeException("读取飞行记录配置[" + CONFIGURATION_NAME + "]失败", e);
+        }
+        Recording recording = new Recording(configuration);
+        recording.setName("MergeAndConvert");
+        //自定义事件默认启用，这里显式启用以免被配置覆盖
+        recording.enable(StageEvent.class);
+        recording.enable(RuleEvalEvent.class);
+        recording.enable(HttpCallEvent.class);
+        recording.enable(GitOpEvent.class);
+        recording.start();
+        logger.info("已开始飞行记录，配置：[{}]", CONFIGURATION_NAME);
+        return new RunRecording(recording);
+    }
+
+    /**
+     * 停止记录并写入输出目录
+     *
+     * @param outputDir 输出目录
+     * @return 记录文件路径
+     */
+    public Path dump(Path outputDir) throws IOException {
+        Path recordingPath = outputDir.resolve(RECORDING_FILE_NAME);
+        Files.createDirectories(outputDir);
+        try (recording) {
+            recording.stop();
+            recording.dump(recordingPath);
+        }
+        logger.info("已生成飞行记录[{}]，{}KB", recordingPath, Files.size(recordingPath) / 1024);
+        return recordingPath;
+    }
+}
@@ -0,0 +1,43 @@
+package cn.citizenwiki.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 流水线阶段，由{@link cn.citizenwiki.metrics.PhaseTimer}在阶段结束时提交
+ */
+@Name("cn.citizenwiki.Stage")
+@Label("Pipeline Stage")
+@Category({"CitizenWiki", "Pipeline"})
+@Description("流水线阶段耗时，与run_report.json中的阶段一一对应")
+@StackTrace(false)
+public class StageEvent extends Event {
+
+    @Label("Name")
+    private String name;
+
+    @Label("Processor")
+    private String processor;
+
+    @Label("Bytes")
+    @Description("阶段产出的字节数，未统计时为-1")
+    @DataAmount
+    private long bytes = -1;
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public void setProcessor(String processor) {
+        this.processor = processor;
+    }
+
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+}
@@ -0,0 +1,17 @@
+package cn.citizenwiki.model.converter;
+
+import cn.citizenwiki.model.dto.paratranz.response.PZString;
+import cn.citizenwiki.model.dto.paratranz.response.PZTranslation;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+@Mapper
+public interface PZStringMapper {
+
+    PZStringMapper INSTANCE = Mappers.getMapper(PZStringMapper.class);
+
+    /**
+     * 将strings接口的词条转换为缓存中的翻译词条
+     */
+    PZTranslation toTranslation(PZString source);
+}
@@ -1,5 +1,7 @@
 package cn.citizenwiki.model.dto.paratranz.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.ZonedDateTime;
 
 public class PZFile {
@@ -21,6 +23,9 @@ public class PZFile {
     private String hash;
     private String folder;
     private Progress progress;
+    //本地缓存已增量同步到的时间点，仅存在于本地metadata中，不是paratranz返回的字段
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ZonedDateTime syncCursor;
 
     // Getters and Setters
     public Long getId() {
@@ -167,6 +172,14 @@ public class PZFile {
         this.progress = progress;
     }
 
+    public ZonedDateTime getSyncCursor() {
+        return syncCursor;
+    }
+
+    public void setSyncCursor(ZonedDateTime syncCursor) {
+        this.syncCursor = syncCursor;
+    }
+
     @Override
     public String toString() {
         return "FileInfo{" +
@@ -188,6 +201,7 @@ public class PZFile {
                 ", hash='" + hash + '\'' +
                 ", folder='" + folder + '\'' +
                 ", progress=" + progress +
+                ", syncCursor=" + syncCursor +
                 '}';
     }
 }
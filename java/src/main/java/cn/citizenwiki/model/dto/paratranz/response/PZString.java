@@ -0,0 +1,96 @@
+package cn.citizenwiki.model.dto.paratranz.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.ZonedDateTime;
+
+/**
+ * /projects/{projectId}/strings 返回的词条
+ * 比/translation返回的词条多了更新时间，用于增量同步
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PZString {
+    private Long id;
+    private String key;
+    private String original;
+    private String translation;
+    private Integer stage;
+    private String context;
+    private Long fileId;
+    private ZonedDateTime updatedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getOriginal() {
+        return original;
+    }
+
+    public void setOriginal(String original) {
+        this.original = original;
+    }
+
+    public String getTranslation() {
+        return translation;
+    }
+
+    public void setTranslation(String translation) {
+        this.translation = translation;
+    }
+
+    public Integer getStage() {
+        return stage;
+    }
+
+    public void setStage(Integer stage) {
+        this.stage = stage;
+    }
+
+    public String getContext() {
+        return context;
+    }
+
+    public void setContext(String context) {
+        this.context = context;
+    }
+
+    public Long getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(Long fileId) {
+        this.fileId = fileId;
+    }
+
+    public ZonedDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(ZonedDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "PZString{" +
+                "id=" + id +
+                ", key='" + key + '\'' +
+                ", stage=" + stage +
+                ", fileId=" + fileId +
+                ", updatedAt=" + updatedAt +
+                '}';
+    }
+}
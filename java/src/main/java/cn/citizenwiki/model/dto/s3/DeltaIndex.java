@@ -0,0 +1,100 @@
+package cn.citizenwiki.model.dto.s3;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 存储桶中增量补丁的索引，版本id为文件SHA-256的前16位
+ * 客户端计算本地文件的版本id，按from依次查找补丁，直到到达latest
+ */
+public class DeltaIndex {
+
+    //最新发布的版本id
+    private String latest;
+    //补丁列表，按发布时间升序
+    private List<Delta> deltas = new ArrayList<>();
+
+    public String getLatest() {
+        return latest;
+    }
+
+    public void setLatest(String latest) {
+        this.latest = latest;
+    }
+
+    public List<Delta> getDeltas() {
+        return deltas;
+    }
+
+    public void setDeltas(List<Delta> deltas) {
+        this.deltas = deltas;
+    }
+
+    /**
+     * 单个补丁
+     */
+    public static class Delta {
+
+        //旧版本id
+        private String from;
+        //新版本id
+        private String to;
+        //补丁的对象路径
+        private String key;
+        //补丁大小
+        private long size;
+        //新文件大小
+        private long targetSize;
+
+        public Delta() {
+        }
+
+        public Delta(String from, String to, String key, long size, long targetSize) {
+            this.from = from;
+            this.to = to;
+            this.key = key;
+            this.size = size;
+            this.targetSize = targetSize;
+        }
+
+        public String getFrom() {
+            return from;
+        }
+
+        public void setFrom(String from) {
+            this.from = from;
+        }
+
+        public String getTo() {
+            return to;
+        }
+
+        public void setTo(String to) {
+            this.to = to;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public void setSize(long size) {
+            this.size = size;
+        }
+
+        public long getTargetSize() {
+            return targetSize;
+        }
+
+        public void setTargetSize(long targetSize) {
+            this.targetSize = targetSize;
+        }
+    }
+}
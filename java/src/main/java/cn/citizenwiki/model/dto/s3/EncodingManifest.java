@@ -0,0 +1,107 @@
+package cn.citizenwiki.model.dto.s3;
+
+import java.util.List;
+
+/**
+ * 存储桶中同一文件各编码版本的清单，客户端与cdn据此选择体积最小的版本
+ */
+public class EncodingManifest {
+
+    //原始文件的对象路径
+    private String key;
+    //原始文件大小
+    private long size;
+    //原始文件SHA-256，解压后应与此一致
+    private String sha256;
+    //各编码版本，按大小升序
+    private List<Encoding> encodings;
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public List<Encoding> getEncodings() {
+        return encodings;
+    }
+
+    public void setEncodings(List<Encoding> encodings) {
+        this.encodings = encodings;
+    }
+
+    /**
+     * 单个编码版本
+     */
+    public static class Encoding {
+
+        //对象路径
+        private String key;
+        //Content-Encoding，未压缩为identity
+        private String encoding;
+        //对象大小
+        private long size;
+        //对象内容（编码后）的SHA-256
+        private String sha256;
+
+        public Encoding() {
+        }
+
+        public Encoding(String key, String encoding, long size, String sha256) {
+            this.key = key;
+            this.encoding = encoding;
+            this.size = size;
+            this.sha256 = sha256;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public String getEncoding() {
+            return encoding;
+        }
+
+        public void setEncoding(String encoding) {
+            this.encoding = encoding;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public void setSize(long size) {
+            this.size = size;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        public void setSha256(String sha256) {
+            this.sha256 = sha256;
+        }
+    }
+}
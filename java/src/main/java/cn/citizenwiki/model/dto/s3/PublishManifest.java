@@ -0,0 +1,232 @@
+package cn.citizenwiki.model.dto.s3;
+
+import java.util.List;
+
+/**
+ * 每次运行的发布清单，存储桶中所有对象上传完成后最后上传
+ * 清单存在即表示其中列出的对象都已上传完成；内容只由发布结果决定，未变化时清单的ETag也不变，客户端轮询清单即可判断是否有更新
+ */
+public class PublishManifest {
+
+    //本次发布的汉化版本
+    private Version version;
+    //各汉化版本（处理器）的输出，按分支名排序
+    private List<Variant> variants;
+
+    public Version getVersion() {
+        return version;
+    }
+
+    public void setVersion(Version version) {
+        this.version = version;
+    }
+
+    public List<Variant> getVariants() {
+        return variants;
+    }
+
+    public void setVariants(List<Variant> variants) {
+        this.variants = variants;
+    }
+
+    /**
+     * 汉化版本，对应FileVersion
+     */
+    public static class Version {
+
+        //3.24.4 PTU 98767232
+        private String name;
+        //3.24.4
+        private String gameVersion;
+        //PTU
+        private String profile;
+        //98767232
+        private long build;
+        //paratranz文件id
+        private long fileId;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getGameVersion() {
+            return gameVersion;
+        }
+
+        public void setGameVersion(String gameVersion) {
+            this.gameVersion = gameVersion;
+        }
+
+        public String getProfile() {
+            return profile;
+        }
+
+        public void setProfile(String profile) {
+            this.profile = profile;
+        }
+
+        public long getBuild() {
+            return build;
+        }
+
+        public void setBuild(long build) {
+            this.build = build;
+        }
+
+        public long getFileId() {
+            return fileId;
+        }
+
+        public void setFileId(long fileId) {
+            this.fileId = fileId;
+        }
+    }
+
+    /**
+     * 单个汉化版本的输出
+     */
+    public static class Variant {
+
+        //处理器名
+        private String processor;
+        //盒子仓库分支
+        private String branch;
+        //是否上传到了存储桶，PTU时部分版本不发布
+        private boolean published;
+        //汉化条目数
+        private long entries;
+        //global.ini大小
+        private long size;
+        //global.ini的SHA-256
+        private String sha256;
+        //global.ini的XXH64（seed为0，16位十六进制）
+        private String xxh64;
+        //上传到存储桶的对象，未发布时为空
+        private List<StoredObject> objects;
+
+        public String getProcessor() {
+            return processor;
+        }
+
+        public void setProcessor(String processor) {
+            this.processor = processor;
+        }
+
+        public String getBranch() {
+            return branch;
+        }
+
+        public void setBranch(String branch) {
+            this.branch = branch;
+        }
+
+        public boolean isPublished() {
+            return published;
+        }
+
+        public void setPublished(boolean published) {
+            this.published = published;
+        }
+
+        public long getEntries() {
+            return entries;
+        }
+
+        public void setEntries(long entries) {
+            this.entries = entries;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public void setSize(long size) {
+            this.size = size;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        public void setSha256(String sha256) {
+            this.sha256 = sha256;
+        }
+
+        public String getXxh64() {
+            return xxh64;
+        }
+
+        public void setXxh64(String xxh64) {
+            this.xxh64 = xxh64;
+        }
+
+        public List<StoredObject> getObjects() {
+            return objects;
+        }
+
+        public void setObjects(List<StoredObject> objects) {
+            this.objects = objects;
+        }
+    }
+
+    /**
+     * 存储桶中的对象
+     */
+    public static class StoredObject {
+
+        //对象路径
+        private String key;
+        //Content-Encoding，未压缩为identity
+        private String encoding;
+        //对象大小，压缩版本即为压缩后大小
+        private long size;
+        //对象内容的SHA-256
+        private String sha256;
+
+        public StoredObject() {
+        }
+
+        public StoredObject(String key, String encoding, long size, String sha256) {
+            this.key = key;
+            this.encoding = encoding;
+            this.size = size;
+            this.sha256 = sha256;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public String getEncoding() {
+            return encoding;
+        }
+
+        public void setEncoding(String encoding) {
+            this.encoding = encoding;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public void setSize(long size) {
+            this.size = size;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        public void setSha256(String sha256) {
+            this.sha256 = sha256;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package cn.citizenwiki.pipeline;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 阶段图中的单个阶段，由{@link StagePipeline}创建并安排执行
+ *
+ * @param <T> 阶段结果
+ */
+public final class Stage<T> {
+
+    private final String name;
+    private final Type type;
+    private final List<Stage<?>> dependencies;
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    private volatile Status status = Status.PENDING;
+    //相对阶段图开始时间，单位纳秒
+    private volatile long startNanos;
+    private volatile long endNanos;
+
+    Stage(String name, Type type, List<Stage<?>> dependencies) {
+        this.name = name;
+        this.type = type;
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * 获取阶段结果，在依赖此阶段的阶段中调用时阶段必定已完成
+     *
+     * @return 阶段结果
+     */
+    public T get() {
+        return future.join();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public List<Stage<?>> getDependencies() {
+        return dependencies;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * 开始执行的时间，相对阶段图开始时间，单位纳秒；未执行时为0
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * 执行结束的时间，相对阶段图开始时间，单位纳秒；未执行时为0
+     */
+    public long getEndNanos() {
+        return endNanos;
+    }
+
+    /**
+     * 执行耗时，单位纳秒
+     */
+    public long getDurationNanos() {
+        return endNanos - startNanos;
+    }
+
+    CompletableFuture<T> future() {
+        return future;
+    }
+
+    void run(Callable<T> action, long pipelineStartNanos) {
+        startNanos = System.nanoTime() - pipelineStartNanos;
+        status = Status.RUNNING;
+        T result = null;
+        Throwable error = null;
+        try {
+            result = action.call();
+        } catch (Throwable e) {
+            error = e;
+        }
+        endNanos = System.nanoTime() - pipelineStartNanos;
+        if (error == null) {
+            status = Status.SUCCESS;
+            future.complete(result);
+        } else {
+            status = Status.FAILED;
+            future.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * 依赖的阶段失败，不再执行
+     */
+    void skip(Throwable cause) {
+        status = Status.SKIPPED;
+        future.completeExceptionally(cause);
+    }
+
+    /**
+     * 阶段类型，决定在哪个线程池中执行
+     */
+    public enum Type {
+        //计算密集，在大小与cpu核数一致的线程池中执行
+        CPU,
+        //阻塞在网络或磁盘io上，每个阶段一个虚拟线程
+        IO
+    }
+
+    /**
+     * 阶段状态
+     */
+    public enum Status {
+        //等待依赖完成
+        PENDING,
+        RUNNING,
+        SUCCESS,
+        FAILED,
+        //依赖的阶段失败，未执行
+        SKIPPED
+    }
+}
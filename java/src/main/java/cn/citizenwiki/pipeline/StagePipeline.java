@@ -0,0 +1,185 @@
+package cn.citizenwiki.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按依赖关系执行的阶段图
+ * 登记阶段时即根据依赖安排执行：依赖全部完成后提交到阶段类型对应的线程池，相互没有依赖的阶段同时执行。
+ * 依赖只能引用已登记的阶段，因此不会出现环。
+ * 计算密集的阶段在cpu线程池中执行，阻塞io的阶段在虚拟线程中执行，阻塞的网络与git操作不会占用渲染所需的线程；
+ * 阶段执行期间不会等待其他阶段，线程池大小只影响并行度，不会死锁。
+ * 阶段失败时只有直接或间接依赖它的阶段不再执行，相互独立的阶段照常完成（如镜像同步、原始文件上传），
+ * {@link #await()}在所有阶段结束后才返回并抛出最先失败阶段的异常
+ */
+public class StagePipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(StagePipeline.class);
+
+    private final String name;
+    private final Executor cpuExecutor;
+    private final Executor ioExecutor;
+    private final long startNanos = System.nanoTime();
+    private final List<Stage<?>> stages = Collections.synchronizedList(new ArrayList<>());
+    //最先失败的阶段
+    private Stage<?> failedStage;
+
+    /**
+     * @param name        阶段图名称，用于日志
+     * @param cpuExecutor 执行计算密集阶段的线程池
+     * @param ioExecutor  执行io阶段的线程池
+     */
+    public StagePipeline(String name, Executor cpuExecutor, Executor ioExecutor) {
+        this.name = name;
+        this.cpuExecutor = cpuExecutor;
+        this.ioExecutor = ioExecutor;
+    }
+
+    /**
+     * 登记有结果的阶段
+     *
+     * @param name         阶段名称
+     * @param type         阶段类型
+     * @param action       阶段逻辑
+     * @param dependencies 依赖的阶段，全部成功后才执行
+     * @return 阶段，可作为其他阶段的依赖
+     */
+    public <T> Stage<T> stage(String name, Stage.Type type, Callable<T> action, Stage<?>... dependencies) {
+        Stage<T> stage = new Stage<>(name, type, List.of(dependencies));
+        stages.add(stage);
+        CompletableFuture<?>[] futures = new CompletableFuture[dependencies.length];
+        for (int i = 0; i < dependencies.length; i++) {
+            futures[i] = dependencies[i].future();
+        }
+        CompletableFuture.allOf(futures).whenComplete((ignored, error) -> {
+            if (error != null) {
+                stage.skip(unwrap(error));
+            } else {
+                Executor executor = type == Stage.Type.CPU ? cpuExecutor : ioExecutor;
+                executor.execute(() -> execute(stage, action));
+            }
+        });
+        return stage;
+    }
+
+    /**
+     * 登记没有结果的阶段
+     *
+     * @param name         阶段名称
+     * @param type         阶段类型
+     * @param action       阶段逻辑
+     * @param dependencies 依赖的阶段，全部成功后才执行
+     * @return 阶段，可作为其他阶段的依赖
+     */
+    public Stage<Void> task(String name, Stage.Type type, StageAction action, Stage<?>... dependencies) {
+        return stage(name, type, () -> {
+            action.run();
+            return null;
+        }, dependencies);
+    }
+
+    /**
+     * 等待所有阶段结束并输出各阶段耗时与关键路径
+     *
+     * @throws RuntimeException 有阶段失败时抛出，cause为最先失败阶段的异常
+     */
+    public void await() {
+        List<Stage<?>> snapshot = List.copyOf(stages);
+        CompletableFuture.allOf(snapshot.stream().map(Stage::future).toArray(CompletableFuture[]::new))
+                .exceptionally(e -> null)
+                .join();
+        logReport(snapshot);
+        Stage<?> failed;
+        synchronized (this) {
+            failed = failedStage;
+        }
+        if (failed != null) {
+            throw new RuntimeException("[" + name + "]阶段[" + failed.getName() + "]执行失败",
+                    unwrap(failed.future().exceptionNow()));
+        }
+    }
+
+    private <T> void execute(Stage<T> stage, Callable<T> action) {
+        stage.run(action, startNanos);
+        if (stage.getStatus() == Stage.Status.FAILED) {
+            //依赖此阶段的阶段在依赖完成时跳过
+            synchronized (this) {
+                if (failedStage == null) {
+                    failedStage = stage;
+                }
+            }
+            logger.warn("[{}]阶段[{}]执行失败，跳过依赖它的阶段", name, stage.getName());
+        }
+    }
+
+    /**
+     * 关键路径：从最后结束的阶段开始，每次回溯到其依赖中最后结束的阶段，即决定总耗时的阶段链
+     *
+     * @return 按执行顺序排列的阶段
+     */
+    public List<Stage<?>> criticalPath() {
+        Comparator<Stage<?>> byEnd = Comparator.comparingLong(Stage::getEndNanos);
+        List<Stage<?>> path = new ArrayList<>();
+        Stage<?> current = executed(List.copyOf(stages)).stream().max(byEnd).orElse(null);
+        while (current != null) {
+            path.addFirst(current);
+            current = executed(current.getDependencies()).stream().max(byEnd).orElse(null);
+        }
+        return path;
+    }
+
+    private void logReport(List<Stage<?>> snapshot) {
+        for (Stage<?> stage : snapshot) {
+            switch (stage.getStatus()) {
+                case SKIPPED -> logger.info("[{}]阶段[{}]因依赖失败未执行", name, stage.getName());
+                default -> logger.info("[{}]阶段[{}]{}，开始于{}ms，耗时{}ms", name, stage.getName(),
+                        stage.getStatus() == Stage.Status.SUCCESS ? "完成" : "失败",
+                        millis(stage.getStartNanos()), millis(stage.getDurationNanos()));
+            }
+        }
+        List<Stage<?>> criticalPath = criticalPath();
+        if (criticalPath.isEmpty()) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Stage<?> stage : criticalPath) {
+            if (!sb.isEmpty()) {
+                sb.append(" -> ");
+            }
+            sb.append(stage.getName()).append('(').append(millis(stage.getDurationNanos())).append("ms)");
+        }
+        logger.info("[{}]总耗时{}ms，关键路径：{}", name, millis(criticalPath.getLast().getEndNanos()), sb);
+    }
+
+    private static List<Stage<?>> executed(List<Stage<?>> stages) {
+        return stages.stream()
+                .filter(stage -> stage.getStatus() == Stage.Status.SUCCESS || stage.getStatus() == Stage.Status.FAILED)
+                .toList();
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    /**
+     * 没有结果的阶段逻辑
+     */
+    @FunctionalInterface
+    public interface StageAction {
+        void run() throws Exception;
+    }
+}
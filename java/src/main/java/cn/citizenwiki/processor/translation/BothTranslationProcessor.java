@@ -16,6 +16,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.util.concurrent.Executor;
 
 /**
  * 双语汉化处理器
@@ -41,8 +42,8 @@ public class BothTranslationProcessor extends CommonTranslationProcessor {
      * 默认构造函数
      * 使用默认的配置文件路径和全局配置提供者
      */
-    public BothTranslationProcessor() {
-        this(MATCH_RULE_CONFIG_FILE_NAME, GlobalConfig.MatcherRulesConfig::getMatcherRule);
+    public BothTranslationProcessor(Executor cpuExecutor, Executor ioExecutor) {
+        this(MATCH_RULE_CONFIG_FILE_NAME, GlobalConfig.MatcherRulesConfig::getMatcherRule, cpuExecutor, ioExecutor);
     }
 
     /**
@@ -50,9 +51,12 @@ public class BothTranslationProcessor extends CommonTranslationProcessor {
      *
      * @param configFileName 配置文件路径
      * @param configProvider 配置提供者，用于获取导入的规则文件
+     * @param cpuExecutor    压缩等计算密集任务的线程池
+     * @param ioExecutor     补丁生成等io任务的线程池
      */
-    public BothTranslationProcessor(String configFileName, ConfigProvider<TranslationRuleConfigBean> configProvider) {
-        super(GithubConfig.DUAL_BRANCH_NAME);
+    public BothTranslationProcessor(String configFileName, ConfigProvider<TranslationRuleConfigBean> configProvider,
+                                    Executor cpuExecutor, Executor ioExecutor) {
+        super(GithubConfig.DUAL_BRANCH_NAME, cpuExecutor, ioExecutor);
 
         try {
             // 加载主配置文件
@@ -65,7 +69,7 @@ public class BothTranslationProcessor extends CommonTranslationProcessor {
 
             // 创建规则处理器，使用新的构造方式
             this.ruleProcessor = TranslationRuleProcessor.fromTranslationRuleConfig(
-                    translationRuleConfigBean,
+                    configFileName, translationRuleConfigBean,
                     GlobalConfig.MatcherRulesConfig::getMatchRulesConfig
             );
 
@@ -4,13 +4,24 @@ package cn.citizenwiki.processor.translation;
 import cn.citizenwiki.api.github.GithubApi;
 import cn.citizenwiki.api.github.GithubConfig;
 import cn.citizenwiki.api.github.GithubHttpException;
-import cn.citizenwiki.api.s3.S3Api;
+import cn.citizenwiki.api.s3.S3JacksonTools;
+import cn.citizenwiki.api.s3.S3ObjectOptions;
+import cn.citizenwiki.api.s3.S3UploadService;
 import cn.citizenwiki.config.GlobalConfig;
-import cn.citizenwiki.config.JGitConfig;
+import cn.citizenwiki.metrics.PhaseTimer;
+import cn.citizenwiki.metrics.RunMetrics;
 import cn.citizenwiki.model.dto.FileVersion;
 import cn.citizenwiki.model.dto.paratranz.response.PZTranslation;
+import cn.citizenwiki.model.dto.s3.EncodingManifest;
+import cn.citizenwiki.model.dto.s3.PublishManifest;
+import cn.citizenwiki.utils.DigestUtil;
 import cn.citizenwiki.utils.FileUtil;
+import cn.citizenwiki.utils.JGitUtil;
+import cn.citizenwiki.utils.ParallelDeflate;
+import cn.citizenwiki.utils.XxHash64;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
 import org.slf4j.Logger;
 
 import java.io.BufferedWriter;
@@ -21,11 +32,24 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
 
 /**
  * 汉化处理器
@@ -36,29 +60,49 @@ public abstract class CommonTranslationProcessor implements TranslationProcessor
 
     public static final String TEMP_BRANCH_PREFIX = "temp";
     public static final String TEMP_BRANCH_SEPARATOR = "_";
+    //临时分支名末尾的时间
+    public static final DateTimeFormatter TEMP_BRANCH_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    public static final ZoneId TEMP_BRANCH_ZONE = ZoneId.of("Asia/Shanghai");
+    //gzip版本的后缀
+    public static final String GZIP_SUFFIX = ".gz";
+    //编码清单的后缀
+    public static final String ENCODING_MANIFEST_SUFFIX = ".encodings.json";
+    //编码清单中未压缩版本的编码名
+    public static final String ENCODING_IDENTITY = "identity";
     //github对应版本分支
     protected final String BRANCH_NAME;
     //文件输出的本地目录
     protected final String OUTPUT_DIR;
     //输出文件路径
     protected final String OUTPUT_PATH;
-    //要拉去以及提交的git仓库url（非scbox）
-    protected final String GIT_REMOTE;
-    protected final S3Api s3Api = S3Api.INSTANCE;
+    protected final S3UploadService s3UploadService = S3UploadService.getInstance();
     //用于生成临时分支
-    protected final ZonedDateTime startTime = ZonedDateTime.now(ZoneId.of("Asia/Shanghai"));
+    protected final ZonedDateTime startTime = ZonedDateTime.now(TEMP_BRANCH_ZONE);
     private final GithubApi githubApi = GithubApi.INSTANCE;
+    private final TempBranchPublisher tempBranchPublisher = TempBranchPublisher.INSTANCE;
+    private final IniDeltaPublisher iniDeltaPublisher = IniDeltaPublisher.getInstance();
+    private final PublishManifestCollector publishManifestCollector = PublishManifestCollector.INSTANCE;
+    //压缩使用流水线的计算线程池
+    protected final Executor cpuExecutor;
+    //补丁生成需要访问存储桶，使用流水线的io线程池
+    private final Executor ioExecutor;
     //输出文件的outputstream
     private BufferedWriter bw;
-    //jgit,用于拉取推送代码
-    private Git git;
+    //已处理的汉化条目数
+    private long entries;
     private volatile String tempBranchName;
 
-    public CommonTranslationProcessor(String branchName) {
+    /**
+     * @param branchName  盒子仓库分支名
+     * @param cpuExecutor 压缩等计算密集任务的线程池，由调用方管理生命周期
+     * @param ioExecutor  补丁生成等io任务的线程池，由调用方管理生命周期
+     */
+    public CommonTranslationProcessor(String branchName, Executor cpuExecutor, Executor ioExecutor) {
         this.BRANCH_NAME = branchName;
+        this.cpuExecutor = cpuExecutor;
+        this.ioExecutor = ioExecutor;
         this.OUTPUT_DIR = Paths.get(GlobalConfig.OUTPUT_DIR, this.BRANCH_NAME).toString();
         this.OUTPUT_PATH = Paths.get(OUTPUT_DIR, GithubConfig.CN_GLOBAL_INI_PATH).toString();
-        this.GIT_REMOTE = "https://github.com/" + GithubConfig.INSTANCE.getTargetOwner() + "/" + GithubConfig.INSTANCE.getTargetRepo();
     }
 
     @Override
@@ -67,12 +111,9 @@ public abstract class CommonTranslationProcessor implements TranslationProcessor
         try {
             //先删除目录
             FileUtil.deleteDirectory(OUTPUT_DIR);
-            //同步仓库最新内容
             getLogger().info("[{}]开始处理[{}]分支", getProcessorName(), BRANCH_NAME);
-            //复制盒子仓库到不同的目录，并迁出不同的分支的临时分支供提交pr使用
-            this.git = copySourceAndCheckout(getTempBranchName(lastFileVersion));
-            // 删除汉化文件再重新写，因为key是按照字典序排序，所以不会改动很大
-            Files.deleteIfExists(filePath);
+            //汉化文件直接写入输出目录，提交时不需要工作区
+            Files.createDirectories(filePath.getParent());
             Files.createFile(filePath);
             bw = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8, StandardOpenOption.WRITE);
             //写入bom头
@@ -86,6 +127,7 @@ public abstract class CommonTranslationProcessor implements TranslationProcessor
     @Override
     public void process(PZTranslation pzTranslation) {
         processBw(pzTranslation, this.bw);
+        entries++;
     }
 
     @Override
@@ -93,10 +135,36 @@ public abstract class CommonTranslationProcessor implements TranslationProcessor
         //关闭文件流
         closeBw();
         beforePublish();
-        //发布
+    }
+
+    @Override
+    public void publish(FileVersion lastFileVersion) {
+        PublishManifest.Variant variant = describeOutput();
         if (GlobalConfig.SW_PUBLISH && shouldPublish(lastFileVersion)) {
-            publish(lastFileVersion);
+            publishFiles(lastFileVersion, variant);
         }
+        //登记到发布清单
+        publishManifestCollector.add(variant);
+    }
+
+    /**
+     * 汇总输出文件的条目数、大小与哈希，用于发布清单
+     */
+    private PublishManifest.Variant describeOutput() {
+        Path outputPath = Paths.get(OUTPUT_PATH);
+        PublishManifest.Variant variant = new PublishManifest.Variant();
+        variant.setProcessor(getProcessorName());
+        variant.setBranch(BRANCH_NAME);
+        variant.setEntries(entries);
+        variant.setObjects(List.of());
+        try {
+            variant.setSize(Files.size(outputPath));
+            variant.setSha256(DigestUtil.sha256Hex(outputPath));
+            variant.setXxh64(XxHash64.hashHex(outputPath));
+        } catch (IOException e) {
+            throw new RuntimeException("[" + getProcessorName() + "]读取输出文件失败", e);
+        }
+        return variant;
     }
 
     protected void beforePublish() {
@@ -134,6 +202,17 @@ public abstract class CommonTranslationProcessor implements TranslationProcessor
         }
     }
 
+    public String getBranchName() {
+        return BRANCH_NAME;
+    }
+
+    /**
+     * 渲染输出的global.ini路径
+     */
+    public Path getOutputPath() {
+        return Paths.get(OUTPUT_PATH);
+    }
+
     /**
      * 子类根据版本号是否需要推送，与开关共同决定
      *
@@ -149,57 +228,173 @@ public abstract class CommonTranslationProcessor implements TranslationProcessor
      */
     protected abstract Logger getLogger();
 
-    protected void publish(FileVersion lastFileVersion) {
-        //提交并推送到fork仓库
-        boolean hasChanges = gitCommitAndPush(lastFileVersion);
-        git.close();
-        //向sctoolbox提交pull request
-        if (hasChanges) {
-            getLogger().info("[{}]开始提交[{}]分支pull request", getProcessorName(), BRANCH_NAME);
-            try {
-                githubApi.createPullRequest(lastFileVersion.getName() + " " + BRANCH_NAME, GithubConfig.INSTANCE.getTargetOwner(),
-                        getTempBranchName(lastFileVersion), GithubConfig.INSTANCE.getTargetOwner(), GithubConfig.INSTANCE.getTargetRepo(),
-                        BRANCH_NAME, lastFileVersion.getName());
-            } catch (GithubHttpException e) {
-                throw new RuntimeException(e);
-            }
-        }
-        getLogger().info("[{}]提交[{}]分支pull request成功", getProcessorName(), BRANCH_NAME);
-        //上传至cf r2
+    /**
+     * 发布到盒子仓库与存储桶
+     * 提交登记到{@link TempBranchPublisher}，推送成功后再提交pull request并上传存储桶，推送失败时存储桶保持旧版本；
+     * 汉化文件未变化时不提交，直接上传
+     *
+     * @param lastFileVersion 最新版本号
+     * @param variant         上传完成后记录上传的对象
+     */
+    protected void publishFiles(FileVersion lastFileVersion, PublishManifest.Variant variant) {
         String bucketPath = getBucketPath(lastFileVersion);
-        getLogger().info("[{}]开始上传文件至存储桶[{}]", getProcessorName(), bucketPath);
-        s3Api.putObject(bucketPath, Paths.get(OUTPUT_PATH));
-        getLogger().info("[{}]上传文件至存储桶[{}]成功", getProcessorName(), bucketPath);
+        //压缩、生成补丁与git提交同时进行，不增加总耗时
+        CompletableFuture<Path> gzipFuture = CompletableFuture.supplyAsync(this::gzipOutput, cpuExecutor);
+        CompletableFuture<Optional<IniDeltaPublisher.PreparedDelta>> deltaFuture = CompletableFuture.supplyAsync(() -> prepareDelta(bucketPath), ioExecutor);
+        ObjectId commitId = gitCommit(lastFileVersion);
+        //补丁需要在新文件上传前基于存储桶中的旧文件生成
+        Path gzipPath = gzipFuture.join();
+        Optional<IniDeltaPublisher.PreparedDelta> delta = deltaFuture.join();
+        Runnable upload = () -> {
+            variant.setObjects(uploadFiles(lastFileVersion, bucketPath, gzipPath, delta));
+            variant.setPublished(true);
+        };
+        if (commitId == null) {
+            upload.run();
+            return;
+        }
+        //与其他处理器的分支一起推送
+        tempBranchPublisher.add(getProcessorName(), getTempBranchName(lastFileVersion), commitId, () -> {
+            createPullRequest(lastFileVersion);
+            upload.run();
+        });
     }
 
     /**
-     * 复制盒子仓库到不同的目录，并迁出不同的分支
+     * 上传至cf r2，多个文件并发上传，内容未变化的文件跳过
      *
-     * @param tempBranchName 要生成的临时目录
+     * @return 上传到存储桶的对象
      */
-    private Git copySourceAndCheckout(String tempBranchName) {
-        //复制盒子仓库到当前处理器分支对应目录
+    private List<PublishManifest.StoredObject> uploadFiles(FileVersion lastFileVersion, String bucketPath, Path gzipPath,
+                                                           Optional<IniDeltaPublisher.PreparedDelta> delta) {
+        List<S3UploadService.UploadRequest> uploadRequests = new ArrayList<>();
+        getUploadFiles(lastFileVersion).forEach((r2path, path) ->
+                uploadRequests.add(new S3UploadService.UploadRequest(r2path, path, S3ObjectOptions.NONE)));
+        uploadRequests.add(new S3UploadService.UploadRequest(bucketPath + GZIP_SUFFIX, gzipPath,
+                S3ObjectOptions.gzip(S3ObjectOptions.CONTENT_TYPE_TEXT)));
+        delta.ifPresent(preparedDelta -> uploadRequests.add(new S3UploadService.UploadRequest(preparedDelta.deltaKey(),
+                preparedDelta.deltaPath(), S3ObjectOptions.NONE)));
+        getLogger().info("[{}]开始上传文件至存储桶{}", getProcessorName(),
+                uploadRequests.stream().map(S3UploadService.UploadRequest::r2path).toList());
+        List<S3UploadService.UploadResult> uploadResults;
+        try (PhaseTimer timer = RunMetrics.INSTANCE.start("upload", getProcessorName())) {
+            uploadResults = s3UploadService.uploadAll(uploadRequests);
+            timer.setBytes(uploadResults.stream().filter(result -> !result.skipped()).mapToLong(S3UploadService.UploadResult::size).sum());
+        }
+        //各编码版本上传完成后再上传清单，清单中不会出现尚未上传的对象
+        Path manifestPath = writeEncodingManifest(bucketPath, uploadResults);
+        S3UploadService.UploadRequest manifestRequest = new S3UploadService.UploadRequest(bucketPath + ENCODING_MANIFEST_SUFFIX,
+                manifestPath, new S3ObjectOptions(S3ObjectOptions.CONTENT_TYPE_JSON, null));
+        S3UploadService.UploadResult manifestResult = s3UploadService.upload(manifestRequest);
+        delta.ifPresent(this::publishDeltaIndex);
+        getLogger().info("[{}]上传文件至存储桶完成，跳过{}个未变化的文件", getProcessorName(),
+                uploadResults.stream().filter(S3UploadService.UploadResult::skipped).count());
+        List<PublishManifest.StoredObject> objects = new ArrayList<>(uploadResults.size() + 1);
+        for (int i = 0; i < uploadRequests.size(); i++) {
+            objects.add(toStoredObject(uploadRequests.get(i), uploadResults.get(i)));
+        }
+        objects.add(toStoredObject(manifestRequest, manifestResult));
+        return objects;
+    }
+
+    private static PublishManifest.StoredObject toStoredObject(S3UploadService.UploadRequest request, S3UploadService.UploadResult result) {
+        String encoding = request.options().contentEncoding() == null ? ENCODING_IDENTITY : request.options().contentEncoding();
+        return new PublishManifest.StoredObject(result.r2path(), encoding, result.size(), result.sha256());
+    }
+
+    /**
+     * 基于存储桶中当前发布的文件生成增量补丁，补丁只是优化，失败时不影响发布
+     */
+    private Optional<IniDeltaPublisher.PreparedDelta> prepareDelta(String bucketPath) {
+        try (PhaseTimer ignored = RunMetrics.INSTANCE.start("delta", getProcessorName())) {
+            return iniDeltaPublisher.prepare(bucketPath, Paths.get(OUTPUT_PATH), Paths.get(OUTPUT_DIR));
+        } catch (IOException | RuntimeException e) {
+            getLogger().warn("[{}]生成增量补丁失败，本次不发布补丁", getProcessorName(), e);
+            return Optional.empty();
+        }
+    }
+
+    private void publishDeltaIndex(IniDeltaPublisher.PreparedDelta delta) {
         try {
-            FileUtil.copyDirectory(Path.of(GithubConfig.ORIGIN_DIR), Path.of(OUTPUT_DIR));
+            iniDeltaPublisher.publishIndex(delta, Paths.get(OUTPUT_DIR));
+        } catch (IOException | RuntimeException e) {
+            getLogger().warn("[{}]更新补丁索引失败", getProcessorName(), e);
+        }
+    }
+
+    /**
+     * 将汉化文件压缩为gzip，供客户端与cdn按Content-Encoding下载
+     *
+     * @return gzip文件路径
+     */
+    private Path gzipOutput() {
+        Path gzipPath = Paths.get(OUTPUT_PATH + GZIP_SUFFIX);
+        try (PhaseTimer timer = RunMetrics.INSTANCE.start("gzip", getProcessorName())) {
+            ParallelDeflate.Result result = ParallelDeflate.gzip(Paths.get(OUTPUT_PATH), gzipPath, Deflater.BEST_COMPRESSION, cpuExecutor);
+            long gzipSize = Files.size(gzipPath);
+            timer.setBytes(gzipSize);
+            getLogger().info("[{}]gzip压缩完成，{}字节 -> {}字节", getProcessorName(), result.size(), gzipSize);
+            return gzipPath;
         } catch (IOException e) {
-            getLogger().info("[{}]复制盒子仓库到[{}]异常", getProcessorName(), Path.of(OUTPUT_DIR), e);
-            throw new RuntimeException(e);
+            throw new RuntimeException("[" + getProcessorName() + "]gzip压缩失败", e);
         }
-        // 在新目录中打开Git仓库
+    }
+
+    /**
+     * 生成编码清单，记录各编码版本的大小与哈希
+     *
+     * @param bucketPath    原始文件的存储桶路径
+     * @param uploadResults 各编码版本的上传结果
+     * @return 清单文件路径
+     */
+    private Path writeEncodingManifest(String bucketPath, List<S3UploadService.UploadResult> uploadResults) {
+        Map<String, S3UploadService.UploadResult> resultMap = uploadResults.stream()
+                .collect(Collectors.toMap(S3UploadService.UploadResult::r2path, Function.identity()));
+        S3UploadService.UploadResult identity = resultMap.get(bucketPath);
+        S3UploadService.UploadResult gzip = resultMap.get(bucketPath + GZIP_SUFFIX);
+        EncodingManifest manifest = new EncodingManifest();
+        manifest.setKey(bucketPath);
+        manifest.setSize(identity.size());
+        manifest.setSha256(identity.sha256());
+        manifest.setEncodings(Stream.of(
+                        new EncodingManifest.Encoding(identity.r2path(), ENCODING_IDENTITY, identity.size(), identity.sha256()),
+                        new EncodingManifest.Encoding(gzip.r2path(), S3ObjectOptions.ENCODING_GZIP, gzip.size(), gzip.sha256()))
+                .sorted(Comparator.comparingLong(EncodingManifest.Encoding::getSize))
+                .toList());
+        Path manifestPath = Paths.get(OUTPUT_PATH + ENCODING_MANIFEST_SUFFIX);
         try {
-            Git git = Git.open(new File(OUTPUT_DIR));
-            // 迁出待处理分支
-            git.checkout().setName("refs/remotes/origin/" + BRANCH_NAME).call();
-            //checkout
-            git.checkout()
-                    .setName(tempBranchName)
-                    .setCreateBranch(true)// 每次都是新的分支名，所以每次都新建
-                    .call();
-            return git;
-        } catch (Exception e) {
-            getLogger().info("[{}]创建分支[{}]异常", getProcessorName(), tempBranchName, e);
+            S3JacksonTools.om.writeValue(manifestPath.toFile(), manifest);
+        } catch (IOException e) {
+            throw new RuntimeException("[" + getProcessorName() + "]写入编码清单失败", e);
+        }
+        return manifestPath;
+    }
+
+    /**
+     * 需要上传至存储桶的文件，子类可追加其他文件
+     *
+     * @param lastFileVersion 最新版本号
+     * @return 存储桶路径 -> 本地文件
+     */
+    protected Map<String, Path> getUploadFiles(FileVersion lastFileVersion) {
+        Map<String, Path> uploadFiles = new LinkedHashMap<>();
+        uploadFiles.put(getBucketPath(lastFileVersion), Paths.get(OUTPUT_PATH));
+        return uploadFiles;
+    }
+
+    /**
+     * 向sctoolbox提交pull request
+     */
+    private void createPullRequest(FileVersion lastFileVersion) {
+        getLogger().info("[{}]开始提交[{}]分支pull request", getProcessorName(), BRANCH_NAME);
+        try (PhaseTimer ignored = RunMetrics.INSTANCE.start("pull_request", getProcessorName())) {
+            githubApi.createPullRequest(lastFileVersion.getName() + " " + BRANCH_NAME, GithubConfig.INSTANCE.getTargetOwner(),
+                    getTempBranchName(lastFileVersion), GithubConfig.INSTANCE.getTargetOwner(), GithubConfig.INSTANCE.getTargetRepo(),
+                    BRANCH_NAME, lastFileVersion.getName());
+        } catch (GithubHttpException e) {
             throw new RuntimeException(e);
         }
+        getLogger().info("[{}]提交[{}]分支pull request成功", getProcessorName(), BRANCH_NAME);
     }
 
     /**
@@ -212,37 +407,57 @@ public abstract class CommonTranslationProcessor implements TranslationProcessor
     private String getTempBranchName(FileVersion lastFileVersion) {
         if (Objects.isNull(tempBranchName)) {
             String majorVersion = String.join(".", "" + lastFileVersion.getFirst(), "" + lastFileVersion.getMiddle(), "" + lastFileVersion.getLast());
-            String yyyyMMddHHmm = startTime.format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
+            String yyyyMMddHHmm = startTime.format(TEMP_BRANCH_TIME_FORMATTER);
             tempBranchName = String.join(TEMP_BRANCH_SEPARATOR, TEMP_BRANCH_PREFIX, BRANCH_NAME, majorVersion, lastFileVersion.getProfile().name(), "" + lastFileVersion.getVersion(), yyyyMMddHHmm);
         }
         return tempBranchName;
     }
 
     /**
-     * 提交并推送至盒子仓库
+     * 从临时分支名中解析创建时间
+     *
+     * @param tempBranchName 临时分支名（不含refs/heads/）
+     * @return 创建时间，不是本工具生成的分支时返回empty
      */
-    private boolean gitCommitAndPush(FileVersion lastFileVersion) {
-        String tempBranchName = getTempBranchName(lastFileVersion);
-        getLogger().info("[{}]开始提交并推送[{}]分支", getProcessorName(), tempBranchName);
-        boolean hasUncommittedChanges = true;
+    public static Optional<ZonedDateTime> parseTempBranchTime(String tempBranchName) {
+        if (!tempBranchName.startsWith(TEMP_BRANCH_PREFIX + TEMP_BRANCH_SEPARATOR)) {
+            return Optional.empty();
+        }
+        //分支名本身可能包含分隔符，时间固定在最后
+        String time = tempBranchName.substring(tempBranchName.lastIndexOf(TEMP_BRANCH_SEPARATOR) + 1);
         try {
-            this.git.add().addFilepattern(GithubConfig.CN_GLOBAL_INI_PATH).call();
+            return Optional.of(LocalDateTime.parse(time, TEMP_BRANCH_TIME_FORMATTER).atZone(TEMP_BRANCH_ZONE));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 提交至盒子仓库镜像
+     * 直接在镜像中基于分支最新提交生成新提交，汉化文件未变化时不提交
+     *
+     * @return 新提交id，无修改时返回null
+     */
+    private ObjectId gitCommit(FileVersion lastFileVersion) {
+        String tempBranchName = getTempBranchName(lastFileVersion);
+        getLogger().info("[{}]开始提交[{}]分支", getProcessorName(), tempBranchName);
+        try (PhaseTimer ignored = RunMetrics.INSTANCE.start("commit", getProcessorName());
+             Git git = Git.open(new File(GithubConfig.ORIGIN_DIR))) {
+            Repository repository = git.getRepository();
+            ObjectId branchTip = repository.resolve(JGitUtil.REMOTE_BRANCH_PREFIX + BRANCH_NAME);
+            if (branchTip == null) {
+                throw new IllegalStateException("盒子仓库中不存在分支" + BRANCH_NAME);
+            }
+            ObjectId commitId = JGitUtil.commitFile(repository, branchTip, GithubConfig.CN_GLOBAL_INI_PATH,
+                    Paths.get(OUTPUT_PATH), lastFileVersion.getName());
             //如果没有改动，则不用提交
-            if (this.git.status().call().hasUncommittedChanges()) {
-                this.git.commit().setMessage(lastFileVersion.getName()).call();
-                this.git.push()
-                        .setCredentialsProvider(JGitConfig.CREDENTIALS_PROVIDER)
-                        .setRemote(GIT_REMOTE)
-                        .call();
-                getLogger().info("[{}]推送fork仓库[{}]分支成功", getProcessorName(), BRANCH_NAME);
-            } else {
-                hasUncommittedChanges = false;
-                getLogger().info("[{}]推送[{}]分支无修改，不推送", getProcessorName(), tempBranchName);
+            if (commitId == null) {
+                getLogger().info("[{}][{}]分支无修改，不推送", getProcessorName(), tempBranchName);
             }
+            return commitId;
         } catch (Exception e) {
-            getLogger().info("[{}]推送[{}]分支异常", getProcessorName(), tempBranchName, e);
+            getLogger().info("[{}]提交[{}]分支异常", getProcessorName(), tempBranchName, e);
             throw new RuntimeException(e);
         }
-        return hasUncommittedChanges;
     }
 }
@@ -4,18 +4,23 @@ package cn.citizenwiki.processor.translation;
 import cn.citizenwiki.api.github.GithubConfig;
 import cn.citizenwiki.api.s3.S3Config;
 import cn.citizenwiki.config.GlobalConfig;
+import cn.citizenwiki.metrics.PhaseTimer;
+import cn.citizenwiki.metrics.RunMetrics;
 import cn.citizenwiki.model.dto.FileVersion;
 import cn.citizenwiki.model.dto.paratranz.response.PZTranslation;
 import cn.citizenwiki.utils.FileUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.zip.Deflater;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * 全汉化处理器
@@ -24,13 +29,16 @@ public class FullTranslationProcessor extends CommonTranslationProcessor {
 
     private static final Logger logger = LoggerFactory.getLogger(FullTranslationProcessor.class);
 
-    private static final Path COMPRESS_LOCALIZATION_DIR = Paths.get("data", "Localization");
+    //压缩包中汉化文件的路径
+    private static final String ZIP_GLOBAL_INI_ENTRY = "data/Localization/" + GithubConfig.CN_GLOBAL_INI_PATH;
+    //data目录中一并打包的文件：游戏配置与术语表，压缩包中的路径与data目录一致
+    private static final List<String> ZIP_DATA_FILES = List.of("system.cfg", "terms-8340.json");
     private final Path COMPRESS_FILE_PATH = Paths.get(GlobalConfig.OUTPUT_DIR, "data.zip");
 
     // 定义规则
 
-    public FullTranslationProcessor() {
-        super(GithubConfig.FULL_BRANCH_NAME);
+    public FullTranslationProcessor(Executor cpuExecutor, Executor ioExecutor) {
+        super(GithubConfig.FULL_BRANCH_NAME, cpuExecutor, ioExecutor);
     }
 
     /**
@@ -82,25 +90,25 @@ public class FullTranslationProcessor extends CommonTranslationProcessor {
     @Override
     protected void beforePublish() {
         super.beforePublish();
-        try {
-            // 1.将汉化文件复制到指定目录
-            FileUtil.copyDirectory(Paths.get(super.OUTPUT_DIR, GithubConfig.CN_DIR), COMPRESS_LOCALIZATION_DIR.resolve(GithubConfig.CN_DIR));
-            // 2.压缩指定目录
-            FileUtil.zipDirectory(Paths.get("data"), COMPRESS_FILE_PATH, Deflater.BEST_COMPRESSION);
+        try (PhaseTimer timer = RunMetrics.INSTANCE.start("zip", getProcessorName())) {
+            // 直接从输出文件读取写入压缩包，不复制到data目录
+            Map<String, Path> entries = new LinkedHashMap<>();
+            entries.put(ZIP_GLOBAL_INI_ENTRY, Paths.get(super.OUTPUT_PATH));
+            for (String dataFile : ZIP_DATA_FILES) {
+                entries.put(GlobalConfig.DATA_DIR + "/" + dataFile, Paths.get(GlobalConfig.DATA_DIR, dataFile));
+            }
+            FileUtil.zipFiles(entries, COMPRESS_FILE_PATH, GlobalConfig.ZIP_LEVEL, cpuExecutor);
+            timer.setBytes(Files.size(COMPRESS_FILE_PATH));
         } catch (IOException e) {
             logger.error("汉化文件压缩失败", e);
         }
     }
 
     @Override
-    protected void publish(FileVersion lastFileVersion) {
-        //走父类通用逻辑
-        super.publish(lastFileVersion);
-        // 推送zip压缩到存储桶
-        String bucketPath = S3Config.ZIP_FILE_NAME;
-        getLogger().info("开始上传压缩文件[{}]至存储桶[{}]", COMPRESS_FILE_PATH, bucketPath);
-        PutObjectResponse putObjectResponse = super.s3Api.putObject(bucketPath, COMPRESS_FILE_PATH);
-        getLogger().info("上传压缩文件[{}]至存储桶[{}]结果[{}]", COMPRESS_FILE_PATH, bucketPath, putObjectResponse);
-
+    protected Map<String, Path> getUploadFiles(FileVersion lastFileVersion) {
+        Map<String, Path> uploadFiles = super.getUploadFiles(lastFileVersion);
+        // zip压缩包与global.ini一起上传到存储桶
+        uploadFiles.put(S3Config.ZIP_FILE_NAME, COMPRESS_FILE_PATH);
+        return uploadFiles;
     }
 }
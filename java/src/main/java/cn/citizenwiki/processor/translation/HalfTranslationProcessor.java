@@ -14,6 +14,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.util.concurrent.Executor;
 
 /**
  * 半汉化处理器
@@ -30,8 +31,8 @@ public class HalfTranslationProcessor extends CommonTranslationProcessor {
      * 默认构造函数
      * 使用默认的配置文件路径和全局配置提供者
      */
-    public HalfTranslationProcessor() {
-        this(MATCH_RULE_CONFIG_FILE_NAME, GlobalConfig.MatcherRulesConfig::getMatcherRule);
+    public HalfTranslationProcessor(Executor cpuExecutor, Executor ioExecutor) {
+        this(MATCH_RULE_CONFIG_FILE_NAME, GlobalConfig.MatcherRulesConfig::getMatcherRule, cpuExecutor, ioExecutor);
     }
 
     /**
@@ -39,9 +40,12 @@ public class HalfTranslationProcessor extends CommonTranslationProcessor {
      *
      * @param configFileName 配置文件路径
      * @param configProvider 配置提供者，用于获取导入的规则文件
+     * @param cpuExecutor    压缩等计算密集任务的线程池
+     * @param ioExecutor     补丁生成等io任务的线程池
      */
-    public HalfTranslationProcessor(String configFileName, ConfigProvider<TranslationRuleConfigBean> configProvider) {
-        super(GithubConfig.HALF_BRANCH_NAME);
+    public HalfTranslationProcessor(String configFileName, ConfigProvider<TranslationRuleConfigBean> configProvider,
+                                    Executor cpuExecutor, Executor ioExecutor) {
+        super(GithubConfig.HALF_BRANCH_NAME, cpuExecutor, ioExecutor);
 
         try {
             // 加载主配置文件
@@ -49,7 +53,7 @@ public class HalfTranslationProcessor extends CommonTranslationProcessor {
 
             // 创建规则处理器，支持imports机制
             this.ruleProcessor = TranslationRuleProcessor.fromTranslationRuleConfig(
-                    translationRuleConfigBean
+                    configFileName, translationRuleConfigBean
                     , GlobalConfig.MatcherRulesConfig::getMatchRulesConfig);
 
             logger.info("{}初始化完成", MATCH_RULE_CONFIG_FILE_NAME);
@@ -0,0 +1,148 @@
+package cn.citizenwiki.processor.translation;
+
+import cn.citizenwiki.api.s3.S3Api;
+import cn.citizenwiki.api.s3.S3JacksonTools;
+import cn.citizenwiki.api.s3.S3ObjectOptions;
+import cn.citizenwiki.api.s3.S3UploadService;
+import cn.citizenwiki.model.dto.s3.DeltaIndex;
+import cn.citizenwiki.utils.DigestUtil;
+import cn.citizenwiki.utils.IniDelta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * global.ini增量补丁发布
+ * 上传新文件前，从存储桶取回当前发布的文件，与新文件生成{@link IniDelta}补丁，
+ * 补丁上传到同目录下的delta/{from}-{to}，新文件上传后再更新delta/index.json
+ */
+public class IniDeltaPublisher {
+
+    //补丁目录
+    public static final String DELTA_DIR = "delta";
+    //补丁索引文件名
+    public static final String INDEX_FILE_NAME = "index.json";
+    //版本id取SHA-256的前16位
+    private static final int VERSION_ID_LENGTH = 16;
+    //索引中保留的补丁数，更早的补丁不再被客户端使用
+    private static final int MAX_INDEX_DELTAS = 30;
+
+    private static final Logger logger = LoggerFactory.getLogger(IniDeltaPublisher.class);
+
+    private final S3Api s3Api;
+    private final S3UploadService s3UploadService;
+
+    public IniDeltaPublisher(S3Api s3Api, S3UploadService s3UploadService) {
+        this.s3Api = s3Api;
+        this.s3UploadService = s3UploadService;
+    }
+
+    /**
+     * 全局实例，第一次使用时才读取环境变量
+     */
+    public static IniDeltaPublisher getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * 与存储桶中当前发布的文件比较并生成补丁，必须在新文件上传之前调用
+     *
+     * @param bucketPath 文件的存储桶路径
+     * @param file       新文件
+     * @param workDir    补丁的本地输出目录
+     * @return 补丁，存储桶中没有旧文件或内容未变化时返回空
+     */
+    public Optional<PreparedDelta> prepare(String bucketPath, Path file, Path workDir) throws IOException {
+        byte[] to = Files.readAllBytes(file);
+        String toId = versionId(to);
+        //先比较元数据中的哈希，内容未变化时不需要下载旧文件
+        String remoteSha256 = s3Api.headObject(bucketPath)
+                .map(head -> head.metadata().get(S3UploadService.SHA256_METADATA))
+                .orElse(null);
+        if (DigestUtil.sha256Hex(to).equals(remoteSha256)) {
+            return Optional.empty();
+        }
+        Optional<byte[]> previous = s3Api.getObject(bucketPath);
+        if (previous.isEmpty()) {
+            logger.info("存储桶中没有[{}]，不生成补丁", bucketPath);
+            return Optional.empty();
+        }
+        String fromId = versionId(previous.get());
+        if (fromId.equals(toId)) {
+            return Optional.empty();
+        }
+        byte[] delta = IniDelta.diff(previous.get(), to);
+        String deltaKey = deltaDir(bucketPath) + "/" + fromId + "-" + toId;
+        Path deltaPath = workDir.resolve(DELTA_DIR).resolve(fromId + "-" + toId);
+        Files.createDirectories(deltaPath.getParent());
+        Files.write(deltaPath, delta);
+        logger.info("[{}]生成补丁[{}]，{}字节（完整文件{}字节）", bucketPath, deltaKey, delta.length, to.length);
+        return Optional.of(new PreparedDelta(bucketPath, fromId, toId, deltaKey, deltaPath, delta.length, to.length));
+    }
+
+    /**
+     * 补丁与新文件上传后更新索引
+     *
+     * @param delta   已上传的补丁
+     * @param workDir 索引的本地输出目录
+     */
+    public void publishIndex(PreparedDelta delta, Path workDir) throws IOException {
+        String indexKey = deltaDir(delta.bucketPath()) + "/" + INDEX_FILE_NAME;
+        Optional<byte[]> existingIndex = s3Api.getObject(indexKey);
+        DeltaIndex index = existingIndex.isPresent()
+                ? S3JacksonTools.om.readValue(existingIndex.get(), DeltaIndex.class)
+                : new DeltaIndex();
+        List<DeltaIndex.Delta> deltas = index.getDeltas();
+        deltas.removeIf(existing -> existing.getFrom().equals(delta.from()) && existing.getTo().equals(delta.to()));
+        deltas.add(new DeltaIndex.Delta(delta.from(), delta.to(), delta.deltaKey(), delta.size(), delta.targetSize()));
+        if (deltas.size() > MAX_INDEX_DELTAS) {
+            deltas.subList(0, deltas.size() - MAX_INDEX_DELTAS).clear();
+        }
+        index.setLatest(delta.to());
+        Path indexPath = workDir.resolve(DELTA_DIR).resolve(INDEX_FILE_NAME);
+        Files.createDirectories(indexPath.getParent());
+        S3JacksonTools.om.writeValue(indexPath.toFile(), index);
+        s3UploadService.upload(new S3UploadService.UploadRequest(indexKey, indexPath,
+                new S3ObjectOptions(S3ObjectOptions.CONTENT_TYPE_JSON, null)));
+        logger.info("已更新补丁索引[{}]，最新版本[{}]", indexKey, delta.to());
+    }
+
+    /**
+     * 文件内容的版本id
+     */
+    public static String versionId(byte[] content) {
+        return DigestUtil.sha256Hex(content).substring(0, VERSION_ID_LENGTH);
+    }
+
+    /**
+     * 补丁目录，与文件在同一目录下
+     */
+    private static String deltaDir(String bucketPath) {
+        int index = bucketPath.lastIndexOf('/');
+        return index < 0 ? DELTA_DIR : bucketPath.substring(0, index) + "/" + DELTA_DIR;
+    }
+
+    /**
+     * 已生成待上传的补丁
+     *
+     * @param bucketPath 文件的存储桶路径
+     * @param from       旧版本id
+     * @param to         新版本id
+     * @param deltaKey   补丁的存储桶路径
+     * @param deltaPath  补丁的本地路径
+     * @param size       补丁大小
+     * @param targetSize 新文件大小
+     */
+    public record PreparedDelta(String bucketPath, String from, String to, String deltaKey, Path deltaPath,
+                                long size, long targetSize) {
+    }
+
+    private static class Holder {
+        private static final IniDeltaPublisher INSTANCE = new IniDeltaPublisher(S3Api.getInstance(), S3UploadService.getInstance());
+    }
+}
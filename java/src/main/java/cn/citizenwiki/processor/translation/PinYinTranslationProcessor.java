@@ -17,6 +17,7 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 
 /**
  * 拼音汉化处理器
@@ -31,8 +32,8 @@ public class PinYinTranslationProcessor extends CommonTranslationProcessor {
     private final TranslationRuleProcessor ruleProcessor;
     private static final String MATCH_RULE_CONFIG_FILE_NAME = "拼音.yaml";
 
-    public PinYinTranslationProcessor() {
-        this(MATCH_RULE_CONFIG_FILE_NAME, GlobalConfig.MatcherRulesConfig::getMatcherRule);
+    public PinYinTranslationProcessor(Executor cpuExecutor, Executor ioExecutor) {
+        this(MATCH_RULE_CONFIG_FILE_NAME, GlobalConfig.MatcherRulesConfig::getMatcherRule, cpuExecutor, ioExecutor);
     }
 
     /**
@@ -40,16 +41,19 @@ public class PinYinTranslationProcessor extends CommonTranslationProcessor {
      *
      * @param configFileName 配置文件路径
      * @param configProvider 配置提供者，用于获取导入的规则文件
+     * @param cpuExecutor    压缩等计算密集任务的线程池
+     * @param ioExecutor     补丁生成等io任务的线程池
      */
-    public PinYinTranslationProcessor(String configFileName, ConfigProvider<TranslationRuleConfigBean> configProvider) {
-        super(GithubConfig.PINYIN_BRANCH_NAME);
+    public PinYinTranslationProcessor(String configFileName, ConfigProvider<TranslationRuleConfigBean> configProvider,
+                                      Executor cpuExecutor, Executor ioExecutor) {
+        super(GithubConfig.PINYIN_BRANCH_NAME, cpuExecutor, ioExecutor);
         try {
             // 加载主配置文件
             TranslationRuleConfigBean translationRuleConfigBean = configProvider.getConfig(configFileName);
 
             // 创建规则处理器，支持imports机制
             this.ruleProcessor = TranslationRuleProcessor.fromTranslationRuleConfig(
-                    translationRuleConfigBean
+                    configFileName, translationRuleConfigBean
                     , GlobalConfig.MatcherRulesConfig::getMatchRulesConfig);
 
             logger.info("{}初始化完成", MATCH_RULE_CONFIG_FILE_NAME);
@@ -1,52 +1,89 @@
 package cn.citizenwiki.processor.translation;
 
 import cn.citizenwiki.MergeAndConvert;
+import cn.citizenwiki.metrics.PhaseTimer;
+import cn.citizenwiki.metrics.RunMetrics;
 import cn.citizenwiki.model.dto.FileVersion;
 import cn.citizenwiki.model.dto.paratranz.response.PZTranslation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * 处理器Task类，会在主流程中被调用
+ * 渲染与发布分为两个阶段，渲染只依赖合并结果，发布还依赖盒子仓库镜像；异常在阶段内记录，不影响其他处理器
  *
  * @see MergeAndConvert#fetchAndMergeTranslations(java.util.List)
  */
-public class ProcessorTask implements Runnable {
+public class ProcessorTask {
 
     private static final Logger logger = LoggerFactory.getLogger(ProcessorTask.class);
 
     //汉化处理器
     private final TranslationProcessor translationProcessor;
     //paratranz汉化文件合并后的内容
-    private final Map<String, PZTranslation> mergedTranslateMap;
+    private final Supplier<Map<String, PZTranslation>> mergedTranslateMap;
     //最新版本号
     private final FileVersion lastFileVersion;
+    //是否渲染成功
+    private volatile boolean rendered;
+    //是否执行成功
+    private volatile boolean success;
 
-    public ProcessorTask(TranslationProcessor processor, Map<String, PZTranslation> mergedTranslateMap, FileVersion lastFileVersion) {
+    /**
+     * @param mergedTranslateMap 合并后的内容，渲染开始时才获取
+     */
+    public ProcessorTask(TranslationProcessor processor, Supplier<Map<String, PZTranslation>> mergedTranslateMap, FileVersion lastFileVersion) {
         this.translationProcessor = processor;
         this.mergedTranslateMap = mergedTranslateMap;
         this.lastFileVersion = lastFileVersion;
     }
 
-    @Override
-    public void run() {
+    /**
+     * 渲染汉化文件
+     */
+    public void render() {
         logger.info("[{}]开始执行", translationProcessor.getProcessorName());
-        try {
+        try (PhaseTimer ignored = RunMetrics.INSTANCE.start("render", translationProcessor.getProcessorName())) {
             //处理前
-            translationProcessor.beforeProcess(mergedTranslateMap, lastFileVersion);
+            Map<String, PZTranslation> translations = mergedTranslateMap.get();
+            translationProcessor.beforeProcess(translations, lastFileVersion);
             //处理汉化文本
-            for (Map.Entry<String, PZTranslation> entry : mergedTranslateMap.entrySet()) {
+            for (Map.Entry<String, PZTranslation> entry : translations.entrySet()) {
                 PZTranslation cloneValue = entry.getValue().clone();
                 translationProcessor.process(cloneValue);
             }
             //处理后
             translationProcessor.afterProcess(lastFileVersion);
+            rendered = true;
+        } catch (Exception e) {
+            logger.error("[{}]执行异常", translationProcessor.getProcessorName(), e);
+        }
+    }
+
+    /**
+     * 发布渲染结果，渲染失败时不执行
+     */
+    public void publish() {
+        if (!rendered) {
+            return;
+        }
+        try {
+            translationProcessor.publish(lastFileVersion);
             logger.info("[{}]执行完成", translationProcessor.getProcessorName());
+            success = true;
         } catch (Exception e) {
             logger.error("[{}]执行异常", translationProcessor.getProcessorName(), e);
         }
+    }
+
+    public boolean isRendered() {
+        return rendered;
+    }
 
+    public boolean isSuccess() {
+        return success;
     }
-}
\ No newline at end of file
+}
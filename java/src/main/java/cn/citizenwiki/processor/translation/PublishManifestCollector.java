@@ -0,0 +1,102 @@
+package cn.citizenwiki.processor.translation;
+
+import cn.citizenwiki.api.s3.S3JacksonTools;
+import cn.citizenwiki.api.s3.S3ObjectOptions;
+import cn.citizenwiki.api.s3.S3UploadService;
+import cn.citizenwiki.model.dto.FileVersion;
+import cn.citizenwiki.model.dto.s3.PublishManifest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 发布清单汇总
+ * 各处理器完成后把自己的输出登记到这里，所有处理器与临时分支推送完成后生成manifest.json，
+ * 清单最后上传，作为本次发布完成的标记
+ */
+public class PublishManifestCollector {
+
+    public static final PublishManifestCollector INSTANCE = new PublishManifestCollector();
+    //清单的本地文件名，存储桶中按发布通道存放在<通道>/manifest.json
+    public static final String MANIFEST_FILE_NAME = "manifest.json";
+
+    private static final Logger logger = LoggerFactory.getLogger(PublishManifestCollector.class);
+
+    //已登记的汉化版本
+    private final ConcurrentLinkedQueue<PublishManifest.Variant> variants = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 登记单个汉化版本的输出
+     */
+    public void add(PublishManifest.Variant variant) {
+        variants.add(variant);
+    }
+
+    /**
+     * 根据已登记的输出生成清单，汉化版本按分支名排序，保证内容未变化时清单逐字节一致
+     *
+     * @param lastFileVersion 最新版本号
+     */
+    public PublishManifest build(FileVersion lastFileVersion) {
+        PublishManifest.Version version = new PublishManifest.Version();
+        version.setName(lastFileVersion.getName());
+        version.setGameVersion(lastFileVersion.getFirst() + "." + lastFileVersion.getMiddle() + "." + lastFileVersion.getLast());
+        version.setProfile(lastFileVersion.getProfile().name());
+        version.setBuild(lastFileVersion.getVersion());
+        version.setFileId(lastFileVersion.getId());
+        List<PublishManifest.Variant> sorted = new ArrayList<>(variants);
+        sorted.sort(Comparator.comparing(PublishManifest.Variant::getBranch));
+        PublishManifest manifest = new PublishManifest();
+        manifest.setVersion(version);
+        manifest.setVariants(sorted);
+        return manifest;
+    }
+
+    /**
+     * 生成清单并写入本地
+     *
+     * @param lastFileVersion 最新版本号
+     * @param outputDir       输出目录
+     * @return 清单文件路径
+     */
+    public Path write(FileVersion lastFileVersion, Path outputDir) throws IOException {
+        Path manifestPath = outputDir.resolve(MANIFEST_FILE_NAME);
+        Files.createDirectories(outputDir);
+        S3JacksonTools.om.writeValue(manifestPath.toFile(), build(lastFileVersion));
+        logger.info("已生成发布清单[{}]，共{}个汉化版本", manifestPath, variants.size());
+        return manifestPath;
+    }
+
+    /**
+     * 清单在存储桶中的路径：{@code <发布通道小写>/manifest.json}，如{@code live/manifest.json}、{@code ptu/manifest.json}，
+     * 与存储桶中其他目录一样使用小写（PTU与{@link cn.citizenwiki.api.s3.S3Config#PTU_DIR}目录一致），PTU与LIVE各自一份，互不覆盖
+     *
+     * @param profile 发布通道
+     * @return 存储桶路径
+     */
+    public static String manifestKey(FileVersion.Profile profile) {
+        return profile.name().toLowerCase(Locale.ROOT) + "/" + MANIFEST_FILE_NAME;
+    }
+
+    /**
+     * 上传清单，必须在其他对象全部上传完成后调用
+     *
+     * @param manifestPath    清单文件路径
+     * @param profile         发布通道
+     * @param s3UploadService 上传服务
+     */
+    public void publish(Path manifestPath, FileVersion.Profile profile, S3UploadService s3UploadService) {
+        String key = manifestKey(profile);
+        S3UploadService.UploadResult result = s3UploadService.upload(new S3UploadService.UploadRequest(key,
+                manifestPath, new S3ObjectOptions(S3ObjectOptions.CONTENT_TYPE_JSON, null)));
+        logger.info("{}发布清单[{}]", result.skipped() ? "内容未变化，跳过上传" : "成功上传", key);
+    }
+}
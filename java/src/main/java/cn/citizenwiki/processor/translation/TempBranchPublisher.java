@@ -0,0 +1,217 @@
+package cn.citizenwiki.processor.translation;
+
+import cn.citizenwiki.api.github.GithubConfig;
+import cn.citizenwiki.metrics.jfr.GitOpEvent;
+import cn.citizenwiki.utils.JGitUtil;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 临时分支批量推送与清理
+ * 各处理器把提交登记到这里，所有处理器完成后通过一次push推送全部临时分支，
+ * 只需要一次连接和一次pack协商；每个分支的推送结果单独判断，推送成功的分支再执行各自的后续操作（提交pr、上传存储桶）
+ */
+public class TempBranchPublisher {
+
+    public static final TempBranchPublisher INSTANCE = new TempBranchPublisher(new File(GithubConfig.ORIGIN_DIR));
+
+    private static final Logger logger = LoggerFactory.getLogger(TempBranchPublisher.class);
+
+    //提交所在的仓库
+    private final File repositoryDir;
+    //待推送的分支
+    private final ConcurrentLinkedQueue<PendingBranch> pendingBranches = new ConcurrentLinkedQueue<>();
+
+    public TempBranchPublisher(File repositoryDir) {
+        this.repositoryDir = repositoryDir;
+    }
+
+    /**
+     * 登记待推送的临时分支
+     *
+     * @param owner      登记者，用于日志
+     * @param branchName 临时分支名（不含refs/heads/）
+     * @param commitId   分支指向的提交
+     * @param onPushed   推送成功后执行
+     */
+    public void add(String owner, String branchName, ObjectId commitId, Runnable onPushed) {
+        pendingBranches.add(new PendingBranch(owner, Constants.R_HEADS + branchName, commitId, onPushed));
+    }
+
+    /**
+     * 推送所有已登记的分支
+     *
+     * @param remote              远程仓库地址
+     * @param credentialsProvider 凭证
+     * @return 是否全部推送成功并且后续操作全部成功
+     */
+    public boolean pushAll(String remote, CredentialsProvider credentialsProvider) {
+        Map<String, PendingBranch> branches = new LinkedHashMap<>();
+        for (PendingBranch pendingBranch; (pendingBranch = pendingBranches.poll()) != null; ) {
+            branches.put(pendingBranch.refName(), pendingBranch);
+        }
+        if (branches.isEmpty()) {
+            logger.info("没有需要推送的临时分支");
+            return true;
+        }
+        Map<String, RemoteRefUpdate.Status> statuses;
+        try (Git git = Git.open(repositoryDir)) {
+            statuses = push(git, remote, credentialsProvider, branches);
+        } catch (IOException | GitAPIException e) {
+            logger.error("推送临时分支{}异常", branches.keySet(), e);
+            return false;
+        }
+        boolean allSuccess = true;
+        for (PendingBranch pendingBranch : branches.values()) {
+            RemoteRefUpdate.Status status = statuses.get(pendingBranch.refName());
+            if (status != RemoteRefUpdate.Status.OK && status != RemoteRefUpdate.Status.UP_TO_DATE) {
+                logger.error("[{}]推送[{}]失败：{}", pendingBranch.owner(), pendingBranch.refName(), status);
+                allSuccess = false;
+                continue;
+            }
+            logger.info("[{}]推送[{}]成功", pendingBranch.owner(), pendingBranch.refName());
+            try {
+                pendingBranch.onPushed().run();
+            } catch (RuntimeException e) {
+                logger.error("[{}]推送[{}]后续操作异常", pendingBranch.owner(), pendingBranch.refName(), e);
+                allSuccess = false;
+            }
+        }
+        return allSuccess;
+    }
+
+    /**
+     * 删除远程仓库中过期的临时分支
+     * 只操作远程引用，通过一次push删除全部过期分支，不需要迁出
+     *
+     * @param remote              远程仓库地址
+     * @param credentialsProvider 凭证
+     * @param expireBefore        创建时间早于此时间的临时分支会被删除
+     * @return 是否全部删除成功
+     */
+    public boolean deleteExpired(String remote, CredentialsProvider credentialsProvider, ZonedDateTime expireBefore) {
+        try (Git git = Git.open(repositoryDir)) {
+            Collection<Ref> branches;
+            GitOpEvent lsRemoteEvent = GitOpEvent.start("ls-remote", remote, 0);
+            try {
+                branches = git.lsRemote()
+                        .setRemote(remote)
+                        .setCredentialsProvider(credentialsProvider)
+                        .setHeads(true)
+                        .call();
+                lsRemoteEvent.setSuccess(true);
+            } finally {
+                lsRemoteEvent.finish();
+            }
+            List<RefSpec> refSpecs = new ArrayList<>();
+            for (Ref branch : branches) {
+                String branchName = Repository.shortenRefName(branch.getName());
+                Optional<ZonedDateTime> createTime = CommonTranslationProcessor.parseTempBranchTime(branchName);
+                if (createTime.isEmpty()) {
+                    continue;
+                }
+                if (createTime.get().isBefore(expireBefore)) {
+                    logger.info("检测到过期临时分支[{}],将被删除", branchName);
+                    // 推送删除远程分支
+                    refSpecs.add(new RefSpec().setSource(null).setDestination(branch.getName()));
+                }
+            }
+            if (refSpecs.isEmpty()) {
+                return true;
+            }
+            boolean allSuccess = true;
+            GitOpEvent deleteEvent = GitOpEvent.start("push-delete", remote, refSpecs.size());
+            try {
+                Iterable<PushResult> pushResults = git.push()
+                        .setCredentialsProvider(credentialsProvider)
+                        .setRemote(remote)
+                        .setRefSpecs(refSpecs)
+                        .call();
+                for (PushResult pushResult : pushResults) {
+                    for (RemoteRefUpdate remoteUpdate : pushResult.getRemoteUpdates()) {
+                        if (remoteUpdate.getStatus() != RemoteRefUpdate.Status.OK && remoteUpdate.getStatus() != RemoteRefUpdate.Status.NON_EXISTING) {
+                            logger.error("删除临时分支[{}]失败：{}", remoteUpdate.getRemoteName(), remoteUpdate.getStatus());
+                            allSuccess = false;
+                        }
+                    }
+                }
+                deleteEvent.setSuccess(allSuccess);
+            } finally {
+                deleteEvent.finish();
+            }
+            logger.info("已删除{}个过期临时分支", refSpecs.size());
+            return allSuccess;
+        } catch (IOException | GitAPIException e) {
+            logger.error("删除过期临时分支异常", e);
+            return false;
+        }
+    }
+
+    /**
+     * 创建本地临时分支，一次推送全部，完成后删除本地临时分支
+     *
+     * @return 各分支的推送结果
+     */
+    private Map<String, RemoteRefUpdate.Status> push(Git git, String remote, CredentialsProvider credentialsProvider,
+                                                     Map<String, PendingBranch> branches) throws IOException, GitAPIException {
+        Repository repository = git.getRepository();
+        List<RefSpec> refSpecs = new ArrayList<>(branches.size());
+        try {
+            for (PendingBranch pendingBranch : branches.values()) {
+                JGitUtil.createBranch(repository, pendingBranch.refName(), pendingBranch.commitId());
+                refSpecs.add(new RefSpec(pendingBranch.refName() + ":" + pendingBranch.refName()));
+            }
+            logger.info("开始推送{}个临时分支", refSpecs.size());
+            GitOpEvent event = GitOpEvent.start("push", remote, refSpecs.size());
+            try {
+                Iterable<PushResult> pushResults = git.push()
+                        .setCredentialsProvider(credentialsProvider)
+                        .setRemote(remote)
+                        .setRefSpecs(refSpecs)
+                        .call();
+                Map<String, RemoteRefUpdate.Status> statuses = new LinkedHashMap<>();
+                for (PushResult pushResult : pushResults) {
+                    for (RemoteRefUpdate remoteUpdate : pushResult.getRemoteUpdates()) {
+                        statuses.put(remoteUpdate.getRemoteName(), remoteUpdate.getStatus());
+                    }
+                }
+                event.setSuccess(statuses.values().stream()
+                        .allMatch(status -> status == RemoteRefUpdate.Status.OK || status == RemoteRefUpdate.Status.UP_TO_DATE));
+                return statuses;
+            } finally {
+                event.finish();
+            }
+        } finally {
+            //仓库随缓存保留，临时分支推送后即可删除
+            for (PendingBranch pendingBranch : branches.values()) {
+                if (repository.exactRef(pendingBranch.refName()) != null) {
+                    JGitUtil.deleteBranch(repository, pendingBranch.refName());
+                }
+            }
+        }
+    }
+
+    private record PendingBranch(String owner, String refName, ObjectId commitId, Runnable onPushed) {
+    }
+}
@@ -28,5 +28,10 @@ public interface TranslationProcessor extends BaseProcessor {
      */
     void afterProcess(FileVersion lastFileVersion);
 
+    /**
+     * 发布处理结果，在afterProcess之后调用，只会调用一次；调用前盒子仓库镜像已同步
+     */
+    void publish(FileVersion lastFileVersion);
+
 
 }
@@ -0,0 +1,60 @@
+package cn.citizenwiki.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 摘要工具类
+ */
+public class DigestUtil {
+
+    private static final String SHA_256 = "SHA-256";
+
+    /**
+     * 创建SHA-256摘要器
+     *
+     * @return MessageDigest
+     */
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance(SHA_256);
+        } catch (NoSuchAlgorithmException e) {
+            //jdk必定支持SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 计算字节数组的SHA-256
+     *
+     * @param bytes 内容
+     * @return 小写十六进制字符串
+     */
+    public static String sha256Hex(byte[] bytes) {
+        return HexFormat.of().formatHex(newSha256().digest(bytes));
+    }
+
+    /**
+     * 流式计算文件的SHA-256，不会将整个文件读入内存
+     *
+     * @param path 文件路径
+     * @return 小写十六进制字符串
+     * @throws IOException 读取文件失败
+     */
+    public static String sha256Hex(Path path) throws IOException {
+        MessageDigest digest = newSha256();
+        try (InputStream is = Files.newInputStream(path)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
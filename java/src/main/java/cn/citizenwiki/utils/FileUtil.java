@@ -4,15 +4,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Comparator;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 public class FileUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(FileUtil.class);
+    //zip条目的固定修改时间，zip能表示的最早时间
+    private static final LocalDateTime ZIP_ENTRY_TIME = LocalDateTime.of(1980, 1, 1, 0, 0);
 
     public static void deleteDirectory(String dir) throws IOException {
         Path directory = Path.of(dir);
@@ -67,6 +74,7 @@ public class FileUtil {
 
     /**
      * 将指定文件夹压缩为ZIP文件，压缩包中的路径包含文件夹名称
+     * 大文件按块并行压缩，见{@link ParallelDeflateZipWriter}
      *
      * @param sourceDir        源文件夹路径
      * @param zipFile          目标ZIP文件路径
@@ -76,29 +84,42 @@ public class FileUtil {
     public static void zipDirectory(Path sourceDir, Path zipFile, int compressionLevel) throws IOException {
         // 获取文件夹的名称，用于在ZIP文件中保留该文件夹
         String folderName = sourceDir.getFileName().toString();
-        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(zipFile))) {
-            // 设置压缩级别
-            zos.setLevel(compressionLevel);
-            Files.walk(sourceDir)
-                    .filter(path -> !Files.isDirectory(path)) // 只处理文件，排除文件夹
-                    .forEach(path -> {
-                        try {
-                            // 获取相对路径，并将父文件夹名称添加到路径前
-                            Path relativePath = sourceDir.relativize(path);
-                            Path zipEntryPath = Paths.get(folderName).resolve(relativePath);
-
-                            // 创建并添加ZIP条目，保存带有文件夹名称的相对路径
-                            ZipEntry entry = new ZipEntry(zipEntryPath.toString());
-                            zos.putNextEntry(entry);  // 添加条目到压缩包
-
-                            // 将文件内容写入ZIP
-                            Files.copy(path, zos);
+        try (ParallelDeflateZipWriter zipWriter = new ParallelDeflateZipWriter(Files.newOutputStream(zipFile), compressionLevel,
+                ParallelDeflateZipWriter.DEFAULT_BLOCK_SIZE, ForkJoinPool.commonPool());
+             Stream<Path> files = Files.walk(sourceDir)) {
+            for (Path path : files.filter(path -> !Files.isDirectory(path)).sorted().toList()) { // 只处理文件，排除文件夹
+                try (InputStream is = Files.newInputStream(path)) {
+                    // 获取相对路径，并将父文件夹名称添加到路径前，zip中统一使用/分隔
+                    Path relativePath = sourceDir.relativize(path);
+                    String entryName = Paths.get(folderName).resolve(relativePath).toString().replace('\\', '/');
+                    // 将文件内容写入ZIP
+                    zipWriter.putEntry(entryName, is,
+                            LocalDateTime.ofInstant(Files.getLastModifiedTime(path).toInstant(), ZoneId.systemDefault()));
+                } catch (IOException e) {
+                    logger.error("压缩[{}]失败", path.getFileName(), e);  // 打印异常，但不阻止其他文件的压缩
+                }
+            }
+        }
+    }
 
-                            zos.closeEntry(); // 关闭当前条目
-                        } catch (IOException e) {
-                            logger.error("压缩[{}]失败", path.getFileName(), e);  // 打印异常，但不阻止其他文件的压缩
-                        }
-                    });
+    /**
+     * 将指定文件按给定的条目路径直接写入ZIP文件，不需要先复制到暂存目录
+     * 条目使用固定的修改时间，与gzip -n一致，内容相同时压缩包逐字节相同
+     *
+     * @param entries          ZIP中的条目路径（使用/分隔） -> 本地文件，按顺序写入
+     * @param zipFile          目标ZIP文件路径
+     * @param compressionLevel 压缩级别（0-9），0 表示不压缩，9 表示最佳压缩
+     * @param executor         并行压缩的线程池，由调用方管理生命周期
+     * @throws IOException 如果发生I/O异常
+     */
+    public static void zipFiles(Map<String, Path> entries, Path zipFile, int compressionLevel, Executor executor) throws IOException {
+        try (ParallelDeflateZipWriter zipWriter = new ParallelDeflateZipWriter(Files.newOutputStream(zipFile), compressionLevel,
+                ParallelDeflateZipWriter.DEFAULT_BLOCK_SIZE, executor)) {
+            for (Map.Entry<String, Path> entry : entries.entrySet()) {
+                try (InputStream is = Files.newInputStream(entry.getValue())) {
+                    zipWriter.putEntry(entry.getKey(), is, ZIP_ENTRY_TIME);
+                }
+            }
         }
     }
 }
@@ -0,0 +1,323 @@
+package cn.citizenwiki.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * global.ini按key的增量补丁
+ * 文件按行切分（行包含换行符），每行以第一个=之前的内容为key，补丁按顺序描述如何由旧文件得到新文件：
+ * <ul>
+ *     <li>KEEP n：复制旧文件接下来的n行</li>
+ *     <li>SKIP n：跳过旧文件接下来的n行（删除）</li>
+ *     <li>INSERT 行：插入新行（新增）</li>
+ *     <li>REPLACE 值：旧文件当前行保留key，替换key之后的内容（修改），然后跳过该行</li>
+ * </ul>
+ * 补丁格式：magic(4) + 版本(1) + 旧文件SHA-256(32) + 新文件SHA-256(32) + zlib压缩的操作流，
+ * 操作流中数值使用无符号LEB128编码，以END结束。按字节处理，应用补丁后的结果与新文件逐字节一致
+ */
+public class IniDelta {
+
+    private static final byte[] MAGIC = {'S', 'C', 'L', 'D'};
+    private static final int FORMAT_VERSION = 1;
+    private static final int SHA256_LENGTH = 32;
+    private static final int OP_END = 0;
+    private static final int OP_KEEP = 1;
+    private static final int OP_SKIP = 2;
+    private static final int OP_INSERT = 3;
+    private static final int OP_REPLACE = 4;
+
+    private IniDelta() {
+    }
+
+    /**
+     * 生成补丁
+     *
+     * @param from 旧文件内容
+     * @param to   新文件内容
+     * @return 补丁
+     */
+    public static byte[] diff(byte[] from, byte[] to) {
+        List<Line> oldLines = splitLines(from);
+        List<Line> newLines = splitLines(to);
+        //各key在新文件中的位置，用于判断旧行的key在新文件后面是否还会出现
+        Map<String, Deque<Integer>> newPositions = positions(newLines);
+
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        delta.writeBytes(MAGIC);
+        delta.write(FORMAT_VERSION);
+        delta.writeBytes(DigestUtil.newSha256().digest(from));
+        delta.writeBytes(DigestUtil.newSha256().digest(to));
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (OpWriter ops = new OpWriter(new DeflaterOutputStream(delta, deflater))) {
+            int i = 0;
+            int j = 0;
+            while (i < oldLines.size() || j < newLines.size()) {
+                Line oldLine = i < oldLines.size() ? oldLines.get(i) : null;
+                Line newLine = j < newLines.size() ? newLines.get(j) : null;
+                if (oldLine != null && newLine != null && oldLine.key().equals(newLine.key())) {
+                    if (Arrays.equals(oldLine.bytes(), newLine.bytes())) {
+                        ops.keep();
+                    } else {
+                        ops.replace(Arrays.copyOfRange(newLine.bytes(), newLine.keyLength(), newLine.bytes().length));
+                    }
+                    i++;
+                    j++;
+                } else if (oldLine != null && (newLine == null || !remains(newPositions, oldLine.key(), j))) {
+                    //旧行的key在新文件后面不再出现，删除
+                    ops.skip();
+                    i++;
+                } else {
+                    //新行的key在旧文件后面不再出现，或两侧顺序不同，插入新行
+                    ops.insert(newLine.bytes());
+                    j++;
+                }
+            }
+        } catch (IOException e) {
+            //只写入内存，不会发生
+            throw new IllegalStateException(e);
+        } finally {
+            deflater.end();
+        }
+        return delta.toByteArray();
+    }
+
+    /**
+     * 应用补丁
+     *
+     * @param from  旧文件内容，必须与生成补丁时的旧文件一致
+     * @param delta 补丁
+     * @return 新文件内容
+     * @throws IOException 补丁格式错误，或旧文件与补丁不匹配
+     */
+    public static byte[] apply(byte[] from, byte[] delta) throws IOException {
+        DataInputStream header = new DataInputStream(new ByteArrayInputStream(delta));
+        byte[] magic = new byte[MAGIC.length];
+        header.readFully(magic);
+        if (!Arrays.equals(MAGIC, magic) || header.readUnsignedByte() != FORMAT_VERSION) {
+            throw new IOException("不是支持的补丁格式");
+        }
+        byte[] fromSha256 = new byte[SHA256_LENGTH];
+        byte[] toSha256 = new byte[SHA256_LENGTH];
+        header.readFully(fromSha256);
+        header.readFully(toSha256);
+        if (!MessageDigest.isEqual(fromSha256, DigestUtil.newSha256().digest(from))) {
+            throw new IOException("旧文件与补丁不匹配");
+        }
+        List<Line> oldLines = splitLines(from);
+        ByteArrayOutputStream to = new ByteArrayOutputStream(from.length + delta.length);
+        int cursor = 0;
+        try (InputStream ops = new InflaterInputStream(header)) {
+            while (true) {
+                int op = ops.read();
+                switch (op) {
+                    case OP_END -> {
+                        if (cursor != oldLines.size()) {
+                            throw new IOException("补丁未处理完旧文件的全部行");
+                        }
+                        byte[] result = to.toByteArray();
+                        if (!MessageDigest.isEqual(toSha256, DigestUtil.newSha256().digest(result))) {
+                            throw new IOException("应用补丁后的内容与预期不一致");
+                        }
+                        return result;
+                    }
+                    case OP_KEEP -> {
+                        int count = readCount(ops, oldLines.size() - cursor);
+                        for (int k = 0; k < count; k++) {
+                            to.writeBytes(oldLines.get(cursor++).bytes());
+                        }
+                    }
+                    case OP_SKIP -> cursor += readCount(ops, oldLines.size() - cursor);
+                    case OP_INSERT -> to.writeBytes(readBytes(ops));
+                    case OP_REPLACE -> {
+                        requireLines(1, oldLines.size() - cursor);
+                        Line oldLine = oldLines.get(cursor++);
+                        to.write(oldLine.bytes(), 0, oldLine.keyLength());
+                        to.writeBytes(readBytes(ops));
+                    }
+                    case -1 -> throw new EOFException("补丁不完整");
+                    default -> throw new IOException("未知的补丁操作：" + op);
+                }
+            }
+        }
+    }
+
+    /**
+     * 按\n切分，每行包含自身的换行符（含\r\n中的\r），最后一行可以没有换行符
+     */
+    private static List<Line> splitLines(byte[] content) {
+        List<Line> lines = new ArrayList<>();
+        int start = 0;
+        while (start < content.length) {
+            int end = start;
+            int keyLength = -1;
+            while (end < content.length && content[end] != '\n') {
+                if (keyLength < 0 && content[end] == '=') {
+                    keyLength = end - start;
+                }
+                end++;
+            }
+            if (end < content.length) {
+                end++; //包含\n
+            }
+            byte[] bytes = Arrays.copyOfRange(content, start, end);
+            //没有=的行整行作为key；key按ISO-8859-1解码，与字节一一对应
+            int length = keyLength < 0 ? bytes.length : keyLength;
+            lines.add(new Line(new String(bytes, 0, length, StandardCharsets.ISO_8859_1), length, bytes));
+            start = end;
+        }
+        return lines;
+    }
+
+    private static Map<String, Deque<Integer>> positions(List<Line> lines) {
+        Map<String, Deque<Integer>> positions = new HashMap<>();
+        for (int index = 0; index < lines.size(); index++) {
+            positions.computeIfAbsent(lines.get(index).key(), key -> new ArrayDeque<>()).add(index);
+        }
+        return positions;
+    }
+
+    /**
+     * key在index及之后是否还会出现
+     */
+    private static boolean remains(Map<String, Deque<Integer>> positions, String key, int index) {
+        Deque<Integer> deque = positions.get(key);
+        if (deque == null) {
+            return false;
+        }
+        while (!deque.isEmpty() && deque.peekFirst() < index) {
+            deque.pollFirst();
+        }
+        return !deque.isEmpty();
+    }
+
+    private static int readCount(InputStream is, int remaining) throws IOException {
+        return requireLines(readVarint(is), remaining);
+    }
+
+    private static int requireLines(int count, int remaining) throws IOException {
+        if (count < 0 || count > remaining) {
+            throw new IOException("补丁引用的行超出旧文件范围");
+        }
+        return count;
+    }
+
+    private static byte[] readBytes(InputStream is) throws IOException {
+        int length = readVarint(is);
+        byte[] bytes = is.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("补丁不完整");
+        }
+        return bytes;
+    }
+
+    private static int readVarint(InputStream is) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = is.read();
+            if (b < 0) {
+                throw new EOFException("补丁不完整");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("补丁中的数值过大");
+    }
+
+    /**
+     * @param key       key
+     * @param keyLength key的字节数，REPLACE时保留这部分
+     * @param bytes     整行内容，包含换行符
+     */
+    private record Line(String key, int keyLength, byte[] bytes) {
+    }
+
+    /**
+     * 写入操作流，连续的KEEP/SKIP合并为一条
+     */
+    private static class OpWriter implements AutoCloseable {
+
+        private final OutputStream out;
+        private int pendingOp = OP_END;
+        private int pendingCount;
+
+        private OpWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        void keep() throws IOException {
+            pending(OP_KEEP);
+        }
+
+        void skip() throws IOException {
+            pending(OP_SKIP);
+        }
+
+        void insert(byte[] line) throws IOException {
+            flushPending();
+            out.write(OP_INSERT);
+            writeBytes(line);
+        }
+
+        void replace(byte[] value) throws IOException {
+            flushPending();
+            out.write(OP_REPLACE);
+            writeBytes(value);
+        }
+
+        private void pending(int op) throws IOException {
+            if (pendingOp != op) {
+                flushPending();
+                pendingOp = op;
+            }
+            pendingCount++;
+        }
+
+        private void flushPending() throws IOException {
+            if (pendingCount > 0) {
+                out.write(pendingOp);
+                writeVarint(pendingCount);
+            }
+            pendingOp = OP_END;
+            pendingCount = 0;
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            writeVarint(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeVarint(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushPending();
+            out.write(OP_END);
+            out.close();
+        }
+    }
+}
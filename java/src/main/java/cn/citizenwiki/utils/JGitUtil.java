@@ -0,0 +1,260 @@
+package cn.citizenwiki.utils;
+
+import cn.citizenwiki.metrics.jfr.GitOpEvent;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEditor;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * jgit相关工具
+ */
+public class JGitUtil {
+
+    //镜像中保存分支的前缀
+    public static final String REMOTE_BRANCH_PREFIX = Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/";
+    private static final Logger logger = LoggerFactory.getLogger(JGitUtil.class);
+    //触发回收的松散对象数，与git gc.auto默认值一致
+    static final long GC_LOOSE_OBJECTS = 6700;
+    //触发回收的松散对象大小，汉化文件每个版本约10MB，按数量很难达到阈值
+    static final long GC_LOOSE_BYTES = 256L * 1024 * 1024;
+    //触发回收的包文件数，每次拉取新增一个包
+    static final long GC_PACK_FILES = 10;
+
+    private JGitUtil() {
+    }
+
+    /**
+     * 同步本地镜像（裸仓库）
+     * 镜像不存在时新建，存在时增量fetch并清理不再跟踪的分支与不可达的对象；镜像损坏时删除后重新拉取。
+     * 只拉取指定分支的最新提交，分支保存为refs/remotes/origin/{branch}
+     *
+     * @param uri       仓库地址
+     * @param directory 镜像目录
+     * @param branches  分支名（不含refs/heads/）
+     * @return 镜像仓库
+     */
+    public static Git syncMirror(String uri, File directory, Collection<String> branches) throws GitAPIException, IOException {
+        if (directory.exists()) {
+            try {
+                return fetchMirror(Git.open(directory), uri, branches);
+            } catch (IOException | GitAPIException | RuntimeException e) {
+                logger.warn("镜像[{}]不可用，将重新拉取", directory, e);
+                FileUtil.deleteDirectory(directory.getPath());
+            }
+        }
+        return fetchMirror(Git.init().setBare(true).setDirectory(directory).call(), uri, branches);
+    }
+
+    private static Git fetchMirror(Git git, String uri, Collection<String> branches) throws GitAPIException, IOException {
+        try {
+            List<RefSpec> refSpecs = branches.stream()
+                    .map(branch -> new RefSpec("+" + Constants.R_HEADS + branch + ":" + REMOTE_BRANCH_PREFIX + branch))
+                    .toList();
+            GitOpEvent event = GitOpEvent.start("fetch", uri, refSpecs.size());
+            try {
+                git.fetch()
+                        .setRemote(uri)
+                        .setRefSpecs(refSpecs)
+                        .setDepth(1)
+                        .call();
+                event.setSuccess(true);
+            } finally {
+                event.finish();
+            }
+            Repository repository = git.getRepository();
+            //清理不再需要的分支，相当于只跟踪指定分支时的fetch --prune
+            for (Ref ref : repository.getRefDatabase().getRefsByPrefix(REMOTE_BRANCH_PREFIX)) {
+                if (!branches.contains(ref.getName().substring(REMOTE_BRANCH_PREFIX.length()))) {
+                    deleteBranch(repository, ref.getName());
+                }
+            }
+            collectGarbage(git);
+            //检查各分支的提交与根目录树是否完整
+            try (RevWalk revWalk = new RevWalk(repository)) {
+                for (String branch : branches) {
+                    ObjectId tip = repository.resolve(REMOTE_BRANCH_PREFIX + branch);
+                    if (tip == null) {
+                        throw new IOException("镜像中缺少分支" + branch);
+                    }
+                    revWalk.parseTree(revWalk.parseCommit(tip).getTree());
+                }
+            }
+            return git;
+        } catch (IOException | GitAPIException | RuntimeException e) {
+            git.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 松散对象或包文件达到阈值时回收镜像中不可达的对象并重新打包
+     * 临时分支的提交推送后不再被任何引用指向，浅拉取移动分支后旧提交也不再需要，不回收时镜像只增不减；
+     * 每次拉取新增一个包文件，按阈值回收可以避免每次同步都重写整个镜像
+     *
+     * @param git 镜像仓库
+     */
+    static void collectGarbage(Git git) throws GitAPIException {
+        Properties statistics = git.gc().getStatistics();
+        if (statistic(statistics, "numberOfLooseObjects") < GC_LOOSE_OBJECTS
+                && statistic(statistics, "sizeOfLooseObjects") < GC_LOOSE_BYTES
+                && statistic(statistics, "numberOfPackFiles") < GC_PACK_FILES) {
+            logger.debug("镜像未达到回收阈值：{}", statistics);
+            return;
+        }
+        logger.info("镜像达到回收阈值，开始回收：{}", statistics);
+        gc(git);
+    }
+
+    /**
+     * 回收镜像中不可达的对象并重新打包
+     * 镜像只有本进程在写，同步时本次运行还没有生成新对象，可以立即清理所有不可达对象与旧包文件
+     *
+     * @param git 镜像仓库
+     */
+    private static void gc(Git git) throws GitAPIException {
+        //不可达对象与旧包文件默认分别保留两周与一小时，旧包中不可达的对象还会先解包为松散对象，立即清理时都不保留
+        StoredConfig config = git.getRepository().getConfig();
+        config.setString(ConfigConstants.CONFIG_GC_SECTION, null, ConfigConstants.CONFIG_KEY_PRUNEEXPIRE, "now");
+        config.setString(ConfigConstants.CONFIG_GC_SECTION, null, ConfigConstants.CONFIG_KEY_PRUNEPACKEXPIRE, "now");
+        GitOpEvent event = GitOpEvent.start("gc", null, 0);
+        try {
+            Properties statistics = git.gc().call();
+            logger.debug("镜像回收完成：{}", statistics);
+            event.setSuccess(true);
+        } finally {
+            event.finish();
+        }
+    }
+
+    private static long statistic(Properties statistics, String name) {
+        return statistics.get(name) instanceof Number number ? number.longValue() : 0;
+    }
+
+    /**
+     * 不经过工作区，直接在parent的基础上替换单个文件生成新提交
+     * 新提交只写入对象库，不更新任何引用
+     *
+     * @param repository 仓库
+     * @param parent     父提交，为null时生成只包含此文件的根提交
+     * @param path       仓库中的文件路径
+     * @param file       新文件
+     * @param message    提交信息
+     * @return 新提交id，文件内容与父提交一致时返回null
+     */
+    public static ObjectId commitFile(Repository repository, ObjectId parent, String path, Path file, String message) throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        GitOpEvent event = GitOpEvent.start("commit", null, 1);
+        event.setBytes(content.length);
+        try (ObjectInserter inserter = repository.newObjectInserter();
+             ObjectReader reader = inserter.newReader();
+             RevWalk revWalk = new RevWalk(reader)) {
+            RevCommit parentCommit = parent == null ? null : revWalk.parseCommit(parent);
+            ObjectId blobId = inserter.idFor(Constants.OBJ_BLOB, content);
+            if (parentCommit != null) {
+                try (TreeWalk treeWalk = TreeWalk.forPath(reader, path, parentCommit.getTree())) {
+                    if (treeWalk != null && blobId.equals(treeWalk.getObjectId(0))) {
+                        event.setSuccess(true);
+                        return null;
+                    }
+                }
+            }
+            inserter.insert(Constants.OBJ_BLOB, content);
+            //在内存中基于父提交的树替换文件
+            DirCache dirCache = DirCache.newInCore();
+            DirCacheBuilder builder = dirCache.builder();
+            if (parentCommit != null) {
+                builder.addTree(new byte[0], DirCacheEntry.STAGE_0, reader, parentCommit.getTree());
+            }
+            builder.finish();
+            DirCacheEditor editor = dirCache.editor();
+            editor.add(new DirCacheEditor.PathEdit(path) {
+                @Override
+                public void apply(DirCacheEntry entry) {
+                    entry.setFileMode(FileMode.REGULAR_FILE);
+                    entry.setObjectId(blobId);
+                }
+            });
+            editor.finish();
+            ObjectId treeId = dirCache.writeTree(inserter);
+
+            PersonIdent ident = new PersonIdent(repository);
+            CommitBuilder commitBuilder = new CommitBuilder();
+            commitBuilder.setTreeId(treeId);
+            if (parentCommit != null) {
+                commitBuilder.setParentId(parentCommit);
+            }
+            commitBuilder.setAuthor(ident);
+            commitBuilder.setCommitter(ident);
+            commitBuilder.setMessage(message);
+            ObjectId commitId = inserter.insert(commitBuilder);
+            inserter.flush();
+            event.setSuccess(true);
+            return commitId;
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * 创建分支，分支已存在时失败
+     *
+     * @param repository 仓库
+     * @param refName    完整引用名
+     * @param objectId   指向的提交
+     */
+    public static void createBranch(Repository repository, String refName, ObjectId objectId) throws IOException {
+        RefUpdate refUpdate = repository.updateRef(refName);
+        refUpdate.setNewObjectId(objectId);
+        refUpdate.setExpectedOldObjectId(ObjectId.zeroId());
+        checkRefUpdate(refUpdate.update(), refName);
+    }
+
+    /**
+     * 删除分支
+     *
+     * @param repository 仓库
+     * @param refName    完整引用名
+     */
+    public static void deleteBranch(Repository repository, String refName) throws IOException {
+        RefUpdate refUpdate = repository.updateRef(refName);
+        refUpdate.setForceUpdate(true);
+        checkRefUpdate(refUpdate.delete(), refName);
+    }
+
+    private static void checkRefUpdate(RefUpdate.Result result, String refName) throws IOException {
+        switch (result) {
+            case NEW, FORCED, FAST_FORWARD, NO_CHANGE -> {
+            }
+            default -> throw new IOException("更新[" + refName + "]失败：" + result);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package cn.citizenwiki.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 并行deflate（类似pigz）
+ * 输入按块切分，各块使用独立的Deflater并行压缩，并以前一块末尾32KB作为预设字典，
+ * 非末尾块以SYNC_FLUSH结束对齐到字节边界，拼接后即为一个完整的deflate流
+ */
+public class ParallelDeflate {
+
+    //默认块大小
+    public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+    //deflate窗口大小，即可用字典的最大长度
+    public static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int GZIP_MAGIC = 0x8b1f;
+    //gzip头中的操作系统：未知
+    private static final int GZIP_OS_UNKNOWN = 255;
+
+    private ParallelDeflate() {
+    }
+
+    /**
+     * 并行压缩为原始deflate流（无zlib/gzip头）
+     *
+     * @param is        输入，读取到末尾，不会关闭
+     * @param level     压缩级别（0-9）
+     * @param blockSize 块大小，不小于32KB
+     * @param executor  执行压缩的线程池
+     * @return 压缩结果
+     */
+    public static Result deflate(InputStream is, int level, int blockSize, Executor executor) throws IOException {
+        if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("压缩级别必须在0-9之间：" + level);
+        }
+        if (blockSize < DICTIONARY_SIZE) {
+            throw new IllegalArgumentException("块大小不能小于" + DICTIONARY_SIZE + "：" + blockSize);
+        }
+        //读取时顺序计算crc，同时把各块提交到线程池压缩
+        CRC32 crc32 = new CRC32();
+        List<CompletableFuture<byte[]>> blocks = new ArrayList<>();
+        long size = 0;
+        byte[] previous = null;
+        byte[] current = is.readNBytes(blockSize);
+        while (true) {
+            byte[] next = current.length < blockSize ? new byte[0] : is.readNBytes(blockSize);
+            boolean last = next.length == 0;
+            crc32.update(current);
+            size += current.length;
+            byte[] block = current;
+            byte[] dictionary = previous == null ? null
+                    : Arrays.copyOfRange(previous, Math.max(0, previous.length - DICTIONARY_SIZE), previous.length);
+            blocks.add(CompletableFuture.supplyAsync(() -> deflateBlock(block, dictionary, level, last), executor));
+            if (last) {
+                break;
+            }
+            previous = current;
+            current = next;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try {
+            for (CompletableFuture<byte[]> block : blocks) {
+                compressed.write(block.join());
+            }
+        } catch (CompletionException e) {
+            throw new IOException("压缩失败", e.getCause());
+        }
+        return new Result(compressed.toByteArray(), (int) crc32.getValue(), size);
+    }
+
+    /**
+     * 并行压缩文件为gzip，输出与gzip -n一致的固定头（不含文件名与时间），内容相同时结果相同
+     *
+     * @param source   源文件
+     * @param target   目标文件
+     * @param level    压缩级别（0-9）
+     * @param executor 执行压缩的线程池
+     * @return 压缩结果
+     */
+    public static Result gzip(Path source, Path target, int level, Executor executor) throws IOException {
+        Result result;
+        try (InputStream is = Files.newInputStream(source)) {
+            result = deflate(is, level, DEFAULT_BLOCK_SIZE, executor);
+        }
+        try (OutputStream os = Files.newOutputStream(target)) {
+            ByteBuffer header = ByteBuffer.allocate(10).order(ByteOrder.LITTLE_ENDIAN);
+            header.putShort((short) GZIP_MAGIC);
+            header.put((byte) Deflater.DEFLATED);
+            header.put((byte) 0); //标志
+            header.putInt(0); //修改时间
+            header.put((byte) (level == Deflater.BEST_COMPRESSION ? 2 : level == Deflater.BEST_SPEED ? 4 : 0)); //额外标志
+            header.put((byte) GZIP_OS_UNKNOWN);
+            os.write(header.array());
+            os.write(result.data());
+            ByteBuffer trailer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            trailer.putInt(result.crc());
+            trailer.putInt((int) result.size()); //原始大小对2^32取模
+            os.write(trailer.array());
+        }
+        return result;
+    }
+
+    /**
+     * 压缩单个块，以前一块末尾作为预设字典
+     *
+     * @param block      块内容
+     * @param dictionary 预设字典，第一块为null
+     * @param level      压缩级别
+     * @param last       是否为最后一块，最后一块设置BFINAL结束deflate流
+     * @return 原始deflate数据
+     */
+    private static byte[] deflateBlock(byte[] block, byte[] dictionary, int level, boolean last) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(block);
+            if (last) {
+                deflater.finish();
+            }
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(block.length / 2 + 64);
+            byte[] buffer = new byte[16 * 1024];
+            int flush = last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH;
+            while (true) {
+                int length = deflater.deflate(buffer, 0, buffer.length, flush);
+                compressed.write(buffer, 0, length);
+                //缓冲区未写满说明本次flush已全部输出
+                if (last ? deflater.finished() : length < buffer.length) {
+                    break;
+                }
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 压缩结果
+     *
+     * @param data 原始deflate数据
+     * @param crc  原始内容的CRC32
+     * @param size 原始内容大小
+     */
+    public record Result(byte[] data, int crc, long size) {
+    }
+}
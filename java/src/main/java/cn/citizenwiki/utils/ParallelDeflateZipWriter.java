@@ -0,0 +1,225 @@
+package cn.citizenwiki.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 并行deflate的zip写入器（类似pigz）
+ * 每个条目通过{@link ParallelDeflate}按块并行压缩，输出标准zip，现有客户端均可解压。
+ * 条目压缩完成后才写入，本地文件头中直接带有crc与大小，不使用数据描述符；不支持zip64（单文件及压缩包需小于4GB）
+ */
+public class ParallelDeflateZipWriter implements Closeable {
+
+    //默认块大小
+    public static final int DEFAULT_BLOCK_SIZE = ParallelDeflate.DEFAULT_BLOCK_SIZE;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    //解压所需版本2.0（deflate）
+    private static final short VERSION = 20;
+    //通用标志位11：文件名使用utf-8
+    private static final short FLAG_UTF8 = 1 << 11;
+    private static final short METHOD_STORED = 0;
+    private static final short METHOD_DEFLATED = 8;
+    private static final long MAX_ZIP32 = 0xFFFFFFFFL;
+
+    private final OutputStream out;
+    private final int level;
+    private final int blockSize;
+    private final Executor executor;
+    private final List<CentralEntry> centralEntries = new ArrayList<>();
+    private final Set<String> names = new HashSet<>();
+    private long offset;
+    private boolean closed;
+
+    /**
+     * @param out       输出流，关闭写入器时一并关闭
+     * @param level     压缩级别（0-9），0表示不压缩，1最快，9压缩率最高
+     * @param blockSize 并行压缩的块大小，块越小并行度越高，压缩率略有下降
+     * @param executor  执行压缩的线程池
+     */
+    public ParallelDeflateZipWriter(OutputStream out, int level, int blockSize, Executor executor) {
+        if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("压缩级别必须在0-9之间：" + level);
+        }
+        if (blockSize < ParallelDeflate.DICTIONARY_SIZE) {
+            throw new IllegalArgumentException("块大小不能小于" + ParallelDeflate.DICTIONARY_SIZE + "：" + blockSize);
+        }
+        this.out = out;
+        this.level = level;
+        this.blockSize = blockSize;
+        this.executor = executor;
+    }
+
+    /**
+     * 写入一个条目
+     *
+     * @param name 条目路径，使用/分隔
+     * @param is   条目内容，读取到末尾，不会关闭
+     */
+    public void putEntry(String name, InputStream is) throws IOException {
+        putEntry(name, is, LocalDateTime.now());
+    }
+
+    /**
+     * 写入一个条目
+     *
+     * @param name         条目路径，使用/分隔
+     * @param is           条目内容，读取到末尾，不会关闭
+     * @param lastModified 条目修改时间
+     */
+    public void putEntry(String name, InputStream is, LocalDateTime lastModified) throws IOException {
+        if (closed) {
+            throw new IOException("压缩包已关闭");
+        }
+        if (!names.add(name)) {
+            throw new IOException("重复的条目：" + name);
+        }
+        short method;
+        ParallelDeflate.Result result;
+        if (level == Deflater.NO_COMPRESSION) {
+            //不压缩时按stored写入，避免deflate存储块带来的额外开销
+            method = METHOD_STORED;
+            byte[] content = is.readAllBytes();
+            CRC32 crc32 = new CRC32();
+            crc32.update(content);
+            result = new ParallelDeflate.Result(content, (int) crc32.getValue(), content.length);
+        } else {
+            method = METHOD_DEFLATED;
+            try {
+                result = ParallelDeflate.deflate(is, level, blockSize, executor);
+            } catch (IOException e) {
+                throw new IOException("压缩[" + name + "]失败", e);
+            }
+        }
+        long size = result.size();
+        long compressedSize = result.data().length;
+        if (size > MAX_ZIP32 || compressedSize > MAX_ZIP32 || offset > MAX_ZIP32) {
+            throw new IOException("条目[" + name + "]超过4GB，不支持zip64");
+        }
+        CentralEntry entry = new CentralEntry(name.getBytes(StandardCharsets.UTF_8), method, dosTime(lastModified),
+                result.crc(), compressedSize, size, offset);
+        writeLocalHeader(entry);
+        out.write(result.data());
+        offset += compressedSize;
+        centralEntries.add(entry);
+    }
+
+    /**
+     * 写入一个条目
+     *
+     * @param name    条目路径，使用/分隔
+     * @param content 条目内容
+     */
+    public void putEntry(String name, byte[] content) throws IOException {
+        putEntry(name, new ByteArrayInputStream(content));
+    }
+
+    /**
+     * 写入中央目录并关闭输出流
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (OutputStream os = out) {
+            long centralOffset = offset;
+            long centralSize = 0;
+            for (CentralEntry entry : centralEntries) {
+                centralSize += writeCentralHeader(entry);
+            }
+            if (centralEntries.size() > 0xFFFF || centralOffset > MAX_ZIP32) {
+                throw new IOException("条目过多或压缩包超过4GB，不支持zip64");
+            }
+            ByteBuffer buffer = littleEndian(22);
+            buffer.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+            buffer.putShort((short) 0); //当前磁盘号
+            buffer.putShort((short) 0); //中央目录起始磁盘号
+            buffer.putShort((short) centralEntries.size());
+            buffer.putShort((short) centralEntries.size());
+            buffer.putInt((int) centralSize);
+            buffer.putInt((int) centralOffset);
+            buffer.putShort((short) 0); //注释长度
+            os.write(buffer.array());
+        }
+    }
+
+    private void writeLocalHeader(CentralEntry entry) throws IOException {
+        ByteBuffer buffer = littleEndian(30 + entry.name().length);
+        buffer.putInt(LOCAL_HEADER_SIGNATURE);
+        buffer.putShort(VERSION);
+        buffer.putShort(FLAG_UTF8);
+        buffer.putShort(entry.method());
+        buffer.putInt(entry.dosTime());
+        buffer.putInt(entry.crc());
+        buffer.putInt((int) entry.compressedSize());
+        buffer.putInt((int) entry.size());
+        buffer.putShort((short) entry.name().length);
+        buffer.putShort((short) 0); //扩展字段长度
+        buffer.put(entry.name());
+        out.write(buffer.array());
+        offset += buffer.capacity();
+    }
+
+    private int writeCentralHeader(CentralEntry entry) throws IOException {
+        ByteBuffer buffer = littleEndian(46 + entry.name().length);
+        buffer.putInt(CENTRAL_HEADER_SIGNATURE);
+        buffer.putShort(VERSION); //创建版本
+        buffer.putShort(VERSION); //解压所需版本
+        buffer.putShort(FLAG_UTF8);
+        buffer.putShort(entry.method());
+        buffer.putInt(entry.dosTime());
+        buffer.putInt(entry.crc());
+        buffer.putInt((int) entry.compressedSize());
+        buffer.putInt((int) entry.size());
+        buffer.putShort((short) entry.name().length);
+        buffer.putShort((short) 0); //扩展字段长度
+        buffer.putShort((short) 0); //注释长度
+        buffer.putShort((short) 0); //起始磁盘号
+        buffer.putShort((short) 0); //内部属性
+        buffer.putInt(0); //外部属性
+        buffer.putInt((int) entry.localHeaderOffset());
+        buffer.put(entry.name());
+        out.write(buffer.array());
+        return buffer.capacity();
+    }
+
+    private static ByteBuffer littleEndian(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * 转换为MS-DOS日期时间，年份范围1980-2107
+     */
+    private static int dosTime(LocalDateTime time) {
+        if (time.getYear() < 1980) {
+            time = LocalDateTime.of(1980, 1, 1, 0, 0);
+        }
+        return (time.getYear() - 1980) << 25
+                | time.getMonthValue() << 21
+                | time.getDayOfMonth() << 16
+                | time.getHour() << 11
+                | time.getMinute() << 5
+                | time.getSecond() >> 1;
+    }
+
+    private record CentralEntry(byte[] name, short method, int dosTime, int crc,
+                                long compressedSize, long size, long localHeaderOffset) {
+    }
+}
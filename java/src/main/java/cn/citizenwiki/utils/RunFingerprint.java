@@ -0,0 +1,141 @@
+package cn.citizenwiki.utils;
+
+import cn.citizenwiki.MergeAndConvert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * 整次运行的输入指纹
+ * 由global.ini、paratranz缓存清单、规则配置、data目录（打包进data.zip）、工具版本以及发布开关共同计算，
+ * 与上次成功运行的指纹一致时说明输出不会有任何变化，可以跳过克隆、渲染、git以及存储桶上传
+ */
+public class RunFingerprint {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunFingerprint.class);
+
+    private final Path storePath;
+
+    /**
+     * @param storePath 指纹存放路径，应位于会被action缓存的目录下
+     */
+    public RunFingerprint(Path storePath) {
+        this.storePath = storePath;
+    }
+
+    /**
+     * 计算指纹
+     *
+     * @param globalIniPath 基准global.ini
+     * @param metadataPath  paratranz缓存清单
+     * @param ruleConfigDir 规则配置目录
+     * @param dataDir       data目录，其中的文件会打包上传
+     * @param settings      其它会影响输出的设置，例如发布开关、发布通道
+     * @return 指纹
+     * @throws IOException 读取文件失败
+     */
+    public static String compute(Path globalIniPath, Path metadataPath, Path ruleConfigDir, Path dataDir,
+                                 String... settings) throws IOException {
+        MessageDigest digest = DigestUtil.newSha256();
+        update(digest, "global.ini", DigestUtil.sha256Hex(globalIniPath));
+        update(digest, "metadata", Files.exists(metadataPath) ? DigestUtil.sha256Hex(metadataPath) : "");
+        updateDirectory(digest, "rules", ruleConfigDir);
+        updateDirectory(digest, "data", dataDir);
+        update(digest, "tool", toolVersion());
+        for (String setting : settings) {
+            update(digest, "setting", setting);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 工具版本，使用编译产物的摘要，代码任何改动都会使指纹失效
+     */
+    static String toolVersion() throws IOException {
+        CodeSource codeSource = MergeAndConvert.class.getProtectionDomain().getCodeSource();
+        if (codeSource == null) {
+            return "unknown";
+        }
+        Path location;
+        try {
+            location = Path.of(codeSource.getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+        if (Files.isRegularFile(location)) {
+            return DigestUtil.sha256Hex(location);
+        }
+        MessageDigest digest = DigestUtil.newSha256();
+        List<Path> classFiles;
+        try (Stream<Path> walk = Files.walk(location)) {
+            classFiles = walk.filter(Files::isRegularFile).sorted().toList();
+        }
+        for (Path classFile : classFiles) {
+            update(digest, location.relativize(classFile).toString(), DigestUtil.sha256Hex(classFile));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 目录中的所有文件按相对路径排序，保证遍历顺序稳定；目录不存在时视为空
+     */
+    private static void updateDirectory(MessageDigest digest, String name, Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            files = walk.filter(Files::isRegularFile).sorted().toList();
+        }
+        for (Path file : files) {
+            String relative = dir.relativize(file).toString().replace('\\', '/');
+            update(digest, name + "/" + relative, DigestUtil.sha256Hex(file));
+        }
+    }
+
+    private static void update(MessageDigest digest, String name, String value) {
+        digest.update(name.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+    }
+
+    /**
+     * 与上次成功运行的指纹比较
+     *
+     * @param fingerprint 本次指纹
+     * @return 是否一致
+     */
+    public boolean matchesStored(String fingerprint) {
+        if (!Files.exists(storePath)) {
+            return false;
+        }
+        try {
+            return Objects.equals(Files.readString(storePath).strip(), fingerprint);
+        } catch (IOException e) {
+            logger.warn("读取运行指纹[{}]失败，视为不一致", storePath, e);
+            return false;
+        }
+    }
+
+    /**
+     * 保存指纹，仅应在整次运行成功后调用
+     *
+     * @param fingerprint 本次指纹
+     */
+    public void store(String fingerprint) throws IOException {
+        Files.createDirectories(storePath.getParent());
+        Files.writeString(storePath, fingerprint);
+    }
+}
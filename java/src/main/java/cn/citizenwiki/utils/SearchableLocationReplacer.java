@@ -37,7 +37,7 @@ public class SearchableLocationReplacer {
         TranslationRuleConfigBean translationRuleConfigBean = GlobalConfig.MatcherRulesConfig.getMatcherRule(MATCH_RULE_CONFIG_FILE_NAME);
         // 创建规则处理器，支持imports机制
         RULE_PROCESSOR  = TranslationRuleProcessor.fromTranslationRuleConfig(
-                translationRuleConfigBean
+                MATCH_RULE_CONFIG_FILE_NAME, translationRuleConfigBean
                 , GlobalConfig.MatcherRulesConfig::getMatchRulesConfig);
     }
 
@@ -0,0 +1,182 @@
+package cn.citizenwiki.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.zip.Checksum;
+
+/**
+ * XXH64哈希，与xxHash参考实现（XXH64）结果一致
+ * 速度远高于SHA-256，用于客户端快速校验文件；不具备抗碰撞性，安全校验仍使用SHA-256
+ */
+public class XxHash64 implements Checksum {
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+    //每轮处理4个8字节的lane
+    private static final int STRIPE_SIZE = 32;
+
+    private final long seed;
+    //未凑满一轮的数据
+    private final byte[] buffer = new byte[STRIPE_SIZE];
+    private int bufferSize;
+    private long totalLength;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+
+    public XxHash64() {
+        this(0);
+    }
+
+    public XxHash64(long seed) {
+        this.seed = seed;
+        reset();
+    }
+
+    /**
+     * 计算字节数组的XXH64（seed为0）
+     */
+    public static long hash(byte[] bytes) {
+        XxHash64 xxHash64 = new XxHash64();
+        xxHash64.update(bytes, 0, bytes.length);
+        return xxHash64.getValue();
+    }
+
+    /**
+     * 流式计算文件的XXH64（seed为0），不会将整个文件读入内存
+     *
+     * @param path 文件路径
+     * @return 16位小写十六进制字符串
+     * @throws IOException 读取文件失败
+     */
+    public static String hashHex(Path path) throws IOException {
+        XxHash64 xxHash64 = new XxHash64();
+        try (InputStream is = Files.newInputStream(path)) {
+            byte[] bytes = new byte[64 * 1024];
+            int read;
+            while ((read = is.read(bytes)) != -1) {
+                xxHash64.update(bytes, 0, read);
+            }
+        }
+        return toHex(xxHash64.getValue());
+    }
+
+    /**
+     * 哈希值转为16位小写十六进制，与xxhsum输出一致
+     */
+    public static String toHex(long hash) {
+        return HexFormat.of().toHexDigits(hash);
+    }
+
+    @Override
+    public void update(int b) {
+        update(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        totalLength += len;
+        if (bufferSize > 0) {
+            int fill = Math.min(STRIPE_SIZE - bufferSize, len);
+            System.arraycopy(b, off, buffer, bufferSize, fill);
+            bufferSize += fill;
+            off += fill;
+            len -= fill;
+            if (bufferSize < STRIPE_SIZE) {
+                return;
+            }
+            stripe(buffer, 0);
+            bufferSize = 0;
+        }
+        int end = off + len;
+        for (; off + STRIPE_SIZE <= end; off += STRIPE_SIZE) {
+            stripe(b, off);
+        }
+        System.arraycopy(b, off, buffer, 0, end - off);
+        bufferSize = end - off;
+    }
+
+    @Override
+    public long getValue() {
+        long hash;
+        if (totalLength >= STRIPE_SIZE) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = seed + PRIME5;
+        }
+        hash += totalLength;
+        int off = 0;
+        for (; off + 8 <= bufferSize; off += 8) {
+            hash ^= round(0, readLong(buffer, off));
+            hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+        }
+        if (off + 4 <= bufferSize) {
+            hash ^= (readInt(buffer, off) & 0xFFFFFFFFL) * PRIME1;
+            hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+            off += 4;
+        }
+        for (; off < bufferSize; off++) {
+            hash ^= (buffer[off] & 0xFFL) * PRIME5;
+            hash = Long.rotateLeft(hash, 11) * PRIME1;
+        }
+        hash ^= hash >>> 33;
+        hash *= PRIME2;
+        hash ^= hash >>> 29;
+        hash *= PRIME3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    @Override
+    public void reset() {
+        v1 = seed + PRIME1 + PRIME2;
+        v2 = seed + PRIME2;
+        v3 = seed;
+        v4 = seed - PRIME1;
+        bufferSize = 0;
+        totalLength = 0;
+    }
+
+    private void stripe(byte[] b, int off) {
+        v1 = round(v1, readLong(b, off));
+        v2 = round(v2, readLong(b, off + 8));
+        v3 = round(v3, readLong(b, off + 16));
+        v4 = round(v4, readLong(b, off + 24));
+    }
+
+    private static long round(long acc, long lane) {
+        acc += lane * PRIME2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME1;
+    }
+
+    private static long mergeRound(long hash, long v) {
+        hash ^= round(0, v);
+        return hash * PRIME1 + PRIME4;
+    }
+
+    /**
+     * 小端读取8字节
+     */
+    private static long readLong(byte[] b, int off) {
+        return (readInt(b, off) & 0xFFFFFFFFL) | ((long) readInt(b, off + 4) << 32);
+    }
+
+    /**
+     * 小端读取4字节
+     */
+    private static int readInt(byte[] b, int off) {
+        return (b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8 | (b[off + 2] & 0xFF) << 16 | (b[off + 3] & 0xFF) << 24;
+    }
+}
@@ -0,0 +1,262 @@
+package cn.citizenwiki.api;
+
+import cn.citizenwiki.http.CircuitBreaker;
+import cn.citizenwiki.http.CircuitOpenException;
+import cn.citizenwiki.http.HttpException;
+import cn.citizenwiki.http.HttpValidatorCache;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BaseApiTest {
+
+    private static final String BODY = "[{\"key\":\"item_Name\",\"translation\":\"物品\"}]";
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // 支持gzip与ETag的接口
+        server.createContext("/files", exchange -> {
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedResponses.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            fullResponses.incrementAndGet();
+            byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(bos)) {
+                    gzip.write(body);
+                }
+                body = bos.toByteArray();
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        // 第一次请求限流，要求1秒后重试
+        AtomicInteger throttled = new AtomicInteger();
+        server.createContext("/throttled", exchange -> {
+            if (throttled.getAndIncrement() == 0) {
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                exchange.sendResponseHeaders(429, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        // 前两次请求返回500，触发熔断
+        AtomicInteger failures = new AtomicInteger();
+        server.createContext("/flaky", exchange -> {
+            if (failures.getAndIncrement() < 2) {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        // 带错误信息的404
+        server.createContext("/missing", exchange -> {
+            byte[] body = "not found".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(404, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testGzipResponseIsDecoded() throws Exception {
+        TestApi api = new TestApi(null);
+        try (InputStream is = api.sendRequestWithRetry(request(), 1, 10)) {
+            assertEquals(BODY, new String(is.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try (InputStream is = BaseApi.await(api.sendRequestAsync(request(), 1, 10))) {
+            assertEquals(BODY, new String(is.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testNotModifiedReusesCachedBody() throws Exception {
+        TestApi api = new TestApi(new HttpValidatorCache(tempDir));
+        try (InputStream is = api.sendRequestWithRetry(request(), 1, 10)) {
+            assertEquals(BODY, new String(is.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        // 新的实例模拟下一次运行，只能从磁盘读取缓存
+        TestApi nextRunApi = new TestApi(new HttpValidatorCache(tempDir));
+        try (InputStream is = nextRunApi.sendRequestWithRetry(request(), 1, 10)) {
+            assertEquals(BODY, new String(is.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try (InputStream is = BaseApi.await(nextRunApi.sendRequestAsync(request(), 1, 10))) {
+            assertEquals(BODY, new String(is.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(1, fullResponses.get());
+        assertEquals(2, notModifiedResponses.get());
+    }
+
+    @Test
+    void testPartiallyReadBodyIsCachedCompletely() throws Exception {
+        TestApi api = new TestApi(new HttpValidatorCache(tempDir));
+        // 调用方只读取了一部分就关闭，缓存仍然是完整的响应体
+        try (InputStream is = api.sendRequestWithRetry(request(), 1, 10)) {
+            assertEquals(5, is.readNBytes(5).length);
+        }
+        TestApi nextRunApi = new TestApi(new HttpValidatorCache(tempDir));
+        try (InputStream is = nextRunApi.sendRequestWithRetry(request(), 1, 10)) {
+            assertEquals(BODY, new String(is.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(1, notModifiedResponses.get());
+    }
+
+    @Test
+    void testCacheKeyIncludesAcceptHeader() throws Exception {
+        TestApi api = new TestApi(new HttpValidatorCache(tempDir));
+        HttpRequest json = HttpRequest.newBuilder(request(), (name, value) -> true).header("Accept", "application/json").build();
+        HttpRequest raw = HttpRequest.newBuilder(request(), (name, value) -> true).header("Accept", "application/vnd.github.raw").build();
+        try (InputStream is = api.sendRequestWithRetry(json, 1, 10)) {
+            is.transferTo(OutputStream.nullOutputStream());
+        }
+        // 不同的Accept可能对应不同的响应，不能使用对方的缓存
+        try (InputStream is = api.sendRequestWithRetry(raw, 1, 10)) {
+            is.transferTo(OutputStream.nullOutputStream());
+        }
+        try (InputStream is = api.sendRequestWithRetry(json, 1, 10)) {
+            assertEquals(BODY, new String(is.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(2, fullResponses.get());
+        assertEquals(1, notModifiedResponses.get());
+    }
+
+    @Test
+    void testThrottledRequestIsRetriedAfterRetryAfter() throws Exception {
+        TestApi api = new TestApi(null);
+        long start = System.nanoTime();
+        try (InputStream is = api.sendRequestWithRetry(request("/throttled"), 3, 10)) {
+            assertEquals(BODY, new String(is.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        // 按Retry-After等待，而不是10毫秒的退避
+        assertTrue(System.nanoTime() - start >= 900_000_000L);
+    }
+
+    @Test
+    void testConcurrentCallersWaitForOpenCircuit() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("127.0.0.1", 2, Duration.ofMillis(300), Clock.systemUTC());
+        TestApi api = new TestApi(null, circuitBreaker);
+        List<CompletableFuture<InputStream>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(api.sendRequestAsync(request("/flaky"), 10, 50));
+        }
+        // 短暂的5xx导致熔断，熔断期间的请求等待冷却结束后重试，而不是直接失败
+        for (CompletableFuture<InputStream> future : futures) {
+            try (InputStream is = BaseApi.await(future)) {
+                assertEquals(BODY, new String(is.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void testOpenCircuitFailsWhenRetriesExhausted() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("127.0.0.1", 1, Duration.ofMinutes(1), Clock.systemUTC());
+        circuitBreaker.onFailure();
+        TestApi api = new TestApi(null, circuitBreaker);
+        assertThrows(CircuitOpenException.class, () -> api.sendRequestWithRetry(request(), 1, 10));
+        assertEquals(0, fullResponses.get());
+    }
+
+    @Test
+    void testErrorBodyReadOffClientThread() {
+        TestApi api = new TestApi(null);
+        HttpException e = assertThrows(HttpException.class, () -> api.sendRequestWithRetry(request("/missing"), 1, 10));
+        assertTrue(e.getMessage().contains("not found"));
+        // 错误响应体在虚拟线程中读取，不阻塞http客户端的线程
+        assertTrue(api.errorHandledOnVirtualThread);
+    }
+
+    private HttpRequest request() {
+        return request("/files");
+    }
+
+    private HttpRequest request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path)).GET().build();
+    }
+
+    private static class TestApi extends BaseApi {
+
+        private final HttpValidatorCache validatorCache;
+        private final CircuitBreaker circuitBreaker;
+        private volatile boolean errorHandledOnVirtualThread;
+
+        TestApi(HttpValidatorCache validatorCache) {
+            this(validatorCache, null);
+        }
+
+        TestApi(HttpValidatorCache validatorCache, CircuitBreaker circuitBreaker) {
+            this.validatorCache = validatorCache;
+            this.circuitBreaker = circuitBreaker;
+        }
+
+        @Override
+        protected CircuitBreaker getCircuitBreaker(String host) {
+            return circuitBreaker != null ? circuitBreaker : super.getCircuitBreaker(host);
+        }
+
+        @Override
+        protected HttpValidatorCache getValidatorCache(HttpRequest request) {
+            return validatorCache;
+        }
+
+        @Override
+        protected void handleHttpException(HttpRequest request, HttpResponse<InputStream> response) throws HttpException {
+            errorHandledOnVirtualThread = Thread.currentThread().isVirtual();
+            super.handleHttpException(request, response);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package cn.citizenwiki.api.paratranz;
+
+import cn.citizenwiki.http.HttpValidatorCache;
+import cn.citizenwiki.model.dto.paratranz.response.PZFile;
+import cn.citizenwiki.model.dto.paratranz.response.PZTranslation;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ParatranzCacheTest {
+
+    private static final String FILE_NAME = "global.ini.json";
+    private static final ZonedDateTime CURSOR = ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private ParatranzCache paratranzCache;
+    //文件总数，用于模拟词条被删除
+    private volatile int fileTotal = 3;
+    private final AtomicInteger stringsRequests = new AtomicInteger();
+    private final AtomicInteger translationRequests = new AtomicInteger();
+    private volatile List<String> stringsPages = List.of("""
+            {"page":1,"pageSize":800,"rowCount":3,"pageCount":1,"results":[
+             {"id":3,"key":"c","original":"C","translation":"丙","stage":1,"updatedAt":"2025-01-20T00:00:00Z"},
+             {"id":2,"key":"b","original":"B","translation":"乙乙","stage":1,"updatedAt":"2025-01-10T00:00:00Z"},
+             {"id":1,"key":"a","original":"A","translation":"旧","stage":1,"updatedAt":"2024-12-01T00:00:00Z"}]}""");
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/projects/1/files", exchange -> {
+            if (exchange.getRequestURI().getPath().endsWith("/translation")) {
+                translationRequests.incrementAndGet();
+                respond(exchange, """
+                        [{"id":1,"key":"a","original":"A","translation":"甲","stage":1},
+                         {"id":2,"key":"b","original":"B","translation":"乙乙","stage":1}]""");
+                return;
+            }
+            respond(exchange, """
+                    [{"id":10,"name":"%s","total":%d,"updatedAt":"2025-02-01T00:00:00Z","modifiedAt":"2025-02-01T00:00:00Z"}]"""
+                    .formatted(FILE_NAME, fileTotal));
+        });
+        // 按页返回，默认只有一页：按更新时间倒序，最后一条早于上次同步时间点
+        server.createContext("/projects/1/strings", exchange -> {
+            stringsRequests.incrementAndGet();
+            int page = Integer.parseInt(exchange.getRequestURI().getQuery().replaceAll(".*\\bpage=(\\d+).*", "$1"));
+            respond(exchange, stringsPages.get(page - 1));
+        });
+        server.start();
+
+        ParatranzConfig config = new ParatranzConfig("1", "token", "http://127.0.0.1:" + server.getAddress().getPort());
+        config.setIncrementalSync(true);
+        ParatranzApi api = new ParatranzApi(config, new HttpValidatorCache(tempDir.resolve("http")));
+        paratranzCache = new ParatranzCache(api, tempDir);
+
+        // 上次同步留下的缓存：文件已变化，但有同步时间点
+        Files.writeString(tempDir.resolve(ParatranzCache.METADATA_FILE_NAME), """
+                [{"id":10,"name":"%s","total":2,"updatedAt":"2024-12-01T00:00:00Z","modifiedAt":"2024-12-01T00:00:00Z","syncCursor":"%s"}]"""
+                .formatted(FILE_NAME, CURSOR));
+        Files.writeString(tempDir.resolve(FILE_NAME), """
+                [{"id":1,"key":"a","original":"A","translation":"甲","stage":1},
+                 {"id":2,"key":"b","original":"B","translation":"乙","stage":1}]""");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testIncrementalSync() throws IOException {
+        List<PZFile> pzFiles = paratranzCache.restorePatatranzCache();
+
+        assertEquals(1, stringsRequests.get());
+        assertEquals(0, translationRequests.get());
+        List<PZTranslation> translations = readCachedTranslations();
+        assertEquals(3, translations.size());
+        assertEquals("甲", translations.get(0).getTranslation());
+        assertEquals("乙乙", translations.get(1).getTranslation());
+        assertEquals("丙", translations.get(2).getTranslation());
+        // 同步时间点已推进并写入metadata
+        assertEquals(true, pzFiles.getFirst().getSyncCursor().isAfter(CURSOR));
+        List<PZFile> metadata = ParatranzJacksonTools.om.readValue(tempDir.resolve(ParatranzCache.METADATA_FILE_NAME).toFile(), ParatranzJacksonTools.LIST_FILE);
+        assertEquals(pzFiles.getFirst().getSyncCursor().toInstant(), metadata.getFirst().getSyncCursor().toInstant());
+    }
+
+    @Test
+    void testFallbackWhenTotalMismatch() throws IOException {
+        // 有词条被删除，增量修补后的条数对不上，退回整文件拉取
+        fileTotal = 2;
+        paratranzCache.restorePatatranzCache();
+
+        assertEquals(1, stringsRequests.get());
+        assertEquals(1, translationRequests.get());
+        List<PZTranslation> translations = readCachedTranslations();
+        assertEquals(2, translations.size());
+        assertEquals("乙乙", translations.get(1).getTranslation());
+    }
+
+    @Test
+    void testServerIgnoresFilterAndOrder() throws IOException {
+        // 服务端忽略时间过滤与排序，第一页就出现早于同步时间点的词条，修改在第二页；id为3的词条已被删除，新增了id为4的词条
+        Files.writeString(tempDir.resolve(FILE_NAME), """
+                [{"id":1,"key":"a","original":"A","translation":"甲","stage":1},
+                 {"id":2,"key":"b","original":"B","translation":"乙","stage":1},
+                 {"id":3,"key":"c","original":"C","translation":"丙","stage":1}]""");
+        stringsPages = List.of("""
+                {"page":1,"pageSize":1,"rowCount":3,"pageCount":2,"results":[
+                 {"id":1,"key":"a","original":"A","translation":"甲","stage":1,"updatedAt":"2024-12-01T00:00:00Z"}]}""", """
+                {"page":2,"pageSize":1,"rowCount":3,"pageCount":2,"results":[
+                 {"id":2,"key":"b","original":"B","translation":"乙乙","stage":1,"updatedAt":"2025-01-10T00:00:00Z"},
+                 {"id":4,"key":"d","original":"D","translation":"丁","stage":1,"updatedAt":"2025-01-20T00:00:00Z"}]}""");
+        paratranzCache.restorePatatranzCache();
+
+        assertEquals(2, stringsRequests.get());
+        assertEquals(0, translationRequests.get());
+        List<PZTranslation> translations = readCachedTranslations();
+        assertEquals(List.of(1L, 2L, 4L), translations.stream().map(PZTranslation::getId).toList());
+        assertEquals("乙乙", translations.get(1).getTranslation());
+    }
+
+    @Test
+    void testFailureWaitsForOtherDownloads() throws IOException {
+        // 第一个文件拉取失败时，第二个文件仍在拉取中
+        ParatranzConfig config = new ParatranzConfig("1", "token", "http://127.0.0.1");
+        config.setConcurrentRequests(2);
+        ParatranzApi api = mock(ParatranzApi.class);
+        when(api.getConfig()).thenReturn(config);
+        when(api.projectFiles()).thenReturn(List.of(pzFile(20, "a.json"), pzFile(21, "b.json")));
+        when(api.fileTranslationAsync(20L)).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("拉取失败")));
+        CompletableFuture<List<PZTranslation>> slow = CompletableFuture.supplyAsync(() -> List.of(),
+                CompletableFuture.delayedExecutor(300, TimeUnit.MILLISECONDS));
+        when(api.fileTranslationAsync(21L)).thenReturn(slow);
+        Path cacheDir = tempDir.resolve("failure");
+
+        assertThrows(CompletionException.class, () -> new ParatranzCache(api, cacheDir).restorePatatranzCache());
+        // 返回前其余拉取已结束，结果不写入缓存，也不更新metadata
+        assertTrue(slow.isDone());
+        assertFalse(Files.exists(cacheDir.resolve("b.json")));
+        assertFalse(Files.exists(cacheDir.resolve(ParatranzCache.METADATA_FILE_NAME)));
+    }
+
+    @Test
+    void testValidatorCacheOnlyForFileList() {
+        ParatranzConfig config = new ParatranzConfig("1", "token", "http://127.0.0.1");
+        ParatranzApi api = new ParatranzApi(config, new HttpValidatorCache(tempDir.resolve("http")));
+        // 只有文件列表经过校验器缓存，词条与文件翻译的地址每次不同或已有缓存
+        assertNotNull(api.getValidatorCache(request(config.getUrlFiles())));
+        assertNull(api.getValidatorCache(request(config.getUrlFiles() + "/20/translation")));
+        assertNull(api.getValidatorCache(request(config.getUrlPrefix() + "/strings?file=20&page=1")));
+    }
+
+    private static HttpRequest request(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).build();
+    }
+
+    private static PZFile pzFile(long id, String name) {
+        PZFile pzFile = new PZFile();
+        pzFile.setId(id);
+        pzFile.setName(name);
+        return pzFile;
+    }
+
+    private List<PZTranslation> readCachedTranslations() throws IOException {
+        return ParatranzJacksonTools.om.readValue(tempDir.resolve(FILE_NAME).toFile(), ParatranzJacksonTools.LIST_TRANSLATION);
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
@@ -0,0 +1,87 @@
+package cn.citizenwiki.api.s3;
+
+import cn.citizenwiki.metrics.HttpMetrics;
+import cn.citizenwiki.metrics.RunReport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class S3CallInterceptorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private S3StubServer server;
+    private HttpMetrics metrics;
+    private S3Api api;
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = new S3StubServer();
+        metrics = new HttpMetrics();
+        api = new S3Api(server.newConfig(), metrics);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void testResponseBytes() throws IOException {
+        byte[] content = "a=甲\n".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        server.put("full/global.ini", content, Map.of());
+
+        Optional<byte[]> object = api.getObject("full/global.ini");
+        assertArrayEquals(content, object.orElseThrow());
+        // 按实际读取的响应体统计
+        RunReport.Endpoint getObject = endpoint("GetObject");
+        assertEquals(1, getObject.calls());
+        assertEquals(content.length, getObject.totalBytes());
+
+        // 没有响应体的调用同样记录
+        api.putObject("orginal/global.ini", tempFile(content));
+        assertEquals(1, endpoint("PutObject").calls());
+        api.headObject("orginal/global.ini");
+        assertEquals(1, endpoint("HeadObject").calls());
+    }
+
+    @Test
+    void testThrottled() {
+        server.put("full/global.ini", new byte[]{1}, Map.of());
+        // 503 SlowDown为限流，其他503为服务端故障
+        server.failNext(503, "SlowDown");
+        server.failNext(503, "ServiceUnavailable");
+
+        assertEquals(1, api.getObject("full/global.ini").orElseThrow().length);
+        RunReport.Endpoint getObject = endpoint("GetObject");
+        assertEquals(1, getObject.calls());
+        assertEquals(0, getObject.failures());
+        assertEquals(2, getObject.retries());
+        assertEquals(1, getObject.throttled());
+    }
+
+    private Path tempFile(byte[] content) throws IOException {
+        Path file = tempDir.resolve("upload");
+        Files.write(file, content);
+        return file;
+    }
+
+    private RunReport.Endpoint endpoint(String operation) {
+        return metrics.report().stream()
+                .filter(endpoint -> endpoint.endpoint().equals(operation))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,285 @@
+package cn.citizenwiki.api.s3;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 本地S3替身，支持HEAD、GET、PUT与分片上传，对象保存在内存中，供测试与离线回放使用
+ */
+public class S3StubServer implements AutoCloseable {
+
+    public static final String BUCKET = "bucket";
+    private static final Pattern PART_NUMBER = Pattern.compile("<PartNumber>(\\d+)</PartNumber>");
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    // 对象内容与元数据
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> uploadMetadata = new ConcurrentHashMap<>();
+    private final AtomicInteger putRequests = new AtomicInteger();
+    private final AtomicInteger partRequests = new AtomicInteger();
+    private final AtomicInteger uploadIds = new AtomicInteger();
+    // 依次返回的错误响应，为空时正常处理
+    private final Queue<Failure> failures = new ConcurrentLinkedQueue<>();
+
+    public S3StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/" + BUCKET + "/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * 替身的服务地址
+     */
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * 指向替身的配置
+     */
+    public S3Config newConfig() {
+        S3Config config = new S3Config("ak", "sk", BUCKET, getEndpoint());
+        config.setPathStyleAccess(true);
+        return config;
+    }
+
+    /**
+     * 指向替身的客户端
+     */
+    public S3Api newApi() {
+        return new S3Api(newConfig());
+    }
+
+    public StoredObject get(String key) {
+        return objects.get(key);
+    }
+
+    /**
+     * 已保存的所有对象路径
+     */
+    public Set<String> keys() {
+        return new TreeSet<>(objects.keySet());
+    }
+
+    public void put(String key, byte[] content, Map<String, String> metadata) {
+        objects.put(key, new StoredObject(content, metadata, null));
+    }
+
+    public int putRequests() {
+        return putRequests.get();
+    }
+
+    public int partRequests() {
+        return partRequests.get();
+    }
+
+    /**
+     * 接下来的一次请求返回错误
+     *
+     * @param status http状态码
+     * @param code   S3错误码，如SlowDown
+     */
+    public void failNext(int status, String code) {
+        failures.add(new Failure(status, code));
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String key = exchange.getRequestURI().getPath().substring(BUCKET.length() + 2);
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        Failure failure = failures.poll();
+        if (failure != null) {
+            readBody(exchange);
+            respondXml(exchange, failure.status(), "<Error><Code>" + failure.code() + "</Code><Message>injected</Message></Error>");
+            exchange.close();
+            return;
+        }
+        switch (exchange.getRequestMethod()) {
+            case "HEAD" -> {
+                StoredObject object = objects.get(key);
+                if (object == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                } else {
+                    object.metadata().forEach((name, value) -> exchange.getResponseHeaders().add("x-amz-meta-" + name, value));
+                    exchange.getResponseHeaders().add("ETag", "\"" + md5Hex(object.content()) + "\"");
+                    exchange.sendResponseHeaders(200, -1);
+                }
+            }
+            case "GET" -> {
+                StoredObject object = objects.get(key);
+                if (object == null) {
+                    respondXml(exchange, 404, "<Error><Code>NoSuchKey</Code><Message>not found</Message></Error>");
+                } else {
+                    exchange.getResponseHeaders().add("ETag", "\"" + md5Hex(object.content()) + "\"");
+                    exchange.sendResponseHeaders(200, object.content().length == 0 ? -1 : object.content().length);
+                    exchange.getResponseBody().write(object.content());
+                }
+            }
+            case "PUT" -> {
+                byte[] body = readBody(exchange);
+                if (query.containsKey("uploadId")) {
+                    partRequests.incrementAndGet();
+                    uploads.get(query.get("uploadId")).put(Integer.parseInt(query.get("partNumber")), body);
+                } else {
+                    putRequests.incrementAndGet();
+                    objects.put(key, new StoredObject(body, readMetadata(exchange), readContentEncoding(exchange)));
+                }
+                exchange.getResponseHeaders().add("ETag", "\"" + md5Hex(body) + "\"");
+                exchange.sendResponseHeaders(200, -1);
+            }
+            case "POST" -> {
+                if (query.containsKey("uploads")) {
+                    String uploadId = "upload-" + uploadIds.incrementAndGet();
+                    uploads.put(uploadId, new TreeMap<>());
+                    uploadMetadata.put(uploadId, readMetadata(exchange));
+                    respondXml(exchange, 200, "<InitiateMultipartUploadResult><Bucket>" + BUCKET + "</Bucket><Key>" + key
+                            + "</Key><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+                } else {
+                    String uploadId = query.get("uploadId");
+                    Map<Integer, byte[]> parts = uploads.remove(uploadId);
+                    ByteArrayOutputStream content = new ByteArrayOutputStream();
+                    Matcher matcher = PART_NUMBER.matcher(new String(readBody(exchange), StandardCharsets.UTF_8));
+                    while (matcher.find()) {
+                        content.write(parts.get(Integer.parseInt(matcher.group(1))));
+                    }
+                    objects.put(key, new StoredObject(content.toByteArray(), uploadMetadata.remove(uploadId), null));
+                    respondXml(exchange, 200, "<CompleteMultipartUploadResult><Bucket>" + BUCKET + "</Bucket><Key>" + key
+                            + "</Key><ETag>\"etag\"</ETag></CompleteMultipartUploadResult>");
+                }
+            }
+            case "DELETE" -> {
+                uploads.remove(query.get("uploadId"));
+                exchange.sendResponseHeaders(204, -1);
+            }
+            default -> exchange.sendResponseHeaders(405, -1);
+        }
+        exchange.close();
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new TreeMap<>();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                int index = pair.indexOf('=');
+                query.put(index < 0 ? pair : pair.substring(0, index), index < 0 ? "" : pair.substring(index + 1));
+            }
+        }
+        return query;
+    }
+
+    private static Map<String, String> readMetadata(HttpExchange exchange) {
+        Map<String, String> metadata = new TreeMap<>();
+        exchange.getRequestHeaders().forEach((name, values) -> {
+            if (name.toLowerCase().startsWith("x-amz-meta-")) {
+                metadata.put(name.substring("x-amz-meta-".length()).toLowerCase(), values.getFirst());
+            }
+        });
+        return metadata;
+    }
+
+    /**
+     * 与S3一致，保存的Content-Encoding不包含传输用的aws-chunked
+     */
+    private static String readContentEncoding(HttpExchange exchange) {
+        String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        if (contentEncoding == null) {
+            return null;
+        }
+        String stored = Arrays.stream(contentEncoding.split(","))
+                .map(String::trim)
+                .filter(encoding -> !encoding.equals("aws-chunked"))
+                .collect(Collectors.joining(","));
+        return stored.isEmpty() ? null : stored;
+    }
+
+    /**
+     * 读取请求体，http上传时sdk会使用带签名的aws-chunked编码
+     */
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        String contentSha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        if (contentSha256 == null || !contentSha256.startsWith("STREAMING-")) {
+            return body;
+        }
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        InputStream is = new ByteArrayInputStream(body);
+        while (true) {
+            String header = readLine(is);
+            int size = Integer.parseInt(header.split(";")[0].trim(), 16);
+            if (size == 0) {
+                return decoded.toByteArray();
+            }
+            decoded.write(is.readNBytes(size));
+            readLine(is);
+        }
+    }
+
+    private static String readLine(InputStream is) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int c; (c = is.read()) != '\n' && c != -1; ) {
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    private static void respondXml(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static String md5Hex(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 保存的对象
+     *
+     * @param content         内容
+     * @param metadata        自定义元数据
+     * @param contentEncoding Content-Encoding
+     */
+    public record StoredObject(byte[] content, Map<String, String> metadata, String contentEncoding) {
+    }
+
+    private record Failure(int status, String code) {
+    }
+}
@@ -0,0 +1,118 @@
+package cn.citizenwiki.api.s3;
+
+import cn.citizenwiki.utils.DigestUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class S3UploadServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private S3StubServer server;
+    private S3Config config;
+    private final List<S3UploadService> services = new ArrayList<>();
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = new S3StubServer();
+        config = server.newConfig();
+    }
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(S3UploadService::close);
+        server.close();
+    }
+
+    @Test
+    void testSkipUnchanged() throws IOException {
+        S3UploadService service = newService();
+        Path file = tempDir.resolve("global.ini");
+        Files.writeString(file, "a=甲\n", StandardCharsets.UTF_8);
+
+        assertFalse(service.upload("full/global.ini", file).skipped());
+        assertEquals(1, server.putRequests());
+        assertEquals(DigestUtil.sha256Hex(file), server.get("full/global.ini").metadata().get(S3UploadService.SHA256_METADATA));
+
+        // 内容未变化只发送HEAD请求
+        assertTrue(service.upload("full/global.ini", file).skipped());
+        assertEquals(1, server.putRequests());
+
+        Files.writeString(file, "a=乙\n", StandardCharsets.UTF_8);
+        assertFalse(service.upload("full/global.ini", file).skipped());
+        assertEquals(2, server.putRequests());
+        assertArrayEquals(Files.readAllBytes(file), server.get("full/global.ini").content());
+    }
+
+    @Test
+    void testContentEncoding() throws IOException {
+        S3UploadService service = newService();
+        Path gzip = Files.write(tempDir.resolve("global.ini.gz"), new byte[]{0x1f, (byte) 0x8b, 8, 0});
+
+        service.upload(new S3UploadService.UploadRequest("full/global.ini.gz", gzip, S3ObjectOptions.gzip(S3ObjectOptions.CONTENT_TYPE_TEXT)));
+        assertEquals(S3ObjectOptions.ENCODING_GZIP, server.get("full/global.ini.gz").contentEncoding());
+    }
+
+    @Test
+    void testMultipartUpload() throws IOException {
+        config.setMultipartThreshold(4096L);
+        config.setPartSize(1024L);
+        S3UploadService service = newService();
+        Path zip = tempDir.resolve("data.zip");
+        byte[] content = new byte[5000];
+        new Random(1).nextBytes(content);
+        Files.write(zip, content);
+        Path ini = tempDir.resolve("global.ini");
+        Files.writeString(ini, "a=甲\n", StandardCharsets.UTF_8);
+
+        List<S3UploadService.UploadResult> results = service.uploadAll(Map.of("data.zip", zip, "full/global.ini", ini));
+        assertEquals(2, results.size());
+        // 大文件分5片上传，小文件直接上传
+        assertEquals(5, server.partRequests());
+        assertEquals(1, server.putRequests());
+        assertArrayEquals(content, server.get("data.zip").content());
+        assertEquals(DigestUtil.sha256Hex(zip), server.get("data.zip").metadata().get(S3UploadService.SHA256_METADATA));
+
+        results = service.uploadAll(Map.of("data.zip", zip, "full/global.ini", ini));
+        assertTrue(results.stream().allMatch(S3UploadService.UploadResult::skipped));
+        assertEquals(5, server.partRequests());
+        assertEquals(1, server.putRequests());
+    }
+
+    @Test
+    void testClose() throws IOException {
+        S3UploadService service = newService();
+        Path file = Files.writeString(tempDir.resolve("global.ini"), "a=甲\n", StandardCharsets.UTF_8);
+        CompletableFuture<S3UploadService.UploadResult> pending = service.uploadAsync("full/global.ini", file);
+        service.close();
+        // 关闭后不再接受新的上传，已提交的上传继续完成
+        assertThrows(RejectedExecutionException.class, () -> service.uploadAsync("half/global.ini", file));
+        assertFalse(pending.join().skipped());
+    }
+
+    private S3UploadService newService() {
+        S3UploadService service = new S3UploadService(new S3Api(config));
+        services.add(service);
+        return service;
+    }
+}
@@ -0,0 +1,48 @@
+package cn.citizenwiki.bench;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流水线基准测试报告，记录各规模语料下解析、合并与各处理器渲染的吞吐量与资源占用
+ *
+ * @param startedAt           开始时间（ISO-8601）
+ * @param javaVersion         jdk版本
+ * @param availableProcessors cpu核数
+ * @param maxHeapBytes        最大堆内存，未限制时为-1
+ * @param warmups             每个规模的预热次数
+ * @param iterations          每个规模的测量次数
+ * @param sizes               各规模的结果，按条目数排序
+ */
+public record BenchmarkReport(String startedAt, String javaVersion, int availableProcessors, long maxHeapBytes,
+                              int warmups, int iterations, List<Size> sizes) {
+
+    /**
+     * 单个规模的结果，耗时与分配字节数均为各次测量的中位数
+     *
+     * @param entries          global.ini条目数
+     * @param translations     paratranz各文件的条目总数
+     * @param stages           各阶段结果，按执行顺序排列
+     * @param wallMillis       所有阶段的耗时之和
+     * @param entriesPerSecond 整体吞吐量（条目数/所有阶段耗时之和）
+     * @param allocatedBytes   所有阶段分配的字节数之和
+     * @param peakHeapBytes    此规模执行期间各堆内存池峰值之和
+     * @param peakRssBytes     此规模执行期间的进程常驻内存峰值（VmHWM），不支持时为-1
+     * @param outputs          各处理器输出的global.ini的SHA-256，key为分支名
+     */
+    public record Size(int entries, long translations, List<Stage> stages, double wallMillis, double entriesPerSecond,
+                       long allocatedBytes, long peakHeapBytes, long peakRssBytes, Map<String, String> outputs) {
+    }
+
+    /**
+     * 单个阶段的结果
+     * 分配字节数为jvm所有线程的分配之和，包括阶段内交给其他线程的工作（如并行匹配、并行压缩）
+     *
+     * @param name             阶段名，渲染阶段为render[处理器名]
+     * @param wallMillis       耗时
+     * @param entriesPerSecond 吞吐量（条目数/耗时）
+     * @param allocatedBytes   分配的字节数
+     */
+    public record Stage(String name, double wallMillis, double entriesPerSecond, long allocatedBytes) {
+    }
+}
@@ -0,0 +1,284 @@
+package cn.citizenwiki.bench;
+
+import cn.citizenwiki.MergeAndConvert;
+import cn.citizenwiki.api.paratranz.ParatranzCache;
+import cn.citizenwiki.api.paratranz.ParatranzJacksonTools;
+import cn.citizenwiki.api.s3.S3JacksonTools;
+import cn.citizenwiki.model.dto.FileVersion;
+import cn.citizenwiki.model.dto.paratranz.response.PZFile;
+import cn.citizenwiki.model.dto.paratranz.response.PZTranslation;
+import cn.citizenwiki.processor.translation.CommonTranslationProcessor;
+import cn.citizenwiki.processor.translation.ProcessorTask;
+import cn.citizenwiki.processor.translation.TranslationProcessor;
+import cn.citizenwiki.utils.DigestUtil;
+import cn.citizenwiki.utils.GlobalIniUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+
+/**
+ * 端到端流水线基准测试
+ * 在合成语料上依次执行global.ini解析、合并与五个处理器的渲染，使用与正式运行相同的代码
+ * （{@link GlobalIniUtil#convertIniToMap}、{@link MergeAndConvert#mergeTranslateData}、{@link ProcessorTask#render()}），
+ * 记录各阶段的吞吐量与分配字节数、堆与常驻内存峰值，并计算各处理器输出的SHA-256用于与基准结果比对。
+ * 为了把耗时与分配归到各处理器，渲染逐个顺序执行（正式运行中各处理器并行渲染）；
+ * 规则配置从工作目录读取，渲染结果输出到final_output，由{@link PipelineBenchmarkTest}在冻结的规则配置下执行
+ */
+class PipelineBenchmark {
+
+    public static final String REPORT_FILE_NAME = "benchmark_report.json";
+    //合成语料的存放目录，按倍数分子目录
+    public static final String CORPUS_DIR = "cache/bench";
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelineBenchmark.class);
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean ? bean : null;
+    private static final Path PROC_STATUS = Path.of("/proc/self/status");
+    //写入5时重置进程的常驻内存峰值
+    private static final Path PROC_CLEAR_REFS = Path.of("/proc/self/clear_refs");
+
+    private final int warmups;
+    private final int iterations;
+    private final ZonedDateTime startedAt = ZonedDateTime.now();
+
+    /**
+     * @param warmups    每个规模的预热次数，预热结果不计入
+     * @param iterations 每个规模的测量次数
+     */
+    public PipelineBenchmark(int warmups, int iterations) {
+        if (warmups < 0 || iterations < 1) {
+            throw new IllegalArgumentException("预热次数不能小于0，测量次数不能小于1：" + warmups + "/" + iterations);
+        }
+        this.warmups = warmups;
+        this.iterations = iterations;
+    }
+
+    /**
+     * 生成指定倍数的语料到{@link #CORPUS_DIR}，每次都重新生成，保证与当前的生成器一致
+     */
+    public static SyntheticCorpus.Result corpus(int scale) throws IOException {
+        return SyntheticCorpus.ofScale(scale).generate(Path.of(CORPUS_DIR, scale + "x"));
+    }
+
+    /**
+     * 在单个规模的语料上执行基准测试
+     *
+     * @param corpus 语料
+     * @return 各次测量的中位数；各次测量的输出不一致时抛出异常
+     */
+    public BenchmarkReport.Size run(SyntheticCorpus.Result corpus) throws IOException {
+        logger.info("开始基准测试[{}条]，预热{}次，测量{}次", corpus.entries(), warmups, iterations);
+        List<PZFile> pzFiles = ParatranzJacksonTools.om.readValue(corpus.cacheDir().resolve(ParatranzCache.METADATA_FILE_NAME).toFile(),
+                ParatranzJacksonTools.LIST_FILE);
+        FileVersion lastFileVersion = MergeAndConvert.latestFileVersion(pzFiles);
+        for (int i = 0; i < warmups; i++) {
+            iterate(corpus, pzFiles, lastFileVersion);
+        }
+        System.gc();
+        resetPeakHeap();
+        resetPeakRss();
+        List<Iteration> measured = new ArrayList<>();
+        for (int i = 0; i < iterations; i++) {
+            measured.add(iterate(corpus, pzFiles, lastFileVersion));
+        }
+        Map<String, String> outputs = measured.getFirst().outputs();
+        for (Iteration iteration : measured) {
+            if (!iteration.outputs().equals(outputs)) {
+                throw new IllegalStateException("相同输入多次渲染的输出不一致：" + outputs + " " + iteration.outputs());
+            }
+        }
+        List<BenchmarkReport.Stage> stages = new ArrayList<>();
+        long totalNanos = 0;
+        long totalAllocated = 0;
+        for (String name : measured.getFirst().stages().keySet()) {
+            long nanos = median(measured.stream().mapToLong(iteration -> iteration.stages().get(name)[0]).toArray());
+            long allocated = median(measured.stream().mapToLong(iteration -> iteration.stages().get(name)[1]).toArray());
+            stages.add(new BenchmarkReport.Stage(name, millis(nanos), throughput(corpus.entries(), nanos), allocated));
+            totalNanos += nanos;
+            totalAllocated += allocated;
+        }
+        BenchmarkReport.Size size = new BenchmarkReport.Size(corpus.entries(), corpus.translations(), stages, millis(totalNanos),
+                throughput(corpus.entries(), totalNanos), totalAllocated, peakHeapBytes(), peakRssBytes(), new TreeMap<>(outputs));
+        log(size);
+        return size;
+    }
+
+    /**
+     * 生成报告，各规模按条目数排序
+     */
+    public BenchmarkReport report(List<BenchmarkReport.Size> sizes) {
+        List<BenchmarkReport.Size> sorted = new ArrayList<>(sizes);
+        sorted.sort(Comparator.comparingInt(BenchmarkReport.Size::entries));
+        return new BenchmarkReport(startedAt.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME), Runtime.version().toString(),
+                Runtime.getRuntime().availableProcessors(), ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax(),
+                warmups, iterations, sorted);
+    }
+
+    /**
+     * 报告写入输出目录
+     *
+     * @return 报告文件路径
+     */
+    public Path write(BenchmarkReport report, Path outputDir) throws IOException {
+        Path reportPath = outputDir.resolve(REPORT_FILE_NAME);
+        Files.createDirectories(outputDir);
+        S3JacksonTools.om.writeValue(reportPath.toFile(), report);
+        logger.info("已生成基准测试报告[{}]", reportPath);
+        return reportPath;
+    }
+
+    /**
+     * 执行一次解析、合并与所有处理器的渲染
+     */
+    private Iteration iterate(SyntheticCorpus.Result corpus, List<PZFile> pzFiles, FileVersion lastFileVersion) throws IOException {
+        Map<String, long[]> stages = new LinkedHashMap<>();
+        LinkedHashMap<String, String> globalIniMap = measure(stages, "parse", () -> GlobalIniUtil.convertIniToMap(corpus.iniPath()));
+        //合并会修改译文，每次都重新读取缓存
+        Map<String, PZTranslation> mergedTranslateMap = measure(stages, "merge", () ->
+                Collections.unmodifiableMap(MergeAndConvert.mergeTranslateData(globalIniMap, pzFiles, corpus.cacheDir())));
+        Map<String, String> outputs = new LinkedHashMap<>();
+        //处理器初始化（加载规则）不计入渲染；只渲染不发布，用不到压缩与补丁生成的线程池
+        for (TranslationProcessor processor : MergeAndConvert.createTranslationProcessors(Runnable::run, Runnable::run)) {
+            ProcessorTask task = new ProcessorTask(processor, () -> mergedTranslateMap, lastFileVersion);
+            measure(stages, "render[" + processor.getProcessorName() + "]", () -> {
+                task.render();
+                return null;
+            });
+            if (!task.isRendered()) {
+                throw new RuntimeException("[" + processor.getProcessorName() + "]渲染失败");
+            }
+            if (processor instanceof CommonTranslationProcessor commonProcessor) {
+                outputs.put(commonProcessor.getBranchName(), DigestUtil.sha256Hex(commonProcessor.getOutputPath()));
+            }
+        }
+        return new Iteration(stages, outputs);
+    }
+
+    /**
+     * 执行并记录耗时（纳秒）与分配字节数
+     */
+    private static <T> T measure(Map<String, long[]> stages, String name, Callable<T> action) {
+        long startAllocated = totalAllocatedBytes();
+        long startNanos = System.nanoTime();
+        T result;
+        try {
+            result = action.call();
+        } catch (Exception e) {
+            throw new RuntimeException("基准测试阶段[" + name + "]执行失败", e);
+        }
+        long nanos = System.nanoTime() - startNanos;
+        long allocated = startAllocated >= 0 ? totalAllocatedBytes() - startAllocated : -1;
+        stages.put(name, new long[]{nanos, allocated});
+        return result;
+    }
+
+    private static void log(BenchmarkReport.Size size) {
+        for (BenchmarkReport.Stage stage : size.stages()) {
+            logger.info("[{}条]阶段[{}]耗时{}ms，{}条/s，分配{}MB", size.entries(), stage.name(), stage.wallMillis(),
+                    stage.entriesPerSecond(), stage.allocatedBytes() / 1024 / 1024);
+        }
+        logger.info("[{}条]总耗时{}ms，{}条/s，分配{}MB，堆内存峰值{}MB，常驻内存峰值{}MB", size.entries(), size.wallMillis(),
+                size.entriesPerSecond(), size.allocatedBytes() / 1024 / 1024, size.peakHeapBytes() / 1024 / 1024,
+                size.peakRssBytes() < 0 ? -1 : size.peakRssBytes() / 1024 / 1024);
+    }
+
+    /**
+     * jvm所有线程已分配的字节数，不支持时为-1
+     */
+    private static long totalAllocatedBytes() {
+        return THREAD_MX_BEAN != null && THREAD_MX_BEAN.isThreadAllocatedMemoryEnabled()
+                ? THREAD_MX_BEAN.getTotalThreadAllocatedBytes() : -1;
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * 各堆内存池峰值之和
+     */
+    private static long peakHeapBytes() {
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peakHeap;
+    }
+
+    /**
+     * 重置进程常驻内存峰值，只支持linux，不支持时峰值为进程启动以来的最大值
+     */
+    private static void resetPeakRss() {
+        try {
+            Files.writeString(PROC_CLEAR_REFS, "5");
+        } catch (Exception e) {
+            logger.debug("无法重置常驻内存峰值", e);
+        }
+    }
+
+    /**
+     * 进程常驻内存峰值（/proc/self/status中的VmHWM），不支持时为-1
+     */
+    private static long peakRssBytes() {
+        if (!Files.isReadable(PROC_STATUS)) {
+            return -1;
+        }
+        try {
+            for (String line : Files.readAllLines(PROC_STATUS)) {
+                if (line.startsWith("VmHWM:")) {
+                    //VmHWM:    123456 kB
+                    return Long.parseLong(line.substring("VmHWM:".length()).replace("kB", "").strip()) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.debug("读取常驻内存峰值失败", e);
+        }
+        return -1;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 100_000.0) / 10.0;
+    }
+
+    private static double throughput(int entries, long nanos) {
+        return nanos == 0 ? 0 : Math.round(entries * 1_000_000_000.0 / nanos * 10) / 10.0;
+    }
+
+    /**
+     * 单次执行的结果
+     *
+     * @param stages  阶段名 -> [耗时纳秒, 分配字节数]，按执行顺序
+     * @param outputs 分支名 -> 输出的SHA-256
+     */
+    private record Iteration(Map<String, long[]> stages, Map<String, String> outputs) {
+    }
+}
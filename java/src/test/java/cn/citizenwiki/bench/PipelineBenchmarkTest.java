@@ -0,0 +1,91 @@
+package cn.citizenwiki.bench;
+
+import cn.citizenwiki.api.s3.S3JacksonTools;
+import cn.citizenwiki.config.EnvConfig;
+import cn.citizenwiki.config.GlobalConfig;
+import cn.citizenwiki.utils.DigestUtil;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * 端到端流水线基准测试，耗时较长，默认不执行，使用mvn test -Pbenchmark执行
+ * 工作目录为测试资源中的bench目录，使用其中冻结的规则配置，基准结果只随代码变化，不受项目根目录规则配置修改的影响；
+ * 各规模的输出必须与基准结果逐字节一致；处理器的输出有意变化或更新冻结的规则配置时，使用-Dbench.updateGolden=true重新生成基准结果并检查差异
+ */
+@Tag("benchmark")
+class PipelineBenchmarkTest {
+
+    private static final TypeReference<TreeMap<String, TreeMap<String, String>>> GOLDEN_TYPE = new TypeReference<>() {
+    };
+
+    @BeforeAll
+    static void setup() throws Exception {
+        Path frozen = Path.of(PipelineBenchmarkTest.class.getResource("/bench/" + GlobalConfig.RULE_CONFIG_DIR).toURI());
+        assertEquals(snapshot(frozen), snapshot(Path.of(GlobalConfig.RULE_CONFIG_DIR)),
+                "工作目录中的规则配置与冻结的规则配置不一致，请在测试资源的bench目录下执行");
+        //只渲染不发布，处理器初始化时会创建api客户端，凭证使用占位值
+        EnvConfig.override(Map.of("SW_PUBLISH", "false",
+                "PZ_PROJECT_ID", "bench", "PZ_TOKEN", "bench",
+                "GITHUB_FORK_USERNAME", "bench", "GITHUB_FORK_REPO", "bench", "GITHUB_TOKEN", "bench",
+                "S3_ACCESS_KEY", "bench", "S3_SECRET_KEY", "bench", "S3_BUCKET", "bench", "S3_ENDPOINT", "http://127.0.0.1"));
+    }
+
+    @Test
+    void testPipeline() throws Exception {
+        List<Integer> scales = Arrays.stream(System.getProperty("bench.scales", "1,5,10").split(","))
+                .map(String::strip).map(Integer::parseInt).toList();
+        Path goldenFile = Path.of(System.getProperty("bench.goldenFile", "golden.json"));
+        PipelineBenchmark benchmark = new PipelineBenchmark(Integer.getInteger("bench.warmups", 1),
+                Integer.getInteger("bench.iterations", 3));
+        List<BenchmarkReport.Size> sizes = new ArrayList<>();
+        for (int scale : scales) {
+            sizes.add(benchmark.run(PipelineBenchmark.corpus(scale)));
+        }
+        benchmark.write(benchmark.report(sizes), Path.of(GlobalConfig.OUTPUT_DIR));
+
+        // 条目数 -> 分支名 -> 输出的SHA-256
+        TreeMap<String, TreeMap<String, String>> golden = Files.exists(goldenFile)
+                ? S3JacksonTools.om.readValue(goldenFile.toFile(), GOLDEN_TYPE) : new TreeMap<>();
+        if (Boolean.getBoolean("bench.updateGolden")) {
+            for (BenchmarkReport.Size size : sizes) {
+                golden.put(String.valueOf(size.entries()), new TreeMap<>(size.outputs()));
+            }
+            Files.createDirectories(goldenFile.getParent());
+            S3JacksonTools.om.writeValue(goldenFile.toFile(), golden);
+            return;
+        }
+        for (BenchmarkReport.Size size : sizes) {
+            Map<String, String> expected = golden.get(String.valueOf(size.entries()));
+            assertNotNull(expected, size.entries() + "条的基准结果不存在，请使用-Dbench.updateGolden=true生成");
+            assertEquals(expected, size.outputs(), size.entries() + "条的输出与基准结果不一致");
+        }
+    }
+
+    /**
+     * 目录下各文件的相对路径 -> SHA-256
+     */
+    private static Map<String, String> snapshot(Path dir) throws IOException {
+        Map<String, String> files = new TreeMap<>();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.filter(Files::isRegularFile).toList()) {
+                files.put(dir.relativize(path).toString(), DigestUtil.sha256Hex(path));
+            }
+        }
+        return files;
+    }
+}
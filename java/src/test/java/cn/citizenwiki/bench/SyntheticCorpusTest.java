@@ -0,0 +1,79 @@
+package cn.citizenwiki.bench;
+
+import cn.citizenwiki.api.paratranz.ParatranzCache;
+import cn.citizenwiki.api.paratranz.ParatranzJacksonTools;
+import cn.citizenwiki.model.dto.FileVersion;
+import cn.citizenwiki.model.dto.paratranz.response.PZFile;
+import cn.citizenwiki.model.dto.paratranz.response.PZTranslation;
+import cn.citizenwiki.utils.GlobalIniUtil;
+import cn.citizenwiki.utils.ParatranzFileUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SyntheticCorpusTest {
+
+    private static final int ENTRIES = 5000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testGenerate() throws Exception {
+        SyntheticCorpus.Result result = new SyntheticCorpus(ENTRIES, SyntheticCorpus.DEFAULT_SEED).generate(tempDir.resolve("a"));
+        // key不重复，条目数与指定一致
+        Map<String, String> iniMap = GlobalIniUtil.convertIniToMap(result.iniPath());
+        assertEquals(ENTRIES, iniMap.size());
+        assertTrue(iniMap.keySet().stream().anyMatch(key -> key.startsWith("item_Name")));
+        assertTrue(iniMap.keySet().stream().anyMatch(key -> key.startsWith("mission_location")));
+        assertTrue(iniMap.values().stream().anyMatch(value -> value.contains("~mission(")));
+
+        List<PZFile> pzFiles = ParatranzJacksonTools.om.readValue(result.cacheDir().resolve(ParatranzCache.METADATA_FILE_NAME).toFile(),
+                ParatranzJacksonTools.LIST_FILE);
+        assertEquals(4, pzFiles.size());
+        // 最新版本为合并基准
+        FileVersion latest = pzFiles.stream().filter(pzFile -> ParatranzFileUtil.isFormatedName(pzFile.getName()))
+                .map(FileVersion::new).max(Comparator.naturalOrder()).orElseThrow();
+        assertEquals(SyntheticCorpus.LATEST_FILE_NAME, latest.getName() + ".json");
+
+        // 旧版本与最新版本有相同key，id有大有小
+        Map<String, PZTranslation> latestMap = read(result.cacheDir().resolve(SyntheticCorpus.LATEST_FILE_NAME));
+        List<PZTranslation> ptu = ParatranzJacksonTools.om.readValue(result.cacheDir().resolve(SyntheticCorpus.PTU_FILE_NAME).toFile(),
+                ParatranzJacksonTools.LIST_TRANSLATION);
+        assertTrue(ptu.stream().anyMatch(t -> latestMap.containsKey(t.getKey()) && latestMap.get(t.getKey()).getId() < t.getId()));
+        assertTrue(ptu.stream().anyMatch(t -> latestMap.containsKey(t.getKey()) && latestMap.get(t.getKey()).getId() > t.getId()));
+        // 上一个版本中有已删除的key
+        Map<String, PZTranslation> previousMap = read(result.cacheDir().resolve(SyntheticCorpus.PREVIOUS_FILE_NAME));
+        assertTrue(previousMap.keySet().stream().anyMatch(key -> !iniMap.containsKey(key)));
+
+        // 相同参数逐字节一致
+        SyntheticCorpus.Result again = new SyntheticCorpus(ENTRIES, SyntheticCorpus.DEFAULT_SEED).generate(tempDir.resolve("b"));
+        assertArrayEquals(Files.readAllBytes(result.iniPath()), Files.readAllBytes(again.iniPath()));
+        assertArrayEquals(Files.readAllBytes(result.cacheDir().resolve(SyntheticCorpus.LATEST_FILE_NAME)),
+                Files.readAllBytes(again.cacheDir().resolve(SyntheticCorpus.LATEST_FILE_NAME)));
+    }
+
+    @Test
+    void testScale() {
+        assertEquals(SyntheticCorpus.BASE_ENTRIES * 10, SyntheticCorpus.ofScale(10).getEntries());
+        assertThrows(IllegalArgumentException.class, () -> SyntheticCorpus.ofScale(0));
+        assertThrows(IllegalArgumentException.class, () -> SyntheticCorpus.ofScale(SyntheticCorpus.MAX_SCALE + 1));
+    }
+
+    private static Map<String, PZTranslation> read(Path path) throws Exception {
+        List<PZTranslation> translations = ParatranzJacksonTools.om.readValue(path.toFile(), ParatranzJacksonTools.LIST_TRANSLATION);
+        return translations.stream().collect(Collectors.toMap(PZTranslation::getKey, Function.identity()));
+    }
+}
@@ -0,0 +1,19 @@
+package cn.citizenwiki.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EnvConfigTest {
+
+    @Test
+    void testOverrideFailsAfterRead() {
+        EnvConfig.get("SW_PROFILE");
+        // 读取之后配置类可能已经初始化，覆盖不会生效，必须直接失败
+        assertThrows(IllegalStateException.class, () -> EnvConfig.override(Map.of("ENV_CONFIG_TEST", "1")));
+        assertNull(EnvConfig.get("ENV_CONFIG_TEST"));
+    }
+}
@@ -0,0 +1,98 @@
+package cn.citizenwiki.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void testCircuitBreaker() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("paratranz.cn", 2, Duration.ofSeconds(30), clock);
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.onFailure();
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.onFailure();
+        // 连续失败达到阈值，熔断
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+        // 冷却结束后只放行一个探测请求
+        clock.instant = clock.instant.plusSeconds(31);
+        assertTrue(circuitBreaker.tryAcquire());
+        assertFalse(circuitBreaker.tryAcquire());
+        circuitBreaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void testRemainingOpenTime() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("paratranz.cn", 1, Duration.ofSeconds(30), clock);
+        assertEquals(Duration.ZERO, circuitBreaker.remainingOpenTime());
+        circuitBreaker.onFailure();
+        clock.instant = clock.instant.plusSeconds(10);
+        assertEquals(Duration.ofSeconds(20), circuitBreaker.remainingOpenTime());
+        clock.instant = clock.instant.plusSeconds(25);
+        assertEquals(Duration.ZERO, circuitBreaker.remainingOpenTime());
+    }
+
+    @Test
+    void testHalfOpenAdmitsSingleProbeUnderConcurrency() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("paratranz.cn", 1, Duration.ofSeconds(30), clock);
+        circuitBreaker.onFailure();
+        clock.instant = clock.instant.plusSeconds(31);
+        int callers = 32;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return circuitBreaker.tryAcquire();
+                }));
+            }
+            start.countDown();
+            int acquired = 0;
+            for (Future<Boolean> result : results) {
+                acquired += result.get() ? 1 : 0;
+            }
+            // 并发调用时只有一个探测请求被放行
+            assertEquals(1, acquired);
+        }
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    private static class MutableClock extends Clock {
+        private volatile Instant instant = NOW;
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
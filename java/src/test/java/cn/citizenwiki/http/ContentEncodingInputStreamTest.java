@@ -0,0 +1,72 @@
+package cn.citizenwiki.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ContentEncodingInputStreamTest {
+
+    private static final byte[] CONTENT = "a=甲\nb=乙\n".repeat(500).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void testDeflate() throws IOException {
+        // 标准的zlib格式
+        assertArrayEquals(CONTENT, decode("deflate", deflate(false)));
+        // 部分服务端直接返回裸deflate
+        assertArrayEquals(CONTENT, decode("deflate", deflate(true)));
+    }
+
+    @Test
+    void testGzip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(CONTENT);
+        }
+        assertArrayEquals(CONTENT, decode("gzip", out.toByteArray()));
+        assertArrayEquals(CONTENT, decode("x-gzip", out.toByteArray()));
+    }
+
+    @Test
+    void testIdentity() {
+        InputStream raw = new ByteArrayInputStream(CONTENT);
+        // 未压缩时原样返回
+        assertSame(raw, ContentEncodingInputStream.decode(headers(null), raw));
+        assertSame(raw, ContentEncodingInputStream.decode(headers("identity"), raw));
+        assertThrows(IllegalStateException.class, () -> ContentEncodingInputStream.decode(headers("br"), raw));
+    }
+
+    private static byte[] deflate(boolean nowrap) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater)) {
+            deflate.write(CONTENT);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decode(String encoding, byte[] body) throws IOException {
+        try (InputStream is = ContentEncodingInputStream.decode(headers(encoding), new ByteArrayInputStream(body))) {
+            return is.readAllBytes();
+        }
+    }
+
+    private static HttpHeaders headers(String encoding) {
+        return HttpHeaders.of(encoding == null ? Map.of() : Map.of("Content-Encoding", List.of(encoding)), (name, value) -> true);
+    }
+}
@@ -0,0 +1,67 @@
+package cn.citizenwiki.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryPolicyTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    private final RetryPolicy retryPolicy = new RetryPolicy(5, Duration.ofMillis(100), Duration.ofSeconds(1),
+            Duration.ofMinutes(5), Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    void testFullJitterBackoffIsBounded() {
+        for (int i = 0; i < 200; i++) {
+            assertTrue(retryPolicy.backoff(1).toMillis() <= 100);
+            assertTrue(retryPolicy.backoff(3).toMillis() <= 400);
+            // 超过上限后不再增长
+            assertTrue(retryPolicy.backoff(40).toMillis() <= 1000);
+        }
+    }
+
+    @Test
+    void testRetryAfterSeconds() {
+        HttpHeaders headers = headers(Map.of("Retry-After", List.of("7")));
+        assertEquals(Optional.of(Duration.ofSeconds(7)), retryPolicy.delay(1, headers));
+        assertTrue(retryPolicy.isRetryable(429, headers));
+        assertTrue(retryPolicy.isThrottled(429, headers));
+    }
+
+    @Test
+    void testRetryAfterHttpDate() {
+        HttpHeaders headers = headers(Map.of("Retry-After", List.of("Wed, 01 Jan 2025 00:00:30 GMT")));
+        assertEquals(Optional.of(Duration.ofSeconds(30)), retryPolicy.delay(1, headers));
+    }
+
+    @Test
+    void testGithubRateLimitReset() {
+        HttpHeaders headers = headers(Map.of(
+                "x-ratelimit-remaining", List.of("0"),
+                "x-ratelimit-reset", List.of(String.valueOf(NOW.getEpochSecond() + 42))));
+        assertEquals(Optional.of(Duration.ofSeconds(42)), retryPolicy.delay(2, headers));
+        // github限流时返回403
+        assertTrue(retryPolicy.isRetryable(403, headers));
+        assertFalse(retryPolicy.isRetryable(403, headers(Map.of())));
+    }
+
+    @Test
+    void testTooLongServerDelayIsNotRetried() {
+        HttpHeaders headers = headers(Map.of("Retry-After", List.of("3600")));
+        assertTrue(retryPolicy.delay(1, headers).isEmpty());
+    }
+
+    private static HttpHeaders headers(Map<String, List<String>> map) {
+        return HttpHeaders.of(map, (name, value) -> true);
+    }
+}
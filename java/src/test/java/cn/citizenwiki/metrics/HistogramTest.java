@@ -0,0 +1,43 @@
+package cn.citizenwiki.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramTest {
+
+    @Test
+    void testBuckets() {
+        // 桶连续且上界递增，每个值都落在上界不小于自身的桶中
+        for (long value : new long[]{0, 1, 63, 64, 65, 127, 128, 1000, 123_456_789L, Long.MAX_VALUE / 3, Long.MAX_VALUE}) {
+            int index = Histogram.indexOf(value);
+            assertTrue(Histogram.upperBound(index) >= value);
+            if (index > 0) {
+                assertTrue(Histogram.upperBound(index - 1) < value);
+            }
+        }
+        assertEquals(Long.MAX_VALUE, Histogram.upperBound(Histogram.indexOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void testPercentile() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.percentile(50));
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000, histogram.getMax());
+        assertEquals(50_005_000, histogram.getSum());
+        // 误差不超过1/32，且不小于真实值
+        assertWithin(5_000, histogram.percentile(50));
+        assertWithin(9_900, histogram.percentile(99));
+        assertEquals(10_000, histogram.percentile(100));
+        assertEquals(1, histogram.percentile(0));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 32, "expected ~" + expected + " but was " + actual);
+    }
+}
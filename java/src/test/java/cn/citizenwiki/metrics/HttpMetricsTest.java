@@ -0,0 +1,96 @@
+package cn.citizenwiki.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpMetricsTest {
+
+    @Test
+    void testEndpoint() {
+        assertEquals("GET /projects/{id}/files/{id}/translation",
+                HttpMetrics.endpoint("GET", "/projects/1234/files/5678/translation"));
+        assertEquals("POST /repos/owner/repo2/pulls", HttpMetrics.endpoint("POST", "/repos/owner/repo2/pulls"));
+        assertEquals("GET /projects/{id}", HttpMetrics.endpoint("GET", "/projects/1234"));
+    }
+
+    @Test
+    void testReport() throws IOException {
+        HttpMetrics metrics = new HttpMetrics();
+        for (int i = 0; i < 3; i++) {
+            HttpCallRecorder recorder = metrics.start("ParatranzApi", "GET /projects/{id}/files");
+            recorder.attempt(1);
+            recorder.response(200);
+            try (InputStream body = recorder.countBody(new ByteArrayInputStream(new byte[1024]))) {
+                body.readAllBytes();
+            }
+            recorder.finish(true);
+        }
+        // 限流后重试成功
+        HttpCallRecorder throttled = metrics.start("GithubApi", "POST /repos/owner/repo/pulls");
+        throttled.attempt(1);
+        throttled.response(429);
+        throttled.throttled();
+        throttled.attempt(2);
+        throttled.response(201);
+        try (InputStream body = throttled.countBody(new ByteArrayInputStream(new byte[2048]))) {
+            body.readAllBytes();
+        }
+        throttled.finish(true);
+        // 连接失败，重复结束只记录一次
+        HttpCallRecorder failed = metrics.start("GithubApi", "POST /repos/owner/repo/pulls");
+        failed.attempt(1);
+        failed.failure();
+        failed.finish(false);
+        failed.finish(false);
+
+        List<RunReport.Endpoint> report = metrics.report();
+        assertEquals(2, report.size());
+        RunReport.Endpoint github = report.getFirst();
+        assertEquals("GithubApi", github.client());
+        assertEquals(2, github.calls());
+        assertEquals(1, github.failures());
+        assertEquals(1, github.retries());
+        assertEquals(1, github.throttled());
+        // 只统计读取过响应体的调用
+        assertEquals(2048, github.totalBytes());
+        RunReport.Endpoint paratranz = report.getLast();
+        assertEquals(3, paratranz.calls());
+        assertEquals(0, paratranz.failures());
+        assertEquals(3 * 1024, paratranz.totalBytes());
+        assertTrue(paratranz.p50Bytes() >= 1024 && paratranz.maxBytes() == 1024);
+        assertTrue(paratranz.p99Millis() <= paratranz.maxMillis());
+    }
+
+    @Test
+    void testBodyReadAfterFinish() throws IOException {
+        HttpMetrics metrics = new HttpMetrics();
+        HttpCallRecorder recorder = metrics.start("ParatranzApi", "GET /projects/{id}/files/{id}/translation");
+        recorder.attempt(1);
+        recorder.response(200);
+        InputStream body = recorder.countBody(new ByteArrayInputStream(new byte[4096]));
+        // 响应头到达即结束，响应体由调用方之后读取，关闭前不记录
+        recorder.finish(true);
+        assertTrue(metrics.report().isEmpty());
+        // 只读了一部分就关闭，按实际读取的字节数统计
+        assertEquals(1000, body.readNBytes(1000).length);
+        body.close();
+        List<RunReport.Endpoint> report = metrics.report();
+        assertEquals(1, report.size());
+        assertEquals(1000, report.getFirst().totalBytes());
+
+        // 失败时不等待响应体关闭
+        HttpCallRecorder failed = metrics.start("ParatranzApi", "GET /projects/{id}");
+        failed.attempt(1);
+        failed.response(200);
+        failed.countBody(new ByteArrayInputStream(new byte[10]));
+        failed.finish(false);
+        assertEquals(2, metrics.report().size());
+    }
+}
@@ -0,0 +1,53 @@
+package cn.citizenwiki.metrics;
+
+import cn.citizenwiki.api.s3.S3JacksonTools;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RunMetricsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testReport() throws Exception {
+        RunMetrics metrics = new RunMetrics();
+        try (PhaseTimer ignored = metrics.start("render", "p1")) {
+            List<byte[]> garbage = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                garbage.add(new byte[16 * 1024]);
+            }
+            assertEquals(64, garbage.size());
+        }
+        // 虚拟线程不支持按线程统计cpu时间与分配字节数
+        Thread.ofVirtual().start(() -> {
+            try (PhaseTimer ignored = metrics.start("upload", "p1")) {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }).join();
+
+        Path reportPath = metrics.write(tempDir);
+        RunReport report = S3JacksonTools.om.readValue(reportPath.toFile(), RunReport.class);
+        assertEquals(List.of("render", "upload"), report.phases().stream().map(RunReport.Phase::name).toList());
+        RunReport.Phase render = report.phases().getFirst();
+        assertEquals("p1", render.processor());
+        assertNotNull(render.cpuMillis());
+        assertTrue(render.allocatedBytes() >= 64 * 16 * 1024);
+        RunReport.Phase upload = report.phases().getLast();
+        assertTrue(upload.wallMillis() >= 5);
+        assertNull(upload.cpuMillis());
+        assertNull(upload.allocatedBytes());
+        assertTrue(report.peakHeapBytes() > 0);
+    }
+}
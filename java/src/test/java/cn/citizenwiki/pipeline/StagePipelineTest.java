@@ -0,0 +1,91 @@
+package cn.citizenwiki.pipeline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StagePipelineTest {
+
+    private final ExecutorService cpuExecutor = Executors.newFixedThreadPool(2);
+    private final ExecutorService ioExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        cpuExecutor.shutdownNow();
+        ioExecutor.shutdownNow();
+    }
+
+    @Test
+    void testDependencies() {
+        StagePipeline pipeline = new StagePipeline("test", cpuExecutor, ioExecutor);
+        // a与b没有依赖关系，必须同时执行才能都完成
+        CountDownLatch latch = new CountDownLatch(2);
+        Stage<Integer> a = pipeline.stage("a", Stage.Type.CPU, () -> {
+            latch.countDown();
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            return 1;
+        });
+        Stage<Integer> b = pipeline.stage("b", Stage.Type.IO, () -> {
+            latch.countDown();
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            return 2;
+        });
+        Stage<Integer> c = pipeline.stage("c", Stage.Type.CPU, () -> a.get() + b.get(), a, b);
+        pipeline.await();
+
+        assertEquals(3, c.get());
+        assertTrue(c.getStartNanos() >= b.getEndNanos());
+        // b结束得更晚，决定了c的开始时间
+        assertEquals(List.of("b", "c"), pipeline.criticalPath().stream().map(Stage::getName).toList());
+    }
+
+    @Test
+    void testFailureSkipsDependents() {
+        StagePipeline pipeline = new StagePipeline("test", cpuExecutor, ioExecutor);
+        AtomicBoolean executed = new AtomicBoolean();
+        CountDownLatch failedLatch = new CountDownLatch(1);
+        // 与失败阶段相互独立的阶段照常执行完成
+        Stage<Integer> independent = pipeline.stage("independent", Stage.Type.IO, () -> {
+            assertTrue(failedLatch.await(5, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            return 1;
+        });
+        Stage<Void> failed = pipeline.task("failed", Stage.Type.CPU, () -> {
+            failedLatch.countDown();
+            throw new IllegalStateException("boom");
+        });
+        Stage<Void> dependent = pipeline.task("dependent", Stage.Type.IO, () -> executed.set(true), failed);
+        Stage<Void> transitive = pipeline.task("transitive", Stage.Type.IO, () -> executed.set(true), dependent);
+        Stage<Void> joined = pipeline.task("joined", Stage.Type.IO, () -> executed.set(true), independent, failed);
+        Stage<Integer> independentDependent = pipeline.stage("independentDependent", Stage.Type.CPU,
+                () -> independent.get() + 1, independent);
+
+        // 依赖失败阶段的阶段不执行，await在所有阶段结束后抛出最先失败阶段的异常
+        RuntimeException e = assertThrows(RuntimeException.class, pipeline::await);
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertFalse(executed.get());
+        assertEquals(Stage.Status.FAILED, failed.getStatus());
+        assertEquals(Stage.Status.SKIPPED, dependent.getStatus());
+        assertEquals(Stage.Status.SKIPPED, transitive.getStatus());
+        assertEquals(Stage.Status.SKIPPED, joined.getStatus());
+        assertEquals(Stage.Status.SUCCESS, independent.getStatus());
+        assertEquals(2, independentDependent.get());
+        // 失败后登记的独立阶段仍然执行
+        Stage<Void> late = pipeline.task("late", Stage.Type.IO, () -> executed.set(true));
+        assertThrows(RuntimeException.class, pipeline::await);
+        assertEquals(Stage.Status.SUCCESS, late.getStatus());
+        assertTrue(executed.get());
+    }
+}
@@ -0,0 +1,60 @@
+package cn.citizenwiki.processor.translation;
+
+import cn.citizenwiki.api.s3.S3Api;
+import cn.citizenwiki.api.s3.S3JacksonTools;
+import cn.citizenwiki.api.s3.S3StubServer;
+import cn.citizenwiki.api.s3.S3UploadService;
+import cn.citizenwiki.model.dto.s3.DeltaIndex;
+import cn.citizenwiki.utils.IniDelta;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IniDeltaPublisherTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testPublishDelta() throws Exception {
+        try (S3StubServer server = new S3StubServer();
+             S3UploadService uploadService = new S3UploadService(server.newApi())) {
+            S3Api s3Api = server.newApi();
+            IniDeltaPublisher publisher = new IniDeltaPublisher(s3Api, uploadService);
+            byte[] v1 = "﻿a=甲\nb=乙\n".getBytes(StandardCharsets.UTF_8);
+            byte[] v2 = "﻿a=甲\nb=乙乙\nc=丙\n".getBytes(StandardCharsets.UTF_8);
+            Path file = Files.write(tempDir.resolve("global.ini"), v2);
+
+            // 存储桶中没有旧文件时不生成补丁
+            assertTrue(publisher.prepare("full/global.ini", file, tempDir).isEmpty());
+
+            server.put("full/global.ini", v1, Map.of());
+            Optional<IniDeltaPublisher.PreparedDelta> delta = publisher.prepare("full/global.ini", file, tempDir);
+            assertTrue(delta.isPresent());
+            String expectedKey = "full/delta/" + IniDeltaPublisher.versionId(v1) + "-" + IniDeltaPublisher.versionId(v2);
+            assertEquals(expectedKey, delta.get().deltaKey());
+            uploadService.upload(delta.get().deltaKey(), delta.get().deltaPath());
+            uploadService.upload("full/global.ini", file);
+            publisher.publishIndex(delta.get(), tempDir);
+
+            // 客户端按索引取补丁还原新文件
+            DeltaIndex index = S3JacksonTools.om.readValue(server.get("full/delta/index.json").content(), DeltaIndex.class);
+            assertEquals(IniDeltaPublisher.versionId(v2), index.getLatest());
+            DeltaIndex.Delta entry = index.getDeltas().getFirst();
+            assertEquals(IniDeltaPublisher.versionId(v1), entry.getFrom());
+            assertArrayEquals(v2, IniDelta.apply(v1, server.get(entry.getKey()).content()));
+
+            // 已发布的内容未变化时不再生成补丁
+            assertTrue(publisher.prepare("full/global.ini", file, tempDir).isEmpty());
+        }
+    }
+}
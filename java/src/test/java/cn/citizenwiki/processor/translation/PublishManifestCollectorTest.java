@@ -0,0 +1,101 @@
+package cn.citizenwiki.processor.translation;
+
+import cn.citizenwiki.api.s3.S3JacksonTools;
+import cn.citizenwiki.api.s3.S3StubServer;
+import cn.citizenwiki.api.s3.S3UploadService;
+import cn.citizenwiki.model.dto.FileVersion;
+import cn.citizenwiki.model.dto.paratranz.response.PZFile;
+import cn.citizenwiki.model.dto.s3.PublishManifest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PublishManifestCollectorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWriteAndPublish() throws Exception {
+        PZFile pzFile = new PZFile();
+        pzFile.setName("3.24.4 PTU 98767232.json");
+        pzFile.setId(7L);
+        FileVersion fileVersion = new FileVersion(pzFile);
+
+        PublishManifestCollector collector = new PublishManifestCollector();
+        collector.add(variant("main"));
+        collector.add(variant("cn_e"));
+        Path manifestPath = collector.write(fileVersion, tempDir);
+
+        PublishManifest manifest = S3JacksonTools.om.readValue(manifestPath.toFile(), PublishManifest.class);
+        assertEquals("3.24.4 PTU 98767232", manifest.getVersion().getName());
+        assertEquals("3.24.4", manifest.getVersion().getGameVersion());
+        assertEquals("PTU", manifest.getVersion().getProfile());
+        assertEquals(98767232L, manifest.getVersion().getBuild());
+        // 按分支名排序，与登记顺序无关
+        assertEquals(List.of("cn_e", "main"), manifest.getVariants().stream().map(PublishManifest.Variant::getBranch).toList());
+
+        // 内容未变化时清单逐字节一致，不会重复上传
+        byte[] first = Files.readAllBytes(manifestPath);
+        try (S3StubServer server = new S3StubServer();
+             S3UploadService uploadService = new S3UploadService(server.newApi())) {
+            collector.publish(manifestPath, FileVersion.Profile.PTU, uploadService);
+            assertArrayEquals(first, server.get("ptu/manifest.json").content());
+            collector.publish(collector.write(fileVersion, tempDir), FileVersion.Profile.PTU, uploadService);
+            assertEquals(1, server.putRequests());
+        }
+        assertTrue(Files.exists(tempDir.resolve(PublishManifestCollector.MANIFEST_FILE_NAME)));
+    }
+
+    @Test
+    void testProfilesDoNotOverwriteEachOther() throws Exception {
+        PublishManifestCollector ptuCollector = new PublishManifestCollector();
+        ptuCollector.add(variant("main"));
+        Path ptuManifest = ptuCollector.write(fileVersion("3.24.4 PTU 98767232.json"), tempDir.resolve("ptu"));
+        PublishManifestCollector liveCollector = new PublishManifestCollector();
+        liveCollector.add(variant("main"));
+        liveCollector.add(variant("cn_e"));
+        Path liveManifest = liveCollector.write(fileVersion("3.24.3 LIVE 98700000.json"), tempDir.resolve("live"));
+
+        try (S3StubServer server = new S3StubServer();
+             S3UploadService uploadService = new S3UploadService(server.newApi())) {
+            ptuCollector.publish(ptuManifest, FileVersion.Profile.PTU, uploadService);
+            liveCollector.publish(liveManifest, FileVersion.Profile.LIVE, uploadService);
+            // 两个通道的清单各自存放，后发布的不会覆盖先发布的
+            assertEquals(Set.of("live/manifest.json", "ptu/manifest.json"), server.keys());
+            PublishManifest ptu = S3JacksonTools.om.readValue(server.get("ptu/manifest.json").content(), PublishManifest.class);
+            PublishManifest live = S3JacksonTools.om.readValue(server.get("live/manifest.json").content(), PublishManifest.class);
+            assertEquals("3.24.4 PTU 98767232", ptu.getVersion().getName());
+            assertEquals(1, ptu.getVariants().size());
+            assertEquals("3.24.3 LIVE 98700000", live.getVersion().getName());
+            assertEquals(2, live.getVariants().size());
+        }
+    }
+
+    private static FileVersion fileVersion(String name) {
+        PZFile pzFile = new PZFile();
+        pzFile.setName(name);
+        pzFile.setId(7L);
+        return new FileVersion(pzFile);
+    }
+
+    private static PublishManifest.Variant variant(String branch) {
+        PublishManifest.Variant variant = new PublishManifest.Variant();
+        variant.setProcessor(branch);
+        variant.setBranch(branch);
+        variant.setEntries(2);
+        variant.setSize(10);
+        variant.setSha256("00");
+        variant.setXxh64("ef46db3751d8e999");
+        variant.setObjects(List.of());
+        return variant;
+    }
+}
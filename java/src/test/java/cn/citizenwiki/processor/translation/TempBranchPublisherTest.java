@@ -0,0 +1,109 @@
+package cn.citizenwiki.processor.translation;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TempBranchPublisherTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testPushAll() throws Exception {
+        // 远程仓库，temp_conflict分支已存在且与本地提交无关，推送会被拒绝
+        Path remoteDir = tempDir.resolve("remote");
+        RevCommit base;
+        try (Git remote = Git.init().setDirectory(remoteDir.toFile()).setInitialBranch("main").call()) {
+            Files.writeString(remoteDir.resolve("global.ini"), "a=0\n", StandardCharsets.UTF_8);
+            remote.add().addFilepattern(".").call();
+            base = remote.commit().setMessage("v0").setSign(false).call();
+            Files.writeString(remoteDir.resolve("global.ini"), "a=remote\n", StandardCharsets.UTF_8);
+            remote.add().addFilepattern(".").call();
+            remote.commit().setMessage("remote").setSign(false).call();
+            remote.branchCreate().setName("temp_conflict").call();
+        }
+
+        Path localDir = tempDir.resolve("local");
+        ObjectId first;
+        ObjectId second;
+        try (Git local = Git.cloneRepository().setURI(remoteDir.toUri().toString()).setDirectory(localDir.toFile()).call()) {
+            local.checkout().setName("work").setCreateBranch(true).setStartPoint(base).call();
+            Files.writeString(localDir.resolve("global.ini"), "a=1\n", StandardCharsets.UTF_8);
+            local.add().addFilepattern(".").call();
+            first = local.commit().setMessage("v1").setSign(false).call();
+            Files.writeString(localDir.resolve("global.ini"), "a=2\n", StandardCharsets.UTF_8);
+            local.add().addFilepattern(".").call();
+            second = local.commit().setMessage("v2").setSign(false).call();
+        }
+
+        TempBranchPublisher publisher = new TempBranchPublisher(localDir.toFile());
+        List<String> pushed = new ArrayList<>();
+        publisher.add("p1", "temp_ok", first, () -> pushed.add("temp_ok"));
+        publisher.add("p2", "temp_conflict", second, () -> pushed.add("temp_conflict"));
+
+        // 一个分支失败时整体失败，但成功的分支仍执行后续操作
+        assertFalse(publisher.pushAll(remoteDir.toUri().toString(), null));
+        assertEquals(List.of("temp_ok"), pushed);
+        try (Git remote = Git.open(remoteDir.toFile())) {
+            assertEquals(first, remote.getRepository().resolve("refs/heads/temp_ok"));
+        }
+        // 本地临时分支已清理
+        try (Git local = Git.open(localDir.toFile())) {
+            assertNull(local.getRepository().exactRef("refs/heads/temp_ok"));
+            assertNull(local.getRepository().exactRef("refs/heads/temp_conflict"));
+        }
+        // 登记的分支已全部处理
+        assertTrue(publisher.pushAll(remoteDir.toUri().toString(), null));
+    }
+
+    @Test
+    void testDeleteExpired() throws Exception {
+        Path remoteDir = tempDir.resolve("remote");
+        try (Git remote = Git.init().setDirectory(remoteDir.toFile()).setInitialBranch("main").call()) {
+            Files.writeString(remoteDir.resolve("global.ini"), "a=0\n", StandardCharsets.UTF_8);
+            remote.add().addFilepattern(".").call();
+            remote.commit().setMessage("v0").setSign(false).call();
+            remote.branchCreate().setName("temp_cn_e_4.1.0_LIVE_1_20250101080000").call();
+            remote.branchCreate().setName("temp_main_4.1.0_LIVE_2_20250301080000").call();
+            // 不是本工具生成的分支
+            remote.branchCreate().setName("template").call();
+        }
+        Path localDir = tempDir.resolve("local.git");
+        Git.init().setBare(true).setDirectory(localDir.toFile()).call().close();
+
+        TempBranchPublisher publisher = new TempBranchPublisher(localDir.toFile());
+        ZonedDateTime expireBefore = ZonedDateTime.of(2025, 2, 1, 0, 0, 0, 0, CommonTranslationProcessor.TEMP_BRANCH_ZONE);
+        assertTrue(publisher.deleteExpired(remoteDir.toUri().toString(), null, expireBefore));
+        try (Git remote = Git.open(remoteDir.toFile())) {
+            assertNull(remote.getRepository().exactRef("refs/heads/temp_cn_e_4.1.0_LIVE_1_20250101080000"));
+            assertNotNull(remote.getRepository().exactRef("refs/heads/temp_main_4.1.0_LIVE_2_20250301080000"));
+            assertNotNull(remote.getRepository().exactRef("refs/heads/template"));
+            assertNotNull(remote.getRepository().exactRef("refs/heads/main"));
+        }
+    }
+
+    @Test
+    void testParseTempBranchTime() {
+        assertEquals(Optional.of(ZonedDateTime.of(2025, 1, 1, 8, 0, 0, 0, CommonTranslationProcessor.TEMP_BRANCH_ZONE)),
+                CommonTranslationProcessor.parseTempBranchTime("temp_cn_e_4.1.0_LIVE_1_20250101080000"));
+        assertEquals(Optional.empty(), CommonTranslationProcessor.parseTempBranchTime("temp_main_broken"));
+        assertEquals(Optional.empty(), CommonTranslationProcessor.parseTempBranchTime("template"));
+    }
+}
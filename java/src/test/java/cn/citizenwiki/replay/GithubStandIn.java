@@ -0,0 +1,65 @@
+package cn.citizenwiki.replay;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 本地Github api替身，只支持创建pull request，记录请求体后返回新的pr编号
+ */
+public class GithubStandIn implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    //收到的创建pr请求体
+    private final List<String> pullRequests = new CopyOnWriteArrayList<>();
+
+    public GithubStandIn() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/repos/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * 替身的api地址
+     */
+    public String getApiUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * 收到的创建pr请求体
+     */
+    public List<String> pullRequests() {
+        return List.copyOf(pullRequests);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST") || !exchange.getRequestURI().getPath().endsWith("/pulls")) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        pullRequests.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        byte[] bytes = "{\"id\":%d,\"number\":%d,\"state\":\"open\"}".formatted(pullRequests.size(), pullRequests.size())
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(201, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
@@ -0,0 +1,137 @@
+package cn.citizenwiki.replay;
+
+import cn.citizenwiki.MergeAndConvert;
+import cn.citizenwiki.api.github.GithubConfig;
+import cn.citizenwiki.api.paratranz.ParatranzCache;
+import cn.citizenwiki.api.s3.S3JacksonTools;
+import cn.citizenwiki.api.s3.S3StubServer;
+import cn.citizenwiki.config.EnvConfig;
+import cn.citizenwiki.config.GlobalConfig;
+import cn.citizenwiki.utils.FileUtil;
+import cn.citizenwiki.utils.JGitUtil;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 离线回放
+ * 使用已有的paratranz缓存与global.ini完整执行一次{@link MergeAndConvert}（包括推送、pr与存储桶上传），
+ * paratranz、github api与存储桶使用进程内的替身，盒子仓库使用本地裸仓库，不需要任何凭证与网络；
+ * 每次回放的替身都是全新的，工作量固定，运行报告（final_output/run_report.json）可用于在开发机上对比优化前后的性能；
+ * 替身只用于回放与测试，放在测试目录中，不随正式运行的类打包
+ */
+public class OfflineReplay {
+
+    //盒子仓库替身，每次回放重新创建
+    public static final String REMOTE_DIR = "cache/replay/scbox.git";
+    //回放结果的文件名
+    public static final String SUMMARY_FILE_NAME = "replay_summary.json";
+    //基准global.ini
+    private static final Path SOURCE_INI_PATH = Path.of("global.ini");
+
+    private static final Logger logger = LoggerFactory.getLogger(OfflineReplay.class);
+
+    /**
+     * @param args 传给{@link MergeAndConvert#main(String[])}的参数
+     */
+    public static void main(String[] args) throws Exception {
+        Path cacheDir = Path.of(ParatranzCache.CACHE_DIR);
+        if (!Files.exists(cacheDir.resolve(ParatranzCache.METADATA_FILE_NAME)) || !Files.exists(SOURCE_INI_PATH)) {
+            throw new RuntimeException("离线回放需要已有的paratranz缓存[" + cacheDir + "]与" + SOURCE_INI_PATH);
+        }
+        Path remoteDir = Path.of(REMOTE_DIR).toAbsolutePath();
+        try (ParatranzStandIn paratranz = new ParatranzStandIn(cacheDir);
+             GithubStandIn github = new GithubStandIn();
+             S3StubServer s3 = new S3StubServer()) {
+            //必须在任何配置类初始化之前覆盖
+            EnvConfig.override(environment(paratranz, github, s3, remoteDir));
+            createRemote(remoteDir, SOURCE_INI_PATH, MergeAndConvert.SCBOX_BRANCHES);
+            long startNanos = System.nanoTime();
+            MergeAndConvert.main(args);
+            ReplaySummary summary = new ReplaySummary((System.nanoTime() - startNanos) / 1_000_000, paratranz.requests(),
+                    listBranches(remoteDir), github.pullRequests(), new ArrayList<>(s3.keys()));
+            Path summaryPath = Path.of(GlobalConfig.OUTPUT_DIR, SUMMARY_FILE_NAME);
+            S3JacksonTools.om.writeValue(summaryPath.toFile(), summary);
+            logger.info("离线回放完成，耗时{}ms，paratranz请求{}次，创建pr{}个，存储桶对象{}个，盒子仓库分支{}个，详见[{}]",
+                    summary.durationMillis(), summary.paratranzRequests(), summary.pullRequests().size(),
+                    summary.s3Keys().size(), summary.branches().size(), summaryPath);
+        }
+    }
+
+    /**
+     * 指向替身的环境变量，开启推送以执行完整流程，关闭运行指纹以免影响正式运行
+     */
+    static Map<String, String> environment(ParatranzStandIn paratranz, GithubStandIn github, S3StubServer s3, Path remoteDir) {
+        Map<String, String> environment = new HashMap<>();
+        environment.put("PZ_PROJECT_ID", ParatranzStandIn.PROJECT_ID);
+        environment.put("PZ_TOKEN", "replay");
+        environment.put("PZ_API_URL", paratranz.getApiUrl());
+        environment.put("PZ_INCREMENTAL_SYNC", "false");
+        environment.put("GITHUB_FORK_USERNAME", "replay");
+        environment.put("GITHUB_FORK_REPO", "replay");
+        environment.put("GITHUB_TOKEN", "replay");
+        environment.put("GITHUB_API_URL", github.getApiUrl());
+        environment.put("SCBOX_REMOTE_URL", remoteDir.toUri().toString());
+        environment.put("S3_ACCESS_KEY", "replay");
+        environment.put("S3_SECRET_KEY", "replay");
+        environment.put("S3_BUCKET", S3StubServer.BUCKET);
+        environment.put("S3_ENDPOINT", s3.getEndpoint());
+        environment.put("S3_PATH_STYLE", "true");
+        environment.put("SW_PUBLISH", "true");
+        environment.put("SW_RUN_FINGERPRINT", "false");
+        //未指定时按正式版发布，所有版本都会上传
+        environment.put("SW_PROFILE", Objects.requireNonNullElse(System.getenv("SW_PROFILE"), "LIVE"));
+        return environment;
+    }
+
+    /**
+     * 重新创建盒子仓库替身，各分支都只有一个以global.ini为汉化文件的提交
+     */
+    static void createRemote(Path remoteDir, Path sourceIni, List<String> branches) throws IOException, GitAPIException {
+        if (Files.exists(remoteDir)) {
+            FileUtil.deleteDirectory(remoteDir.toString());
+        }
+        try (Git git = Git.init().setBare(true).setDirectory(remoteDir.toFile()).call()) {
+            ObjectId commitId = JGitUtil.commitFile(git.getRepository(), null, GithubConfig.CN_GLOBAL_INI_PATH, sourceIni, "replay");
+            for (String branch : branches) {
+                JGitUtil.createBranch(git.getRepository(), Constants.R_HEADS + branch, commitId);
+            }
+        }
+        logger.info("已创建盒子仓库替身[{}]，分支：{}", remoteDir, branches);
+    }
+
+    private static List<String> listBranches(Path remoteDir) throws IOException {
+        try (Git git = Git.open(remoteDir.toFile())) {
+            return git.getRepository().getRefDatabase().getRefsByPrefix(Constants.R_HEADS).stream()
+                    .map(ref -> Repository.shortenRefName(ref.getName()))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * 回放结果，写入final_output/replay_summary.json
+     *
+     * @param durationMillis    耗时
+     * @param paratranzRequests paratranz替身收到的请求数
+     * @param branches          回放结束时盒子仓库替身的分支（含推送的临时分支），按名称排序
+     * @param pullRequests      创建pr的请求体
+     * @param s3Keys            存储桶中的对象，按key排序
+     */
+    public record ReplaySummary(long durationMillis, int paratranzRequests, List<String> branches,
+                                List<String> pullRequests, List<String> s3Keys) {
+    }
+}
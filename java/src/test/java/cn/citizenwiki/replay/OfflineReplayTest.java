@@ -0,0 +1,177 @@
+package cn.citizenwiki.replay;
+
+import cn.citizenwiki.api.github.GithubConfig;
+import cn.citizenwiki.api.s3.S3JacksonTools;
+import cn.citizenwiki.bench.SyntheticCorpus;
+import cn.citizenwiki.config.GlobalConfig;
+import cn.citizenwiki.utils.FileUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class OfflineReplayTest {
+
+    private static final List<String> BRANCHES = List.of("cn_e", "cn_en", "cn_pinyin", "cn_search", "main");
+    private static final String VERSION = "4.1.0 LIVE 9750000";
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * 在小规模合成语料上完整回放一次，回放会覆盖进程级的环境变量，因此在独立的jvm中执行
+     */
+    @Test
+    void testReplay() throws Exception {
+        new SyntheticCorpus(2000, SyntheticCorpus.DEFAULT_SEED).generate(tempDir);
+        FileUtil.copyDirectory(repoPath(GlobalConfig.RULE_CONFIG_DIR), tempDir.resolve(GlobalConfig.RULE_CONFIG_DIR));
+        FileUtil.copyDirectory(repoPath("data"), tempDir.resolve("data"));
+
+        Path log = tempDir.resolve("replay.log");
+        Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Dsun.jnu.encoding=" + System.getProperty("sun.jnu.encoding"), "-Dfile.encoding=UTF-8",
+                "-cp", System.getProperty("java.class.path"), OfflineReplay.class.getName())
+                .directory(tempDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        process.getOutputStream().close();
+        if (!process.waitFor(5, TimeUnit.MINUTES)) {
+            process.destroyForcibly();
+            fail("离线回放超时");
+        }
+        assertEquals(0, process.exitValue(), () -> "离线回放失败：" + tail(log));
+
+        OfflineReplay.ReplaySummary summary = S3JacksonTools.om.readValue(
+                tempDir.resolve(GlobalConfig.OUTPUT_DIR).resolve(OfflineReplay.SUMMARY_FILE_NAME).toFile(), OfflineReplay.ReplaySummary.class);
+        // paratranz缓存全部命中，只请求一次文件列表
+        assertEquals(1, summary.paratranzRequests());
+
+        // 每个版本推送一个临时分支，基于对应分支并修改了汉化文件
+        Map<String, String> tempBranches = new TreeMap<>();
+        try (Git git = Git.open(tempDir.resolve(OfflineReplay.REMOTE_DIR).toFile())) {
+            Repository repository = git.getRepository();
+            List<String> remoteBranches = repository.getRefDatabase().getRefsByPrefix(Constants.R_HEADS).stream()
+                    .map(ref -> Repository.shortenRefName(ref.getName())).sorted().toList();
+            assertEquals(remoteBranches, summary.branches());
+            for (String branch : BRANCHES) {
+                List<String> pushed = remoteBranches.stream()
+                        .filter(name -> name.startsWith("temp_" + branch + "_4.1.0_LIVE_9750000_")).toList();
+                assertEquals(1, pushed.size(), branch + "的临时分支：" + pushed);
+                tempBranches.put(branch, pushed.getFirst());
+                try (RevWalk revWalk = new RevWalk(repository)) {
+                    RevCommit base = revWalk.parseCommit(repository.resolve(Constants.R_HEADS + branch));
+                    RevCommit temp = revWalk.parseCommit(repository.resolve(Constants.R_HEADS + pushed.getFirst()));
+                    assertEquals(1, temp.getParentCount());
+                    assertEquals(base, temp.getParent(0));
+                    assertNotEquals(readIni(repository, base), readIni(repository, temp));
+                }
+            }
+            assertEquals(BRANCHES.size() * 2, remoteBranches.size());
+        }
+
+        // 每个版本一个pr，从临时分支合并到对应分支
+        Map<String, JsonNode> pullRequests = new TreeMap<>();
+        for (String body : summary.pullRequests()) {
+            JsonNode pullRequest = S3JacksonTools.om.readTree(body);
+            pullRequests.put(pullRequest.get("base").asText(), pullRequest);
+        }
+        assertEquals(BRANCHES, List.copyOf(pullRequests.keySet()));
+        assertEquals(BRANCHES.size(), summary.pullRequests().size());
+        for (String branch : BRANCHES) {
+            JsonNode pullRequest = pullRequests.get(branch);
+            assertEquals(VERSION + " " + branch, pullRequest.get("title").asText());
+            assertEquals(VERSION, pullRequest.get("body").asText());
+            assertTrue(pullRequest.get("head").asText().endsWith(":" + tempBranches.get(branch)), pullRequest.toString());
+        }
+
+        // 各版本的global.ini及其压缩版本与编码清单、原始文件、data.zip，最后是按发布通道存放的发布清单
+        List<String> expectedKeys = new ArrayList<>(List.of("live/manifest.json", "data.zip", "orginal/global.ini"));
+        for (String dir : List.of("both", "full", "half", "pinyin", "search")) {
+            expectedKeys.addAll(List.of(dir + "/global.ini", dir + "/global.ini.encodings.json", dir + "/global.ini.gz"));
+        }
+        expectedKeys.sort(null);
+        assertEquals(expectedKeys, summary.s3Keys());
+        // 压缩包包含全汉化的global.ini与data目录中的游戏配置、术语表
+        try (ZipFile zipFile = new ZipFile(tempDir.resolve(GlobalConfig.OUTPUT_DIR).resolve("data.zip").toFile())) {
+            assertEquals(List.of("data/Localization/" + GithubConfig.CN_GLOBAL_INI_PATH, "data/system.cfg", "data/terms-8340.json"),
+                    Collections.list(zipFile.entries()).stream().map(ZipEntry::getName).toList());
+        }
+    }
+
+    @Test
+    void testCreateRemote() throws Exception {
+        Path ini = tempDir.resolve("global.ini");
+        Files.writeString(ini, "a=1\n", StandardCharsets.UTF_8);
+        Path remoteDir = tempDir.resolve("scbox.git");
+        // 已存在的替身会被重新创建
+        Files.createDirectories(remoteDir.resolve("stale"));
+        OfflineReplay.createRemote(remoteDir, ini, List.of("main", "bilingual"));
+
+        try (Git git = Git.open(remoteDir.toFile())) {
+            Repository repository = git.getRepository();
+            ObjectId main = repository.resolve("refs/heads/main");
+            assertNotNull(main);
+            assertEquals(main, repository.resolve("refs/heads/bilingual"));
+            try (RevWalk revWalk = new RevWalk(repository)) {
+                RevCommit commit = revWalk.parseCommit(main);
+                // 根提交
+                assertEquals(0, commit.getParentCount());
+                try (TreeWalk treeWalk = TreeWalk.forPath(repository, GithubConfig.CN_GLOBAL_INI_PATH, commit.getTree())) {
+                    assertNotNull(treeWalk);
+                    assertEquals("a=1\n", new String(repository.open(treeWalk.getObjectId(0)).getBytes(), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        assertFalse(Files.exists(remoteDir.resolve("stale")));
+    }
+
+    private static String readIni(Repository repository, RevCommit commit) throws Exception {
+        try (TreeWalk treeWalk = TreeWalk.forPath(repository, GithubConfig.CN_GLOBAL_INI_PATH, commit.getTree())) {
+            assertNotNull(treeWalk);
+            return new String(repository.open(treeWalk.getObjectId(0)).getBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 仓库根目录下的文件，mvn在java目录执行测试
+     */
+    private static Path repoPath(String name) {
+        Path path = Path.of(name);
+        return Files.exists(path) ? path : Path.of("..", name);
+    }
+
+    private static String tail(Path log) {
+        try {
+            List<String> lines = Files.readAllLines(log, StandardCharsets.UTF_8);
+            return String.join("\n", lines.subList(Math.max(0, lines.size() - 30), lines.size()));
+        } catch (Exception e) {
+            return e.toString();
+        }
+    }
+}
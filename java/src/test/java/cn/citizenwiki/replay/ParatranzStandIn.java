@@ -0,0 +1,94 @@
+package cn.citizenwiki.replay;
+
+import cn.citizenwiki.api.paratranz.ParatranzCache;
+import cn.citizenwiki.api.paratranz.ParatranzJacksonTools;
+import cn.citizenwiki.model.dto.paratranz.response.PZFile;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 本地Paratranz替身，用已有的paratranz缓存响应文件列表与文件翻译接口
+ * 文件列表就是缓存中的元数据，因此同步时所有文件都命中缓存，缓存内容不会变化
+ */
+public class ParatranzStandIn implements AutoCloseable {
+
+    //替身的项目id
+    public static final String PROJECT_ID = "replay";
+    private static final Pattern TRANSLATION_PATH = Pattern.compile("/files/(\\d+)/translation$");
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Path cacheDir;
+    //文件id -> 缓存中的文件
+    private final Map<Long, PZFile> files;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    /**
+     * @param cacheDir paratranz缓存目录
+     */
+    public ParatranzStandIn(Path cacheDir) throws IOException {
+        this.cacheDir = cacheDir;
+        List<PZFile> pzFiles = ParatranzJacksonTools.om.readValue(cacheDir.resolve(ParatranzCache.METADATA_FILE_NAME).toFile(),
+                ParatranzJacksonTools.LIST_FILE);
+        this.files = pzFiles.stream().collect(Collectors.toMap(PZFile::getId, Function.identity()));
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/projects/" + PROJECT_ID + "/files", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * 替身的api地址
+     */
+    public String getApiUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * 收到的请求数
+     */
+    public int requests() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        String path = exchange.getRequestURI().getPath();
+        Matcher matcher = TRANSLATION_PATH.matcher(path);
+        Path body;
+        if (path.endsWith("/files")) {
+            body = cacheDir.resolve(ParatranzCache.METADATA_FILE_NAME);
+        } else if (matcher.find() && files.containsKey(Long.parseLong(matcher.group(1)))) {
+            body = cacheDir.resolve(files.get(Long.parseLong(matcher.group(1))).getName());
+        } else {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = Files.readAllBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
@@ -0,0 +1,58 @@
+package cn.citizenwiki.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileUtilTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testZipFiles() throws IOException {
+        Path output = Files.createDirectories(tempDir.resolve("final_output/main/chinese_(simplified)"));
+        Path globalIni = Files.writeString(output.resolve("global.ini"), "a=甲\n", StandardCharsets.UTF_8);
+        Path dataDir = Files.createDirectories(tempDir.resolve("data"));
+        Path systemCfg = Files.writeString(dataDir.resolve("system.cfg"), "g_language = chinese_(simplified)\n");
+
+        Map<String, Path> entries = new LinkedHashMap<>();
+        entries.put("data/Localization/chinese_(simplified)/global.ini", globalIni);
+        entries.put("data/system.cfg", systemCfg);
+        Path zip = tempDir.resolve("data.zip");
+        FileUtil.zipFiles(entries, zip, Deflater.BEST_COMPRESSION, ForkJoinPool.commonPool());
+
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            assertEquals(List.copyOf(entries.keySet()), Collections.list(zipFile.entries()).stream().map(ZipEntry::getName).toList());
+            assertEquals("a=甲\n", new String(zipFile.getInputStream(zipFile.getEntry("data/Localization/chinese_(simplified)/global.ini"))
+                    .readAllBytes(), StandardCharsets.UTF_8));
+        }
+        // 源目录不被修改
+        try (Stream<Path> files = Files.list(dataDir)) {
+            assertEquals(List.of(systemCfg), files.toList());
+        }
+        // 条目不记录文件修改时间，内容相同时压缩包相同
+        Files.setLastModifiedTime(globalIni, FileTime.from(Instant.parse("2025-01-01T00:00:00Z")));
+        Path again = tempDir.resolve("data-again.zip");
+        FileUtil.zipFiles(entries, again, Deflater.BEST_COMPRESSION, ForkJoinPool.commonPool());
+        assertArrayEquals(Files.readAllBytes(zip), Files.readAllBytes(again));
+    }
+}
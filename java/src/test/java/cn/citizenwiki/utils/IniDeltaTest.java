@@ -0,0 +1,53 @@
+package cn.citizenwiki.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IniDeltaTest {
+
+    @Test
+    void testApplyIsByteIdentical() throws IOException {
+        // 带bom，混合换行符，重复key，无=的行，末尾没有换行
+        String from = "﻿a=甲\r\nb=乙\nc=丙\n注释行\nd=丁\nd=重复\ne=戊";
+        String to = "﻿a=甲\r\nb=乙乙\r\nx=新增\nc=丙\nd=重复\nd=丁\ne=戊\n";
+        assertRoundTrip(from, to);
+        assertRoundTrip(from, from);
+        assertRoundTrip("", to);
+        assertRoundTrip(from, "");
+        // 顺序调换
+        assertRoundTrip("a=1\nb=2\nc=3\n", "c=3\nb=2\na=1\n");
+    }
+
+    @Test
+    void testSmallChangeGivesSmallDelta() throws IOException {
+        Random random = new Random(1);
+        StringBuilder from = new StringBuilder("﻿");
+        for (int i = 0; i < 20000; i++) {
+            from.append("key_").append(i).append('=').append(Long.toHexString(random.nextLong())).append("\n");
+        }
+        String to = from.toString().replace("key_100=", "key_100=修改").replace("key_5000=", "key_new=新增\nkey_5000=");
+        byte[] fromBytes = from.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] delta = IniDelta.diff(fromBytes, to.getBytes(StandardCharsets.UTF_8));
+        assertTrue(delta.length < 200, "补丁过大：" + delta.length);
+        assertArrayEquals(to.getBytes(StandardCharsets.UTF_8), IniDelta.apply(fromBytes, delta));
+    }
+
+    @Test
+    void testRejectWrongBase() {
+        byte[] delta = IniDelta.diff("a=1\n".getBytes(StandardCharsets.UTF_8), "a=2\n".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> IniDelta.apply("a=3\n".getBytes(StandardCharsets.UTF_8), delta));
+    }
+
+    private static void assertRoundTrip(String from, String to) throws IOException {
+        byte[] fromBytes = from.getBytes(StandardCharsets.UTF_8);
+        byte[] toBytes = to.getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(toBytes, IniDelta.apply(fromBytes, IniDelta.diff(fromBytes, toBytes)));
+    }
+}
@@ -0,0 +1,190 @@
+package cn.citizenwiki.utils;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JGitUtilTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testCommitFile() throws Exception {
+        // 模拟盒子仓库：main有多次提交，另有一个无关分支
+        Path seedDir = tempDir.resolve("seed");
+        ObjectId tip;
+        try (Git seed = Git.init().setDirectory(seedDir.toFile()).setInitialBranch("main").call()) {
+            Files.createDirectories(seedDir.resolve("chinese_(simplified)"));
+            Files.writeString(seedDir.resolve("README.md"), "readme", StandardCharsets.UTF_8);
+            for (int i = 0; i < 3; i++) {
+                Files.writeString(seedDir.resolve("chinese_(simplified)/global.ini"), "a=" + i + "\n", StandardCharsets.UTF_8);
+                seed.add().addFilepattern(".").call();
+                seed.commit().setMessage("v" + i).setSign(false).call();
+            }
+            seed.branchCreate().setName("other").call();
+            tip = seed.getRepository().resolve("main");
+        }
+
+        Path originDir = tempDir.resolve("origin");
+        ObjectId commitId;
+        try (Git origin = JGitUtil.syncMirror(seedDir.toUri().toString(), originDir.toFile(), List.of("main"))) {
+            assertTrue(Files.exists(originDir.resolve("shallow")));
+            assertNull(origin.getRepository().resolve("refs/remotes/origin/other"));
+            assertEquals(tip, origin.getRepository().resolve("refs/remotes/origin/main"));
+
+            Repository repository = origin.getRepository();
+            // 内容未变化时不提交
+            Path unchanged = tempDir.resolve("unchanged.ini");
+            Files.writeString(unchanged, "a=2\n", StandardCharsets.UTF_8);
+            assertNull(JGitUtil.commitFile(repository, tip, "chinese_(simplified)/global.ini", unchanged, "v3"));
+
+            Path changed = tempDir.resolve("changed.ini");
+            Files.writeString(changed, "a=3\n", StandardCharsets.UTF_8);
+            commitId = JGitUtil.commitFile(repository, tip, "chinese_(simplified)/global.ini", changed, "v3");
+            assertNotNull(commitId);
+            try (RevWalk revWalk = new RevWalk(repository)) {
+                RevCommit commit = revWalk.parseCommit(commitId);
+                assertEquals(tip, commit.getParent(0));
+                // 其他文件保持不变
+                assertNotNull(TreeWalk.forPath(repository, "README.md", commit.getTree()));
+                try (TreeWalk treeWalk = TreeWalk.forPath(repository, "chinese_(simplified)/global.ini", commit.getTree())) {
+                    assertEquals("a=3\n", new String(repository.open(treeWalk.getObjectId(0)).getBytes(), StandardCharsets.UTF_8));
+                }
+            }
+
+            // 浅克隆边界之外的历史不影响推送
+            JGitUtil.createBranch(repository, "refs/heads/temp", commitId);
+            origin.push().setRemote(seedDir.toUri().toString()).setRefSpecs(new RefSpec("refs/heads/temp:refs/heads/temp")).call();
+            JGitUtil.deleteBranch(repository, "refs/heads/temp");
+            assertNull(repository.resolve("refs/heads/temp"));
+        }
+        try (Git seed = Git.open(seedDir.toFile())) {
+            assertEquals(commitId, seed.getRepository().resolve("refs/heads/temp"));
+        }
+    }
+
+    @Test
+    void testSyncMirror() throws Exception {
+        Path seedDir = tempDir.resolve("seed");
+        String uri = seedDir.toUri().toString();
+        Path mirrorDir = tempDir.resolve("mirror.git");
+        try (Git seed = Git.init().setDirectory(seedDir.toFile()).setInitialBranch("main").call()) {
+            Files.writeString(seedDir.resolve("global.ini"), "a=0\n", StandardCharsets.UTF_8);
+            seed.add().addFilepattern(".").call();
+            seed.commit().setMessage("v0").setSign(false).call();
+            seed.branchCreate().setName("cn_e").call();
+
+            try (Git mirror = JGitUtil.syncMirror(uri, mirrorDir.toFile(), List.of("main", "cn_e"))) {
+                assertTrue(mirror.getRepository().isBare());
+            }
+
+            // 再次同步拿到新提交
+            Files.writeString(seedDir.resolve("global.ini"), "a=1\n", StandardCharsets.UTF_8);
+            seed.add().addFilepattern(".").call();
+            RevCommit v1 = seed.commit().setMessage("v1").setSign(false).call();
+            try (Git mirror = JGitUtil.syncMirror(uri, mirrorDir.toFile(), List.of("main"))) {
+                assertEquals(v1, mirror.getRepository().resolve("refs/remotes/origin/main"));
+                // 不再需要的分支被清理
+                assertNull(mirror.getRepository().resolve("refs/remotes/origin/cn_e"));
+            }
+
+            // 镜像损坏时重新拉取
+            try (Stream<Path> files = Files.walk(mirrorDir.resolve("objects"))) {
+                for (Path file : files.filter(Files::isRegularFile).toList()) {
+                    Files.delete(file);
+                }
+            }
+            try (Git mirror = JGitUtil.syncMirror(uri, mirrorDir.toFile(), List.of("main"))) {
+                ObjectId tip = mirror.getRepository().resolve("refs/remotes/origin/main");
+                assertEquals(v1, tip);
+                assertTrue(mirror.getRepository().getObjectDatabase().has(tip));
+            }
+        }
+    }
+
+    @Test
+    void testSyncMirrorCollectsUnreachableObjects() throws Exception {
+        Path seedDir = tempDir.resolve("seed");
+        String uri = seedDir.toUri().toString();
+        Path mirrorDir = tempDir.resolve("mirror.git");
+        Path file = tempDir.resolve("temp.ini");
+        try (Git seed = Git.init().setDirectory(seedDir.toFile()).setInitialBranch("main").call()) {
+            Files.writeString(seedDir.resolve("global.ini"), "a=0\n", StandardCharsets.UTF_8);
+            seed.add().addFilepattern(".").call();
+            seed.commit().setMessage("v0").setSign(false).call();
+
+            ObjectId tempCommit;
+            try (Git mirror = JGitUtil.syncMirror(uri, mirrorDir.toFile(), List.of("main"))) {
+                // 模拟推送后不再被引用的临时分支提交
+                Repository repository = mirror.getRepository();
+                Files.writeString(file, "a=临时\n", StandardCharsets.UTF_8);
+                tempCommit = JGitUtil.commitFile(repository, repository.resolve("refs/remotes/origin/main"), "global.ini", file, "temp");
+                assertTrue(repository.getObjectDatabase().has(tempCommit));
+            }
+
+            // 未达到回收阈值时不回收
+            RevCommit tip = commit(seed, "a=1\n");
+            try (Git mirror = JGitUtil.syncMirror(uri, mirrorDir.toFile(), List.of("main"))) {
+                Repository repository = mirror.getRepository();
+                assertTrue(repository.getObjectDatabase().has(tempCommit));
+                assertEquals(tip, repository.resolve("refs/remotes/origin/main"));
+            }
+
+            // 每次拉取新增一个包文件，达到阈值时回收
+            for (int i = 3; packFiles(mirrorDir) < JGitUtil.GC_PACK_FILES - 1; i++) {
+                tip = commit(seed, "a=" + i + "\n");
+                try (Git mirror = JGitUtil.syncMirror(uri, mirrorDir.toFile(), List.of("main"))) {
+                    assertTrue(mirror.getRepository().getObjectDatabase().has(tempCommit));
+                }
+                assertEquals(i, packFiles(mirrorDir));
+            }
+            tip = commit(seed, "a=最新\n");
+            try (Git mirror = JGitUtil.syncMirror(uri, mirrorDir.toFile(), List.of("main"))) {
+                Repository repository = mirror.getRepository();
+                // 不可达的提交被回收，分支的最新提交仍然完整
+                assertFalse(repository.getObjectDatabase().has(tempCommit));
+                assertEquals(tip, repository.resolve("refs/remotes/origin/main"));
+                try (RevWalk revWalk = new RevWalk(repository);
+                     TreeWalk treeWalk = TreeWalk.forPath(repository, "global.ini", revWalk.parseCommit(tip).getTree())) {
+                    assertEquals("a=最新\n", new String(repository.open(treeWalk.getObjectId(0)).getBytes(), StandardCharsets.UTF_8));
+                }
+                // 松散对象全部打包
+                try (Stream<Path> files = Files.list(mirrorDir.resolve("objects"))) {
+                    assertTrue(files.map(path -> path.getFileName().toString()).allMatch(name -> name.equals("pack") || name.equals("info")));
+                }
+                assertEquals(1, packFiles(mirrorDir));
+            }
+        }
+    }
+
+    private static RevCommit commit(Git git, String content) throws Exception {
+        Files.writeString(git.getRepository().getWorkTree().toPath().resolve("global.ini"), content, StandardCharsets.UTF_8);
+        git.add().addFilepattern(".").call();
+        return git.commit().setMessage(content.strip()).setSign(false).call();
+    }
+
+    private static long packFiles(Path mirrorDir) throws Exception {
+        try (Stream<Path> files = Files.list(mirrorDir.resolve("objects/pack"))) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".pack")).count();
+        }
+    }
+}
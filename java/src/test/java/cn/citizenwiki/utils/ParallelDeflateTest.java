@@ -0,0 +1,43 @@
+package cn.citizenwiki.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelDeflateTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testGzip() throws IOException {
+        StringBuilder sb = new StringBuilder("\ufeff");
+        for (int i = 0; i < 50000; i++) {
+            sb.append("item_Desc_").append(i).append("=描述").append(i % 97).append("\\n第二行\n");
+        }
+        Path source = Files.writeString(tempDir.resolve("global.ini"), sb, StandardCharsets.UTF_8);
+        Path first = tempDir.resolve("first.gz");
+        Path second = tempDir.resolve("second.gz");
+        ParallelDeflate.gzip(source, first, Deflater.BEST_COMPRESSION, ForkJoinPool.commonPool());
+        ParallelDeflate.gzip(source, second, Deflater.BEST_COMPRESSION, ForkJoinPool.commonPool());
+
+        // 标准gzip可解压，多块拼接后内容一致
+        try (InputStream is = new GZIPInputStream(Files.newInputStream(first))) {
+            assertArrayEquals(Files.readAllBytes(source), is.readAllBytes());
+        }
+        assertTrue(Files.size(first) < Files.size(source) / 4);
+        // 相同内容压缩结果相同，上传时可按哈希跳过
+        assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+    }
+}
@@ -0,0 +1,84 @@
+package cn.citizenwiki.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelDeflateZipWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testReadableByZipFile() throws IOException {
+        byte[] globalIni = sampleIni(20000);
+        byte[] systemCfg = "g_language = chinese_(simplified)\n".getBytes(StandardCharsets.UTF_8);
+        Path zip = tempDir.resolve("data.zip");
+        try (ParallelDeflateZipWriter writer = new ParallelDeflateZipWriter(Files.newOutputStream(zip), Deflater.BEST_COMPRESSION,
+                ParallelDeflateZipWriter.DEFAULT_BLOCK_SIZE, ForkJoinPool.commonPool())) {
+            writer.putEntry("data/Localization/chinese_(simplified)/global.ini", globalIni);
+            writer.putEntry("data/system.cfg", systemCfg);
+            writer.putEntry("data/空文件", new byte[0]);
+        }
+
+        // 大文件被切成多块并行压缩，仍为标准zip
+        assertTrue(globalIni.length > 4 * ParallelDeflateZipWriter.DEFAULT_BLOCK_SIZE);
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            List<String> names = Collections.list(zipFile.entries()).stream().map(ZipEntry::getName).toList();
+            assertEquals(List.of("data/Localization/chinese_(simplified)/global.ini", "data/system.cfg", "data/空文件"), names);
+            ZipEntry entry = zipFile.getEntry("data/Localization/chinese_(simplified)/global.ini");
+            assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+            assertTrue(entry.getCompressedSize() < globalIni.length / 2);
+            assertArrayEquals(globalIni, zipFile.getInputStream(entry).readAllBytes());
+            assertArrayEquals(systemCfg, zipFile.getInputStream(zipFile.getEntry("data/system.cfg")).readAllBytes());
+            assertEquals(0, zipFile.getInputStream(zipFile.getEntry("data/空文件")).readAllBytes().length);
+        }
+    }
+
+    @Test
+    void testStoredAndStreamRead() throws IOException {
+        byte[] content = sampleIni(5000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ParallelDeflateZipWriter writer = new ParallelDeflateZipWriter(out, Deflater.NO_COMPRESSION,
+                64 * 1024, ForkJoinPool.commonPool())) {
+            writer.putEntry("global.ini", content);
+        }
+        // 按本地文件头顺序读取
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry = zis.getNextEntry();
+            assertEquals("global.ini", entry.getName());
+            assertEquals(ZipEntry.STORED, entry.getMethod());
+            assertArrayEquals(content, zis.readAllBytes());
+            assertNull(zis.getNextEntry());
+        }
+    }
+
+    private static byte[] sampleIni(int lines) {
+        Random random = new Random(1);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append("item_Name_").append(Integer.toHexString(random.nextInt())).append("=物品名称")
+                    .append(random.nextInt(1000)).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
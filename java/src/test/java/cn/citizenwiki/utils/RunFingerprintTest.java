@@ -0,0 +1,65 @@
+package cn.citizenwiki.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunFingerprintTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSameInputsSameFingerprint() throws IOException {
+        Path ini = prepareInputs();
+        String fp1 = RunFingerprint.compute(ini, tempDir.resolve("metadata.info"), tempDir.resolve("rules"), tempDir.resolve("data"), "SW_PUBLISH=true");
+        String fp2 = RunFingerprint.compute(ini, tempDir.resolve("metadata.info"), tempDir.resolve("rules"), tempDir.resolve("data"), "SW_PUBLISH=true");
+        assertEquals(fp1, fp2);
+    }
+
+    @Test
+    void testChangedInputsChangeFingerprint() throws IOException {
+        Path ini = prepareInputs();
+        String origin = RunFingerprint.compute(ini, tempDir.resolve("metadata.info"), tempDir.resolve("rules"), tempDir.resolve("data"), "SW_PUBLISH=true");
+        // 开关变化
+        assertNotEquals(origin, RunFingerprint.compute(ini, tempDir.resolve("metadata.info"), tempDir.resolve("rules"), tempDir.resolve("data"), "SW_PUBLISH=false"));
+        // 规则变化
+        Files.writeString(tempDir.resolve("rules/规则/a.yaml"), "b: 2");
+        String ruleChanged = RunFingerprint.compute(ini, tempDir.resolve("metadata.info"), tempDir.resolve("rules"), tempDir.resolve("data"), "SW_PUBLISH=true");
+        assertNotEquals(origin, ruleChanged);
+        // 清单变化
+        Files.writeString(tempDir.resolve("metadata.info"), "[{\"id\":2}]");
+        String metadataChanged = RunFingerprint.compute(ini, tempDir.resolve("metadata.info"), tempDir.resolve("rules"), tempDir.resolve("data"), "SW_PUBLISH=true");
+        assertNotEquals(ruleChanged, metadataChanged);
+        // 打包进data.zip的文件变化
+        Files.writeString(tempDir.resolve("data/terms-8340.json"), "{\"b\":1}");
+        assertNotEquals(metadataChanged, RunFingerprint.compute(ini, tempDir.resolve("metadata.info"), tempDir.resolve("rules"), tempDir.resolve("data"), "SW_PUBLISH=true"));
+    }
+
+    @Test
+    void testStoreAndMatch() throws IOException {
+        RunFingerprint runFingerprint = new RunFingerprint(tempDir.resolve("cache/run_fingerprint.info"));
+        assertFalse(runFingerprint.matchesStored("abc"));
+        runFingerprint.store("abc");
+        assertTrue(runFingerprint.matchesStored("abc"));
+        assertFalse(runFingerprint.matchesStored("abd"));
+    }
+
+    private Path prepareInputs() throws IOException {
+        Path ini = tempDir.resolve("global.ini");
+        Files.writeString(ini, "key=value\n");
+        Files.writeString(tempDir.resolve("metadata.info"), "[{\"id\":1}]");
+        Files.createDirectories(tempDir.resolve("rules/规则"));
+        Files.writeString(tempDir.resolve("rules/半汉化.yaml"), "a: 1");
+        Files.writeString(tempDir.resolve("rules/规则/a.yaml"), "b: 1");
+        Files.createDirectories(tempDir.resolve("data"));
+        Files.writeString(tempDir.resolve("data/system.cfg"), "g_language = chinese_(simplified)");
+        Files.writeString(tempDir.resolve("data/terms-8340.json"), "{\"a\":1}");
+        return ini;
+    }
+}
@@ -0,0 +1,45 @@
+package cn.citizenwiki.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class XxHash64Test {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testKnownValues() {
+        // 与xxHash参考实现的结果一致，覆盖空输入、不足一轮以及超过一轮的输入
+        assertEquals(0xEF46DB3751D8E999L, XxHash64.hash(new byte[0]));
+        assertEquals(0xD24EC4F1A98C6E5BL, XxHash64.hash("a".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(0x44BC2CF5AD770999L, XxHash64.hash("abc".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(0xFBCEA83C8A378BF1L, XxHash64.hash("Nobody inspects the spammish repetition".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals("ef46db3751d8e999", XxHash64.toHex(0xEF46DB3751D8E999L));
+    }
+
+    @Test
+    void testStreaming() throws Exception {
+        byte[] bytes = new byte[1000];
+        new Random(42).nextBytes(bytes);
+        long expected = XxHash64.hash(bytes);
+        // 任意切分方式结果一致
+        for (int chunk : new int[]{1, 7, 31, 32, 33, 100}) {
+            XxHash64 xxHash64 = new XxHash64();
+            for (int off = 0; off < bytes.length; off += chunk) {
+                xxHash64.update(bytes, off, Math.min(chunk, bytes.length - off));
+            }
+            assertEquals(expected, xxHash64.getValue(), "chunk=" + chunk);
+        }
+        Path file = tempDir.resolve("file");
+        Files.write(file, bytes);
+        assertEquals(XxHash64.toHex(expected), XxHash64.hashHex(file));
+    }
+}